@@ -0,0 +1,37 @@
+package io.acordi.msbiblioteca.config;
+
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura da coluna status, executada para cada livro carregado pelo Hibernate. Os valores
+ * em minúsculas e inválidos passam pelo caminho de exceção do valueOf.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StatusLivroConverterBenchmark {
+
+    @Param({"DISPONIVEL", "emprestado", "invalido", ""})
+    private String valor;
+
+    private final StatusLivroConverter converter = new StatusLivroConverter();
+
+    @Benchmark
+    public StatusLivro paraAtributo() {
+        return converter.convertToEntityAttribute(valor);
+    }
+
+    @Benchmark
+    public String paraColuna() {
+        return converter.convertToDatabaseColumn(StatusLivro.EMPRESTADO);
+    }
+}
@@ -0,0 +1,82 @@
+package io.acordi.msbiblioteca.domain.services;
+
+import io.acordi.msbiblioteca.domain.entities.Autor;
+import io.acordi.msbiblioteca.domain.entities.Emprestimo;
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.entities.Membro;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.entrypoint.dto.EmprestimoDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.LivroDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão de entidades em DTOs feita em toda resposta de livros e de empréstimos.
+ * Os serviços são instanciados sem o Spring, pois a conversão não usa dependências.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConversaoDtoBenchmark {
+
+    @Param({"0", "1", "5"})
+    private int quantidadeAutores;
+
+    private final LivroService livroService = new LivroService();
+
+    private final EmprestimoService emprestimoService = new EmprestimoService();
+
+    private Livro livro;
+
+    private Emprestimo emprestimo;
+
+    @Setup
+    public void preparar() {
+        Set<Autor> autores = new HashSet<>();
+        for (int i = 1; i <= quantidadeAutores; i++) {
+            Autor autor = new Autor();
+            autor.setId(i);
+            autor.setNome("Autor " + i);
+            autores.add(autor);
+        }
+
+        livro = new Livro();
+        livro.setId(42);
+        livro.setTitulo("Memórias Póstumas de Brás Cubas");
+        livro.setAnoPublicacao(1881);
+        livro.setStatus(StatusLivro.EMPRESTADO);
+        livro.setAutores(autores);
+
+        Membro membro = new Membro();
+        membro.setId(7);
+        membro.setNome("Membro");
+
+        emprestimo = new Emprestimo();
+        emprestimo.setId(1_000);
+        emprestimo.setLivro(livro);
+        emprestimo.setMembro(membro);
+        emprestimo.setDataEmprestimo(LocalDate.of(2024, 3, 1));
+        emprestimo.setDataDevolucaoPrevista(LocalDate.of(2024, 3, 15));
+    }
+
+    @Benchmark
+    public LivroDTO livroParaDto() {
+        return livroService.convertToDto(livro);
+    }
+
+    @Benchmark
+    public EmprestimoDTO emprestimoParaDto() {
+        return emprestimoService.convertToDto(emprestimo);
+    }
+}
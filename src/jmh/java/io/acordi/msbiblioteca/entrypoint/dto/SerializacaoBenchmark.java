@@ -0,0 +1,82 @@
+package io.acordi.msbiblioteca.entrypoint.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização em JSON de listas grandes de livros e de empréstimos, com um ObjectMapper
+ * configurado como o do Spring Boot (datas em ISO-8601).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializacaoBenchmark {
+
+    @Param({"100", "10000"})
+    private int tamanho;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private List<LivroDTO> livros;
+
+    private List<EmprestimoDTO> emprestimos;
+
+    @Setup
+    public void preparar() {
+        livros = new ArrayList<>(tamanho);
+        emprestimos = new ArrayList<>(tamanho);
+        LocalDate hoje = LocalDate.of(2024, 3, 1);
+        for (int i = 1; i <= tamanho; i++) {
+            AutorDTO autor = new AutorDTO();
+            autor.setId(i % 500 + 1);
+            autor.setNome("Autor " + (i % 500 + 1));
+            Set<AutorDTO> autores = new HashSet<>();
+            autores.add(autor);
+
+            LivroDTO livro = new LivroDTO();
+            livro.setId(i);
+            livro.setTitulo("Livro " + i);
+            livro.setAnoPublicacao(1900 + i % 120);
+            livro.setStatus(i % 3 == 0 ? StatusLivro.EMPRESTADO : StatusLivro.DISPONIVEL);
+            livro.setAutores(autores);
+            livros.add(livro);
+
+            EmprestimoDTO emprestimo = new EmprestimoDTO();
+            emprestimo.setId(i);
+            emprestimo.setMembroId(i % 1_000 + 1);
+            emprestimo.setLivroId(i);
+            emprestimo.setDataEmprestimo(hoje.minusDays(i % 30));
+            emprestimo.setDataDevolucaoPrevista(hoje.plusDays(14 - i % 30));
+            emprestimo.setNomeMembro("Membro " + (i % 1_000 + 1));
+            emprestimo.setTituloLivro(livro.getTitulo());
+            emprestimos.add(emprestimo);
+        }
+    }
+
+    @Benchmark
+    public byte[] livros() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(livros);
+    }
+
+    @Benchmark
+    public byte[] emprestimos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(emprestimos);
+    }
+}
@@ -2,8 +2,10 @@ package io.acordi.msbiblioteca;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MsBibliotecaApplication {
 
     public static void main(String[] args) {
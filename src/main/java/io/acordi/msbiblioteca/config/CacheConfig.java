@@ -0,0 +1,69 @@
+package io.acordi.msbiblioteca.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.acordi.msbiblioteca.domain.services.AutorService;
+import io.acordi.msbiblioteca.domain.services.LivroService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Caches de leitura dos livros e autores consultados por ID. Os limites de tamanho e
+ * expiração de cada cache vêm de biblioteca.cache.* no formato de especificação do
+ * Caffeine; as estatísticas ficam disponíveis em /actuator/metrics/cache.gets.
+ * <p>
+ * As invalidações feitas dentro de uma transação só são aplicadas após o commit, para
+ * que uma leitura concorrente não volte a guardar o valor antigo. Elas valem apenas para esta
+ * instância: uma alteração feita em outra só aparece aqui quando a entrada expira. Por isso o
+ * cache de livros não guarda o status, que muda a cada empréstimo e devolução.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String LIVROS = "livros";
+
+    public static final String AUTORES = "autores";
+
+    private static final Logger log = LoggerFactory.getLogger(CacheConfig.class);
+
+    @Autowired
+    @Lazy
+    private LivroService livroService;
+
+    @Autowired
+    @Lazy
+    private AutorService autorService;
+
+    @Value("${biblioteca.cache.aquecimento:0}")
+    private int quantidadeAquecimento;
+
+    @Bean
+    public CacheManager cacheManager(@Value("${biblioteca.cache.livros}") String especificacaoLivros,
+                                     @Value("${biblioteca.cache.autores}") String especificacaoAutores) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(LIVROS, Caffeine.from(especificacaoLivros).build());
+        cacheManager.registerCustomCache(AUTORES, Caffeine.from(especificacaoAutores).build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void aquecer() {
+        if (quantidadeAquecimento <= 0) {
+            return;
+        }
+        int livros = livroService.aquecerCache(quantidadeAquecimento);
+        int autores = autorService.aquecerCache(quantidadeAquecimento);
+        log.info("Caches aquecidos: {} livros, {} autores", livros, autores);
+    }
+}
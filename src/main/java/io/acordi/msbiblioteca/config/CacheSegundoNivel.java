@@ -0,0 +1,36 @@
+package io.acordi.msbiblioteca.config;
+
+import io.acordi.msbiblioteca.infra.index.AposCommit;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Regiões do cache de segundo nível do Hibernate (configuradas em
+ * biblioteca.cache.segundo-nivel, ver {@link CacheSegundoNivelConfig}) e invalidação das
+ * entradas afetadas por gravações feitas por JDBC, que o Hibernate não enxerga. As gravações
+ * feitas pelo EntityManager já atualizam o cache sozinhas.
+ * <p>
+ * Como nos caches do Spring, a invalidação só é aplicada após o commit, para que uma leitura
+ * concorrente não volte a guardar o valor antigo.
+ */
+@Component
+public class CacheSegundoNivel {
+
+    public static final String AUTOR = "autor";
+
+    // Consultas parametrizadas do catálogo em LivroRepository e AutorRepository
+    public static final String CONSULTAS_CATALOGO = "consultas-catalogo";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Linhas inseridas em livro, autor ou livro_autor mudam o resultado das consultas
+    public void removerConsultasCatalogo() {
+        AposCommit.executar(() -> cache().evictQueryRegion(CONSULTAS_CATALOGO));
+    }
+
+    private org.hibernate.Cache cache() {
+        return entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+    }
+}
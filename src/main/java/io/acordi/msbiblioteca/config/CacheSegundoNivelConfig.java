@@ -0,0 +1,65 @@
+package io.acordi.msbiblioteca.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Cria as regiões do cache de segundo nível do Hibernate (JCache sobre o Caffeine) com o
+ * tamanho máximo e a expiração de biblioteca.cache.segundo-nivel.&lt;região&gt; e as entrega ao
+ * Hibernate, que não cria regiões por conta própria (missing_cache_strategy: fail). Os acertos
+ * e falhas de cada região aparecem em hibernate.second.level.cache.requests e os do cache de
+ * consultas em hibernate.cache.query.requests.
+ */
+@Configuration
+public class CacheSegundoNivelConfig {
+
+    /**
+     * Limites de uma região; sem eles, a região não tem limite de tamanho nem expira.
+     */
+    public record Regiao(Long tamanhoMaximo, Duration expiracao) {
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivel(Environment environment) {
+        Map<String, Regiao> regioes = Binder.get(environment)
+                .bind("biblioteca.cache.segundo-nivel", Bindable.mapOf(String.class, Regiao.class))
+                .orElse(Map.of());
+
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        regioes.forEach((nome, regiao) -> criarRegiao(cacheManager, nome, regiao));
+        // As marcas de atualização das tabelas validam os resultados em cache: não podem expirar antes deles
+        criarRegiao(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new Regiao(null, null));
+
+        return propriedades -> propriedades.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    // O CacheManager é compartilhado pelos contextos da mesma JVM (ex.: nos testes): a região pode já existir
+    private static void criarRegiao(CacheManager cacheManager, String nome, Regiao regiao) {
+        if (cacheManager.getCache(nome) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuracao = new CaffeineConfiguration<>();
+        if (regiao.tamanhoMaximo() != null) {
+            configuracao.setMaximumSize(OptionalLong.of(regiao.tamanhoMaximo()));
+        }
+        if (regiao.expiracao() != null) {
+            configuracao.setExpireAfterWrite(OptionalLong.of(regiao.expiracao().toNanos()));
+        }
+        configuracao.setStatisticsEnabled(true);
+        cacheManager.createCache(nome, configuracao);
+    }
+}
@@ -0,0 +1,94 @@
+package io.acordi.msbiblioteca.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.acordi.msbiblioteca.domain.types.FormatoArquivo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Escreve o resultado de uma consulta em NDJSON (um objeto JSON por linha) ou CSV à medida
+ * que as linhas chegam do banco, sem acumular a lista em memória. As consultas de exportação
+ * usam {@link #TAMANHO_BUSCA} como fetch size; no MySQL isso só limita as linhas em trânsito
+ * com useCursorFetch=true na URL de conexão (ver o custo para os demais comandos em
+ * application.yml).
+ */
+@Component
+public class Exportador {
+
+    public static final String TAMANHO_BUSCA = "1000";
+
+    // Limites do período quando a exportação não informa as datas (faixa do tipo DATE do MySQL)
+    public static final LocalDate PRIMEIRA_DATA = LocalDate.of(1000, 1, 1);
+    public static final LocalDate ULTIMA_DATA = LocalDate.of(9999, 12, 31);
+
+    // A cada quantas linhas o buffer é enviado ao cliente
+    private static final int LINHAS_POR_ENVIO = 1_000;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Consome as linhas e retorna quantas foram escritas. No CSV, cada coluna é extraída de
+     * uma linha por {@code valores}, na ordem de {@code cabecalho}.
+     */
+    public <T> long exportar(Stream<T> linhas, Class<T> tipo, FormatoArquivo formato, List<String> cabecalho,
+                             Function<T, List<Object>> valores, OutputStream saida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        ObjectWriter json = objectMapper.writerFor(tipo);
+        if (formato == FormatoArquivo.CSV) {
+            escreverCsv(escritor, cabecalho);
+        }
+
+        long total = 0;
+        Iterator<T> iterador = linhas.iterator();
+        while (iterador.hasNext()) {
+            T linha = iterador.next();
+            if (formato == FormatoArquivo.NDJSON) {
+                escritor.write(json.writeValueAsString(linha));
+                escritor.write('\n');
+            } else {
+                escreverCsv(escritor, valores.apply(linha));
+            }
+            if (++total % LINHAS_POR_ENVIO == 0) {
+                escritor.flush();
+            }
+        }
+        escritor.flush();
+        return total;
+    }
+
+    private static void escreverCsv(Writer escritor, List<?> colunas) throws IOException {
+        for (int i = 0; i < colunas.size(); i++) {
+            if (i > 0) {
+                escritor.write(',');
+            }
+            escritor.write(campoCsv(colunas.get(i)));
+        }
+        escritor.write("\r\n");
+    }
+
+    // RFC 4180: campos com separador, aspas ou quebra de linha vão entre aspas, com aspas duplicadas
+    static String campoCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor.toString();
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+}
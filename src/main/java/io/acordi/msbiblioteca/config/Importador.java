@@ -0,0 +1,182 @@
+package io.acordi.msbiblioteca.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.acordi.msbiblioteca.domain.types.FormatoArquivo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Lê um arquivo NDJSON (um objeto JSON por linha) ou CSV (com cabeçalho) à medida que chega,
+ * entregando as linhas em lotes de tamanho fixo; só um lote fica em memória por vez. Linhas
+ * que não puderem ser lidas são entregues com a mensagem de erro, sem interromper a leitura.
+ * É a contraparte de leitura do {@link Exportador}.
+ */
+@Component
+public class Importador {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Linha lida do arquivo: {@code numero} é a linha física em que o registro começa e
+     * {@code erro} vem preenchido (com {@code valor} nulo) quando a linha é inválida.
+     */
+    public record Linha<T>(int numero, T valor, String erro) {
+    }
+
+    /**
+     * Lê a entrada até o fim. No CSV, cada registro é convertido por {@code deCsv} a partir
+     * do mapa coluna do cabeçalho → valor; uma exceção da conversão vira o erro da linha.
+     *
+     * @return quantidade de linhas lidas, incluindo as inválidas
+     */
+    public <T> int importar(InputStream entrada, FormatoArquivo formato, Class<T> tipo,
+                            Function<Map<String, String>, T> deCsv, int tamanhoLote,
+                            Consumer<List<Linha<T>>> processarLote) throws IOException {
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        List<Linha<T>> lote = new ArrayList<>(tamanhoLote);
+        int total = 0;
+
+        if (formato == FormatoArquivo.NDJSON) {
+            ObjectReader json = objectMapper.readerFor(tipo);
+            String texto;
+            int numero = 0;
+            while ((texto = leitor.readLine()) != null) {
+                numero++;
+                if (texto.isBlank()) {
+                    continue;
+                }
+                lote.add(lerJson(json, numero, texto));
+                total++;
+                if (lote.size() == tamanhoLote) {
+                    processarLote.accept(lote);
+                    lote = new ArrayList<>(tamanhoLote);
+                }
+            }
+        } else {
+            LeitorCsv csv = new LeitorCsv(leitor);
+            List<String> cabecalho = csv.proximo();
+            if (cabecalho == null) {
+                return 0;
+            }
+            List<String> campos;
+            while ((campos = csv.proximo()) != null) {
+                if (campos.size() == 1 && campos.get(0).isEmpty()) {
+                    continue;
+                }
+                lote.add(converterCsv(cabecalho, campos, csv.getLinhaRegistro(), deCsv));
+                total++;
+                if (lote.size() == tamanhoLote) {
+                    processarLote.accept(lote);
+                    lote = new ArrayList<>(tamanhoLote);
+                }
+            }
+        }
+        if (!lote.isEmpty()) {
+            processarLote.accept(lote);
+        }
+        return total;
+    }
+
+    private static <T> Linha<T> lerJson(ObjectReader json, int numero, String texto) {
+        try {
+            return new Linha<>(numero, json.readValue(texto), null);
+        } catch (JsonProcessingException e) {
+            return new Linha<>(numero, null, "JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    private static <T> Linha<T> converterCsv(List<String> cabecalho, List<String> campos, int numero,
+                                             Function<Map<String, String>, T> deCsv) {
+        if (campos.size() != cabecalho.size()) {
+            return new Linha<>(numero, null, "Esperadas " + cabecalho.size() + " colunas, encontradas " + campos.size());
+        }
+        Map<String, String> registro = new HashMap<>();
+        for (int i = 0; i < cabecalho.size(); i++) {
+            registro.put(cabecalho.get(i).trim(), campos.get(i));
+        }
+        try {
+            return new Linha<>(numero, deCsv.apply(registro), null);
+        } catch (IllegalArgumentException e) {
+            return new Linha<>(numero, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Leitor de registros CSV no formato da RFC 4180 (o mesmo escrito pelo Exportador):
+     * campos entre aspas podem conter vírgulas, aspas duplicadas e quebras de linha.
+     */
+    static class LeitorCsv {
+
+        private final BufferedReader leitor;
+
+        private int linhaAtual = 1;
+
+        private int linhaRegistro;
+
+        LeitorCsv(BufferedReader leitor) {
+            this.leitor = leitor;
+        }
+
+        // Próximo registro, ou null no fim da entrada
+        List<String> proximo() throws IOException {
+            int c = leitor.read();
+            if (c < 0) {
+                return null;
+            }
+            linhaRegistro = linhaAtual;
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreAspas = false;
+            while (c >= 0) {
+                if (entreAspas) {
+                    if (c == '"') {
+                        leitor.mark(1);
+                        if (leitor.read() == '"') {
+                            campo.append('"');
+                        } else {
+                            leitor.reset();
+                            entreAspas = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            linhaAtual++;
+                        }
+                        campo.append((char) c);
+                    }
+                } else if (c == '"' && campo.isEmpty()) {
+                    entreAspas = true;
+                } else if (c == ',') {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else if (c == '\n') {
+                    linhaAtual++;
+                    break;
+                } else if (c != '\r') {
+                    campo.append((char) c);
+                }
+                c = leitor.read();
+            }
+            campos.add(campo.toString());
+            return campos;
+        }
+
+        int getLinhaRegistro() {
+            return linhaRegistro;
+        }
+    }
+}
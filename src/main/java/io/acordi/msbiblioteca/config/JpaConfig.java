@@ -1,8 +1,17 @@
 package io.acordi.msbiblioteca.config;
 
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Configuration
 public class JpaConfig {
@@ -14,4 +23,51 @@ public class JpaConfig {
             builder.failOnEmptyBeans(false);
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * O mesmo JpaTransactionManager da auto-configuração, que também informa ao
+     * {@link RoteamentoDataSource} se a transação pode ler de uma réplica.
+     * <p>
+     * O cache de segundo nível é local e só conhece as gravações desta instância, então cada
+     * transação o usa conforme o que lê: as de escrita leem do banco e renovam o cache com o
+     * que leram, para não gravar sobre uma versão antiga; as que leem de uma réplica só
+     * consultam o cache, para não guardar nele uma linha atrasada.
+     */
+    @Bean
+    public PlatformTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> customizers,
+                                                         ObjectProvider<RoteamentoDataSource> roteamento) {
+        boolean comReplicas = roteamento.getIfAvailable() != null;
+        JpaTransactionManager transactionManager = new JpaTransactionManager() {
+            // Antes do super.doBegin, que já obtém a conexão da transação
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+                boolean leituraEmReplica = RoteamentoDataSource.podeLerEmReplica(definition);
+                RoteamentoDataSource.iniciarTransacao(leituraEmReplica);
+                try {
+                    super.doBegin(transaction, definition);
+                } catch (RuntimeException | Error e) {
+                    RoteamentoDataSource.encerrarTransacao();
+                    throw e;
+                }
+                EntityManagerHolder holder = (EntityManagerHolder)
+                        TransactionSynchronizationManager.getResource(getEntityManagerFactory());
+                if (holder != null) {
+                    holder.getEntityManager().unwrap(Session.class).setCacheMode(!definition.isReadOnly() ? CacheMode.REFRESH
+                            : leituraEmReplica && comReplicas ? CacheMode.GET
+                            : CacheMode.NORMAL);
+                }
+            }
+
+            @Override
+            protected void doCleanupAfterCompletion(Object transaction) {
+                try {
+                    super.doCleanupAfterCompletion(transaction);
+                } finally {
+                    RoteamentoDataSource.encerrarTransacao();
+                }
+            }
+        };
+        customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+        return transactionManager;
+    }
+}
@@ -0,0 +1,36 @@
+package io.acordi.msbiblioteca.config;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * TransactionTemplate somente leitura com o label {@link RoteamentoDataSource#LEITURA_NO_PRIMARIO},
+ * para leituras programáticas que precisam ver o que acabou de ser gravado. O TransactionTemplate
+ * comum não leva labels ao gerenciador de transações.
+ */
+public class LeituraNoPrimarioTemplate extends TransactionTemplate implements TransactionAttribute {
+
+    public LeituraNoPrimarioTemplate(PlatformTransactionManager transactionManager) {
+        super(transactionManager);
+        setReadOnly(true);
+    }
+
+    @Override
+    public String getQualifier() {
+        return null;
+    }
+
+    @Override
+    public Collection<String> getLabels() {
+        return List.of(RoteamentoDataSource.LEITURA_NO_PRIMARIO);
+    }
+
+    @Override
+    public boolean rollbackOn(Throwable ex) {
+        return ex instanceof RuntimeException || ex instanceof Error;
+    }
+}
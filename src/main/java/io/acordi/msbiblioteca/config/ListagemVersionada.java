@@ -0,0 +1,18 @@
+package io.acordi.msbiblioteca.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca um endpoint GET cuja resposta recebe como ETag o hash do próprio corpo, e responde 304 a
+ * um If-None-Match igual a ele. O método é executado mesmo assim: o 304 economiza a transferência,
+ * não a leitura. O ETag não depende de nenhuma versão gravada pelas escritas, então as transações
+ * não disputam uma linha comum, e o mesmo corpo tem o mesmo ETag em qualquer instância. Não usar
+ * em respostas que variam com o tempo ou são sorteadas.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ListagemVersionada {
+}
@@ -0,0 +1,25 @@
+package io.acordi.msbiblioteca.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Restringe o {@link ShallowEtagHeaderFilter} (ver {@link WebConfig}) aos endpoints marcados com
+ * {@link ListagemVersionada}: nos demais, o corpo não é guardado em memória nem recebe ETag, o que
+ * mantém as exportações em streaming e os ETags por versão das consultas por ID.
+ */
+@Component
+public class ListagemVersionadaInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod metodo) || !metodo.hasMethodAnnotation(ListagemVersionada.class)) {
+            ShallowEtagHeaderFilter.disableContentCaching(request);
+        }
+        return true;
+    }
+}
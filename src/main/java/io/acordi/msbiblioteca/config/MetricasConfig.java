@@ -0,0 +1,51 @@
+package io.acordi.msbiblioteca.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Métricas de latência expostas em /actuator/prometheus:
+ * <ul>
+ *     <li>http.server.requests, com a tag metodo (ex.: EmprestimoController.findEmprestimosAtrasados);</li>
+ *     <li>biblioteca.repositorio.execucao e biblioteca.repositorio.linhas, por repositório e método
+ *     de infra.repository (ver {@link MetricasRepositorioPostProcessor});</li>
+ *     <li>hikaricp.connections.acquire, o tempo de espera por uma conexão do pool.</li>
+ * </ul>
+ * Os histogramas de percentis são ativados em management.metrics.distribution.
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public ServerRequestObservationConvention serverRequestObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                return super.getLowCardinalityKeyValues(context).and(metodo(context));
+            }
+        };
+    }
+
+    // Estático para que o post-processor seja registrado sem inicializar esta configuração antes da hora
+    @Bean
+    public static MetricasRepositorioPostProcessor metricasRepositorioPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new MetricasRepositorioPostProcessor(meterRegistry);
+    }
+
+    private static KeyValue metodo(ServerRequestObservationContext context) {
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod handlerMethod) {
+            return KeyValue.of("metodo", handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+        }
+        return KeyValue.of("metodo", "nenhum");
+    }
+}
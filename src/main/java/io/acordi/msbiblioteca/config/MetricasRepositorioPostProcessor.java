@@ -0,0 +1,142 @@
+package io.acordi.msbiblioteca.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.util.ClassUtils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+/**
+ * Mede cada chamada aos repositórios de infra.repository, tanto os do Spring Data quanto os
+ * de JdbcTemplate: tempo de execução em biblioteca.repositorio.execucao e quantidade de
+ * linhas retornadas (ou alteradas, nos métodos @Modifying e nos lotes JDBC) em
+ * biblioteca.repositorio.linhas, com as tags repositorio e metodo.
+ */
+public class MetricasRepositorioPostProcessor implements BeanPostProcessor {
+
+    private static final String PACOTE = "io.acordi.msbiblioteca.infra.repository";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public MetricasRepositorioPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        String repositorio = nomeRepositorio(bean);
+        if (repositorio == null) {
+            return bean;
+        }
+        MethodInterceptor interceptor = new Interceptor(repositorio);
+        // Os repositórios do Spring Data (e os @Repository já traduzidos) chegam como proxies
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    // Nome da interface do repositório (Spring Data) ou da classe (JdbcTemplate); null se não for do pacote
+    private static String nomeRepositorio(Object bean) {
+        for (Class<?> interfaceRepositorio : ClassUtils.getAllInterfaces(bean)) {
+            if (PACOTE.equals(interfaceRepositorio.getPackageName())) {
+                return interfaceRepositorio.getSimpleName();
+            }
+        }
+        Class<?> classe = ClassUtils.getUserClass(bean);
+        return PACOTE.equals(classe.getPackageName()) ? classe.getSimpleName() : null;
+    }
+
+    private class Interceptor implements MethodInterceptor {
+
+        private final String repositorio;
+
+        Interceptor(String repositorio) {
+            this.repositorio = repositorio;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null || invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            String metodo = invocation.getMethod().getName();
+            String resultado = "sucesso";
+            long inicio = System.nanoTime();
+            try {
+                Object retorno = invocation.proceed();
+                Long linhas = contarLinhas(retorno, invocation.getMethod().isAnnotationPresent(Modifying.class));
+                if (linhas != null) {
+                    DistributionSummary.builder("biblioteca.repositorio.linhas")
+                            .tag("repositorio", repositorio)
+                            .tag("metodo", metodo)
+                            .register(registry)
+                            .record(linhas);
+                }
+                return retorno;
+            } catch (Throwable e) {
+                resultado = "erro";
+                throw e;
+            } finally {
+                Timer.builder("biblioteca.repositorio.execucao")
+                        .tag("repositorio", repositorio)
+                        .tag("metodo", metodo)
+                        .tag("resultado", resultado)
+                        .register(registry)
+                        .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Linhas lidas ou alteradas conforme o tipo de retorno; null quando não dá para saber
+     * sem consumir o resultado (ex.: Stream).
+     */
+    static Long contarLinhas(Object retorno, boolean modificacao) {
+        if (retorno == null) {
+            return 0L;
+        }
+        if (retorno instanceof Collection<?> colecao) {
+            return (long) colecao.size();
+        }
+        if (retorno instanceof Slice<?> pagina) {
+            return (long) pagina.getNumberOfElements();
+        }
+        if (retorno instanceof Map<?, ?> mapa) {
+            return (long) mapa.size();
+        }
+        if (retorno instanceof Optional<?> opcional) {
+            return opcional.isPresent() ? 1L : 0L;
+        }
+        if (retorno instanceof int[] lote) {
+            // Lotes JDBC: o driver pode informar SUCCESS_NO_INFO (-2) por comando
+            return Arrays.stream(lote).mapToLong(afetadas -> Math.max(afetadas, 0)).sum();
+        }
+        if (retorno instanceof Number numero && modificacao) {
+            return numero.longValue();
+        }
+        if (retorno instanceof BaseStream<?, ?>) {
+            return null;
+        }
+        return 1L;
+    }
+}
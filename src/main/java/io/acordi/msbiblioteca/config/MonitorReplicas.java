@@ -0,0 +1,96 @@
+package io.acordi.msbiblioteca.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Mede o atraso de replicação de cada réplica (Seconds_Behind_Source de SHOW REPLICA STATUS)
+ * a cada biblioteca.replicas.verificacao-ms. Uma réplica fora do ar, com a replicação parada
+ * ou atrasada mais que biblioteca.replicas.atraso-maximo-s sai do rodízio de leituras até a
+ * próxima verificação bem-sucedida. Um banco que não é réplica (SHOW REPLICA STATUS vazio)
+ * conta como sem atraso, o que permite testar o roteamento com duas instâncias independentes.
+ * <p>
+ * O estado fica em biblioteca.replicas.disponivel e biblioteca.replicas.atraso, por réplica.
+ */
+@Component
+@ConditionalOnProperty(name = "biblioteca.replicas.urls")
+public class MonitorReplicas {
+
+    private static final Logger log = LoggerFactory.getLogger(MonitorReplicas.class);
+
+    @Autowired
+    private RoteamentoDataSource roteamentoDataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${biblioteca.replicas.atraso-maximo-s:5}")
+    private long atrasoMaximoSegundos;
+
+    @PostConstruct
+    public void registrarMetricas() {
+        for (RoteamentoDataSource.Replica replica : roteamentoDataSource.getReplicas()) {
+            Gauge.builder("biblioteca.replicas.disponivel", replica, r -> r.isDisponivel() ? 1 : 0)
+                    .tag("replica", replica.getNome())
+                    .register(meterRegistry);
+            Gauge.builder("biblioteca.replicas.atraso", replica, RoteamentoDataSource.Replica::getAtrasoSegundos)
+                    .tag("replica", replica.getNome())
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${biblioteca.replicas.verificacao-ms:5000}")
+    public void verificar() {
+        roteamentoDataSource.getReplicas().forEach(this::verificar);
+    }
+
+    void verificar(RoteamentoDataSource.Replica replica) {
+        boolean estavaDisponivel = replica.isDisponivel();
+        Long atraso;
+        try {
+            atraso = medirAtraso(replica);
+        } catch (SQLException e) {
+            replica.atualizar(false, -1);
+            if (estavaDisponivel) {
+                log.warn("Réplica {} inacessível; leituras enviadas às demais ou ao primário: {}", replica.getNome(), e.getMessage());
+            }
+            return;
+        }
+
+        boolean disponivel = atraso != null && atraso <= atrasoMaximoSegundos;
+        replica.atualizar(disponivel, atraso == null ? -1 : atraso);
+        if (estavaDisponivel && !disponivel) {
+            log.warn("Réplica {} fora do rodízio de leituras: {}", replica.getNome(),
+                    atraso == null ? "replicação parada" : "atraso de " + atraso + " s");
+        } else if (!estavaDisponivel && disponivel) {
+            log.info("Réplica {} de volta ao rodízio de leituras (atraso de {} s)", replica.getNome(), atraso);
+        }
+    }
+
+    // Atraso em segundos, ou null se a replicação estiver parada
+    private static Long medirAtraso(RoteamentoDataSource.Replica replica) throws SQLException {
+        try (Connection conexao = replica.getDataSource().getConnection();
+             Statement comando = conexao.createStatement();
+             ResultSet status = comando.executeQuery("SHOW REPLICA STATUS")) {
+            if (!status.next()) {
+                return 0L;
+            }
+            long atraso = status.getLong("Seconds_Behind_Source");
+            return status.wasNull() ? null : atraso;
+        }
+    }
+}
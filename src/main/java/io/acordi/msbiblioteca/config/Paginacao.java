@@ -0,0 +1,55 @@
+package io.acordi.msbiblioteca.config;
+
+import io.acordi.msbiblioteca.entrypoint.dto.PaginaDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Paginação por cursor (keyset) sobre o ID das entidades.
+ * As consultas buscam sempre um item a mais que o tamanho da página para
+ * saber se existe uma próxima página sem precisar de um COUNT.
+ */
+@Component
+public class Paginacao {
+
+    @Value("${biblioteca.paginacao.tamanho-padrao:20}")
+    private int tamanhoPadrao;
+
+    @Value("${biblioteca.paginacao.tamanho-maximo:100}")
+    private int tamanhoMaximo;
+
+    public int resolverTamanho(Integer tamanho) {
+        if (tamanho == null || tamanho <= 0) {
+            return tamanhoPadrao;
+        }
+        return Math.min(tamanho, tamanhoMaximo);
+    }
+
+    public int resolverCursor(Integer cursor) {
+        return cursor != null ? cursor : 0;
+    }
+
+    public Pageable janela(int tamanho) {
+        return PageRequest.of(0, tamanho + 1);
+    }
+
+    public <E, D> PaginaDTO<D> montar(List<E> resultado, int tamanho, Function<E, Integer> id, Function<E, D> conversor) {
+        boolean temProxima = resultado.size() > tamanho;
+        List<E> itens = temProxima ? resultado.subList(0, tamanho) : resultado;
+        Integer proximoCursor = temProxima ? id.apply(itens.get(itens.size() - 1)) : null;
+        return new PaginaDTO<>(itens.stream().map(conversor).collect(Collectors.toList()), proximoCursor, tamanho);
+    }
+
+    public <D> PaginaDTO<D> montarPorIds(List<Integer> ids, int tamanho, Function<List<Integer>, List<D>> carregar) {
+        boolean temProxima = ids.size() > tamanho;
+        List<Integer> idsPagina = temProxima ? ids.subList(0, tamanho) : ids;
+        Integer proximoCursor = temProxima ? idsPagina.get(idsPagina.size() - 1) : null;
+        return new PaginaDTO<>(carregar.apply(idsPagina), proximoCursor, tamanho);
+    }
+}
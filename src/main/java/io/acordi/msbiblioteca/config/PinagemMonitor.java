@@ -0,0 +1,80 @@
+package io.acordi.msbiblioteca.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Detecta virtual threads presas à thread portadora (pinning) por mais de
+ * biblioteca.virtual-threads.pinagem-limite-ms, o que acontece quando uma operação
+ * bloqueante ocorre dentro de um bloco synchronized — por exemplo, no driver JDBC.
+ * Cada ocorrência é registrada no log com o topo da pilha e contada em
+ * biblioteca.virtual-threads.pinagens.
+ * <p>
+ * Só é ativado com spring.threads.virtual.enabled=true (perfil virtual-threads).
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class PinagemMonitor {
+
+    private static final String EVENTO = "jdk.VirtualThreadPinned";
+
+    private static final int QUADROS_NO_LOG = 8;
+
+    private static final Logger log = LoggerFactory.getLogger(PinagemMonitor.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${biblioteca.virtual-threads.pinagem-limite-ms:20}")
+    private long limiteMs;
+
+    private RecordingStream stream;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        Counter pinagens = meterRegistry.counter("biblioteca.virtual-threads.pinagens");
+        stream = new RecordingStream();
+        stream.enable(EVENTO).withThreshold(Duration.ofMillis(limiteMs)).withStackTrace();
+        stream.onEvent(EVENTO, evento -> {
+            pinagens.increment();
+            log.warn("Virtual thread presa à portadora por {} ms:\n{}", evento.getDuration().toMillis(), pilha(evento));
+        });
+        stream.startAsync();
+        log.info("Monitorando pinagem de virtual threads acima de {} ms", limiteMs);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private static String pilha(RecordedEvent evento) {
+        if (evento.getStackTrace() == null) {
+            return "\t(pilha indisponível)";
+        }
+        List<RecordedFrame> quadros = evento.getStackTrace().getFrames();
+        return quadros.stream()
+                .limit(QUADROS_NO_LOG)
+                .map(quadro -> "\tat " + quadro.getMethod().getType().getName() + "." + quadro.getMethod().getName()
+                        + ":" + quadro.getLineNumber())
+                .collect(Collectors.joining("\n"));
+    }
+}
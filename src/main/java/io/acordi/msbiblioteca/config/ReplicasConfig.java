@@ -0,0 +1,59 @@
+package io.acordi.msbiblioteca.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Com biblioteca.replicas.urls (URLs JDBC separadas por vírgula), substitui o DataSource da
+ * auto-configuração por um {@link RoteamentoDataSource}: um pool para o primário
+ * (spring.datasource) e um para cada réplica, com o mesmo usuário, senha e configuração do
+ * Hikari (spring.datasource.hikari). Sem a propriedade, tudo continua no primário.
+ */
+@Configuration
+@ConditionalOnProperty(name = "biblioteca.replicas.urls")
+public class ReplicasConfig {
+
+    @Bean
+    public RoteamentoDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                           ObjectProvider<MeterRegistry> meterRegistry,
+                                           @Value("${biblioteca.replicas.urls}") String[] urls) {
+        HikariDataSource primario = criarPool(properties, environment, meterRegistry, "primario", properties.determineUrl());
+        List<RoteamentoDataSource.Replica> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String nome = "replica-" + (replicas.size() + 1);
+            HikariDataSource pool = criarPool(properties, environment, meterRegistry, nome, url.trim());
+            pool.setReadOnly(true);
+            replicas.add(new RoteamentoDataSource.Replica(nome, pool));
+        }
+        return new RoteamentoDataSource(primario, replicas);
+    }
+
+    // Mesmo pool que a auto-configuração criaria, com as métricas hikaricp.* marcadas pelo nome
+    private static HikariDataSource criarPool(DataSourceProperties properties, Environment environment,
+                                              ObjectProvider<MeterRegistry> meterRegistry, String nome, String url) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(nome);
+        meterRegistry.ifAvailable(registry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return pool;
+    }
+}
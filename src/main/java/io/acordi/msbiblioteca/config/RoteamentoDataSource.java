@@ -0,0 +1,179 @@
+package io.acordi.msbiblioteca.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envia as conexões das transações somente leitura ({@code @Transactional(readOnly = true)})
+ * a uma das réplicas disponíveis, em rodízio; todo o resto — escritas, comandos fora de
+ * transação e leituras marcadas com o label {@link #LEITURA_NO_PRIMARIO} — usa o primário.
+ * <p>
+ * A decisão é registrada pelo gerenciador de transações (ver JpaConfig) antes de o Hibernate
+ * obter a conexão. Uma réplica atrasada ou fora do ar (ver {@link MonitorReplicas}) deixa de
+ * receber leituras até se recuperar; sem réplica disponível, as leituras vão para o primário.
+ */
+public class RoteamentoDataSource extends AbstractDataSource implements Closeable {
+
+    // Label de @Transactional para leituras que precisam ver o que acabou de ser gravado
+    public static final String LEITURA_NO_PRIMARIO = "leitura-no-primario";
+
+    private static final Logger log = LoggerFactory.getLogger(RoteamentoDataSource.class);
+
+    // Destino de cada transação em andamento na thread; REQUIRES_NEW empilha sobre a suspensa
+    private static final ThreadLocal<Deque<Boolean>> LEITURA_EM_REPLICA = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final DataSource primario;
+
+    private final List<Replica> replicas;
+
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    public RoteamentoDataSource(DataSource primario, List<Replica> replicas) {
+        this.primario = primario;
+        this.replicas = List.copyOf(replicas);
+    }
+
+    /**
+     * Se uma transação nova com esta definição pode ler de uma réplica.
+     */
+    public static boolean podeLerEmReplica(TransactionDefinition definicao) {
+        return definicao.isReadOnly()
+                && !(definicao instanceof TransactionAttribute atributo && atributo.getLabels().contains(LEITURA_NO_PRIMARIO));
+    }
+
+    /**
+     * Chamado no início de cada transação nova, antes de a conexão ser obtida.
+     */
+    public static void iniciarTransacao(boolean leituraEmReplica) {
+        LEITURA_EM_REPLICA.get().push(leituraEmReplica);
+    }
+
+    /**
+     * Chamado ao fim da transação iniciada por {@link #iniciarTransacao}.
+     */
+    public static void encerrarTransacao() {
+        Deque<Boolean> pilha = LEITURA_EM_REPLICA.get();
+        pilha.poll();
+        if (pilha.isEmpty()) {
+            LEITURA_EM_REPLICA.remove();
+        }
+    }
+
+    static boolean leituraEmReplica() {
+        Boolean atual = LEITURA_EM_REPLICA.get().peek();
+        return atual != null && atual;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = leituraEmReplica() ? escolherReplica() : null;
+        if (replica != null) {
+            try {
+                return replica.getDataSource().getConnection();
+            } catch (SQLException e) {
+                // A próxima verificação do monitor devolve a réplica ao rodízio quando ela voltar
+                replica.marcarIndisponivel();
+                log.warn("Réplica {} recusou a conexão; leitura enviada ao primário: {}", replica.getNome(), e.getMessage());
+            }
+        }
+        return primario.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("As credenciais são as do pool de cada banco");
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    private Replica escolherReplica() {
+        int total = replicas.size();
+        if (total == 0) {
+            return null;
+        }
+        int inicio = Math.floorMod(proxima.getAndIncrement(), total);
+        for (int i = 0; i < total; i++) {
+            Replica replica = replicas.get((inicio + i) % total);
+            if (replica.isDisponivel()) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        fechar(primario);
+        replicas.forEach(replica -> fechar(replica.getDataSource()));
+    }
+
+    private static void fechar(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable fechavel) {
+            try {
+                fechavel.close();
+            } catch (Exception e) {
+                log.warn("Falha ao fechar o pool de conexões: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Réplica de leitura e seu estado, atualizado pelo {@link MonitorReplicas}.
+     */
+    public static class Replica {
+
+        private final String nome;
+
+        private final DataSource dataSource;
+
+        private volatile boolean disponivel = true;
+
+        // Último atraso de replicação medido, em segundos; -1 enquanto não houver medição
+        private volatile long atrasoSegundos = -1;
+
+        public Replica(String nome, DataSource dataSource) {
+            this.nome = nome;
+            this.dataSource = dataSource;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public boolean isDisponivel() {
+            return disponivel;
+        }
+
+        public long getAtrasoSegundos() {
+            return atrasoSegundos;
+        }
+
+        void atualizar(boolean disponivel, long atrasoSegundos) {
+            this.disponivel = disponivel;
+            this.atrasoSegundos = atrasoSegundos;
+        }
+
+        void marcarIndisponivel() {
+            this.disponivel = false;
+        }
+    }
+}
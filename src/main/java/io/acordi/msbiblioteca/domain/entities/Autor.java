@@ -1,11 +1,17 @@
 package io.acordi.msbiblioteca.domain.entities;
 
+import io.acordi.msbiblioteca.config.CacheSegundoNivel;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "autor")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheSegundoNivel.AUTOR)
 public class Autor {
 
     @Id
@@ -15,6 +21,12 @@ public class Autor {
     @Column(nullable = false, length = 100)
     private String nome;
 
+    // Incrementada a cada alteração; base do ETag e da detecção de atualizações concorrentes
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+
     @ManyToMany(mappedBy = "autores")
     private Set<Livro> livros = new HashSet<>();
 
@@ -35,6 +47,14 @@ public class Autor {
         this.nome = nome;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     public Set<Livro> getLivros() {
         return livros;
     }
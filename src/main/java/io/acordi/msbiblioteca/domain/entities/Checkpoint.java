@@ -0,0 +1,49 @@
+package io.acordi.msbiblioteca.domain.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Posição de um processamento em lotes (último ID processado), para que ele seja
+ * retomado do mesmo ponto depois de uma falha ou reinício. A linha também serve de
+ * trava entre instâncias: cada lote a bloqueia com SELECT ... FOR UPDATE.
+ */
+@Entity
+@Table(name = "job_checkpoint")
+public class Checkpoint {
+
+    @Id
+    @Column(length = 50)
+    private String nome;
+
+    @Column(name = "ultimo_id", nullable = false)
+    private Integer ultimoId = 0;
+
+    @Column(name = "atualizado_em")
+    private LocalDateTime atualizadoEm;
+
+    // Getters and Setters
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    public Integer getUltimoId() {
+        return ultimoId;
+    }
+
+    public void setUltimoId(Integer ultimoId) {
+        this.ultimoId = ultimoId;
+    }
+
+    public LocalDateTime getAtualizadoEm() {
+        return atualizadoEm;
+    }
+
+    public void setAtualizadoEm(LocalDateTime atualizadoEm) {
+        this.atualizadoEm = atualizadoEm;
+    }
+}
@@ -1,6 +1,7 @@
 package io.acordi.msbiblioteca.domain.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.Set;
@@ -9,8 +10,10 @@ import java.util.Set;
 @Table(name = "emprestimo")
 public class Emprestimo {
 
+    // Sequência (emulada por tabela no MySQL) em vez de IDENTITY para permitir inserts em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "emprestimo_seq")
+    @SequenceGenerator(name = "emprestimo_seq", sequenceName = "emprestimo_seq", allocationSize = 50)
     private Integer id;
 
     @ManyToOne
@@ -30,6 +33,17 @@ public class Emprestimo {
     @Column(name = "data_devolucao")
     private LocalDate dataDevolucao;
 
+    // Marcado pela apuração de multas (MultaService) depois que a devolução é processada
+    @ColumnDefault("false")
+    @Column(name = "multa_apurada", nullable = false, insertable = false, updatable = false)
+    private Boolean multaApurada = false;
+
+    // Incrementada a cada alteração; base do ETag e da detecção de atualizações concorrentes
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+
     @OneToMany(mappedBy = "emprestimo")
     private Set<Multa> multas = new HashSet<>();
 
@@ -82,6 +96,14 @@ public class Emprestimo {
         this.dataDevolucao = dataDevolucao;
     }
 
+    public Boolean getMultaApurada() {
+        return multaApurada;
+    }
+
+    public void setMultaApurada(Boolean multaApurada) {
+        this.multaApurada = multaApurada;
+    }
+
     public Set<Multa> getMultas() {
         return multas;
     }
@@ -89,5 +111,12 @@ public class Emprestimo {
     public void setMultas(Set<Multa> multas) {
         this.multas = multas;
     }
-}
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+}
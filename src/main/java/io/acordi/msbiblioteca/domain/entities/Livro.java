@@ -3,11 +3,14 @@ package io.acordi.msbiblioteca.domain.entities;
 import io.acordi.msbiblioteca.config.StatusLivroConverter;
 import io.acordi.msbiblioteca.domain.types.StatusLivro;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "livro")
+// Fora do cache de segundo nível: status e versão mudam a cada empréstimo e devolução, muitas
+// vezes em outra instância, e o cache de cada instância não veria essas alterações
 public class Livro {
 
     @Id
@@ -20,10 +23,17 @@ public class Livro {
     @Column(name = "ano_publicacao")
     private Integer anoPublicacao;
 
+    // Nasce DISPONIVEL pelo padrão da coluna e é alterado apenas pelas transições condicionais de ReservaLoteRepository
     @Convert(converter = StatusLivroConverter.class)
-    @Column(name = "status", length = 20)
+    @Column(name = "status", length = 20, insertable = false, updatable = false)
     private StatusLivro status = StatusLivro.DISPONIVEL;
 
+    // Incrementada a cada alteração; base do ETag e da detecção de atualizações concorrentes
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+
     @ManyToMany
     @JoinTable(
             name = "livro_autor",
@@ -67,6 +77,14 @@ public class Livro {
         this.status = status;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
     public Set<Autor> getAutores() {
         return autores;
     }
@@ -1,6 +1,8 @@
 package io.acordi.msbiblioteca.domain.entities;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -18,6 +20,22 @@ public class Membro {
     @Column(nullable = false, length = 150, unique = true)
     private String email;
 
+    // Contador desnormalizado mantido apenas por atualizações condicionais em MembroRepository
+    @ColumnDefault("0")
+    @Column(name = "emprestimos_ativos", nullable = false, insertable = false, updatable = false)
+    private Integer emprestimosAtivos = 0;
+
+    // Saldo desnormalizado das multas, mantido por atualizações incrementais (ver MultaService)
+    @ColumnDefault("0")
+    @Column(name = "total_multas", precision = 10, scale = 2, nullable = false, insertable = false, updatable = false)
+    private BigDecimal totalMultas = BigDecimal.ZERO;
+
+    // Incrementada a cada alteração; base do ETag e da detecção de atualizações concorrentes
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "versao", nullable = false)
+    private Long versao;
+
     @OneToMany(mappedBy = "membro")
     private Set<Emprestimo> emprestimos = new HashSet<>();
 
@@ -49,6 +67,22 @@ public class Membro {
         this.email = email;
     }
 
+    public Integer getEmprestimosAtivos() {
+        return emprestimosAtivos;
+    }
+
+    public void setEmprestimosAtivos(Integer emprestimosAtivos) {
+        this.emprestimosAtivos = emprestimosAtivos;
+    }
+
+    public BigDecimal getTotalMultas() {
+        return totalMultas;
+    }
+
+    public void setTotalMultas(BigDecimal totalMultas) {
+        this.totalMultas = totalMultas;
+    }
+
     public Set<Emprestimo> getEmprestimos() {
         return emprestimos;
     }
@@ -64,5 +98,12 @@ public class Membro {
     public void setMultas(Set<Multa> multas) {
         this.multas = multas;
     }
-}
 
+    public Long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+}
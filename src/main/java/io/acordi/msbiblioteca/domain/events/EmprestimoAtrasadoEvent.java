@@ -0,0 +1,10 @@
+package io.acordi.msbiblioteca.domain.events;
+
+import java.time.LocalDate;
+
+/**
+ * Publicado uma vez, na virada do dia, para cada empréstimo ativo cuja data de
+ * devolução prevista acabou de passar.
+ */
+public record EmprestimoAtrasadoEvent(Integer emprestimoId, LocalDate dataDevolucaoPrevista) {
+}
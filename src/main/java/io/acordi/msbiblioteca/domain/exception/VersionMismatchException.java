@@ -0,0 +1,12 @@
+package io.acordi.msbiblioteca.domain.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// A versão informada pelo cliente (If-Match) não é mais a versão atual do registro
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class VersionMismatchException extends RuntimeException {
+    public VersionMismatchException(String message) {
+        super(message);
+    }
+}
@@ -1,14 +1,30 @@
 package io.acordi.msbiblioteca.domain.services;
 
+import io.acordi.msbiblioteca.config.CacheConfig;
+import io.acordi.msbiblioteca.config.Paginacao;
+import io.acordi.msbiblioteca.config.RoteamentoDataSource;
+import io.acordi.msbiblioteca.entrypoint.dto.PaginaDTO;
 import io.acordi.msbiblioteca.entrypoint.dto.AutorDTO;
 import io.acordi.msbiblioteca.domain.exception.ResourceNotFoundException;
+import io.acordi.msbiblioteca.domain.exception.VersionMismatchException;
 import io.acordi.msbiblioteca.domain.entities.Autor;
+import io.acordi.msbiblioteca.infra.index.BuscaIndex;
+import io.acordi.msbiblioteca.infra.index.RankingIndex;
 import io.acordi.msbiblioteca.infra.repository.AutorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,66 +33,127 @@ public class AutorService {
     @Autowired
     private AutorRepository autorRepository;
 
-    public List<AutorDTO> findAll() {
-        return autorRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Autowired
+    private Paginacao paginacao;
+
+    @Autowired
+    private BuscaIndex buscaIndex;
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Transactional(readOnly = true)
+    public PaginaDTO<AutorDTO> findAll(Integer cursor, Integer tamanho) {
+        int tamanhoPagina = paginacao.resolverTamanho(tamanho);
+        List<Autor> resultado = autorRepository.findByIdGreaterThanOrderByIdAsc(
+                paginacao.resolverCursor(cursor), paginacao.janela(tamanhoPagina));
+        return paginacao.montar(resultado, tamanhoPagina, Autor::getId, this::convertToDto);
     }
 
+    @Cacheable(CacheConfig.AUTORES)
+    @Transactional(readOnly = true, label = RoteamentoDataSource.LEITURA_NO_PRIMARIO)
     public AutorDTO findById(Integer id) {
         Autor autor = autorRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Autor não encontrado com id: " + id));
         return convertToDto(autor);
     }
 
-    public List<AutorDTO> findByNome(String nome) {
-        return autorRepository.findByNomeContainingIgnoreCase(nome).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    // ETag de findById, calculado só com a versão do autor
+    @Transactional(readOnly = true, label = RoteamentoDataSource.LEITURA_NO_PRIMARIO)
+    public String etag(Integer id) {
+        return autorRepository.findVersaoById(id)
+                .map(String::valueOf)
+                .orElseThrow(() -> new ResourceNotFoundException("Autor não encontrado com id: " + id));
     }
 
-    public List<AutorDTO> findAutoresComMaisLivros() {
-        return autorRepository.findAutoresComMaisLivros().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    // Resultados ordenados por relevância pelo índice de busca
+    @Transactional(readOnly = true)
+    public List<AutorDTO> findByNome(String nome, Integer tamanho) {
+        return findByIds(buscaIndex.buscarAutores(nome, paginacao.resolverTamanho(tamanho)));
     }
 
-    public List<AutorDTO> findAutoresComMaisEmprestimos() {
-        return autorRepository.findAutoresComMaisEmprestimos().stream()
+    // Rankings mantidos em memória pelo RankingIndex
+    @Transactional(readOnly = true)
+    public List<AutorDTO> findAutoresComMaisLivros(Integer tamanho) {
+        return findByIds(rankingIndex.autoresComMaisLivros(paginacao.resolverTamanho(tamanho)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<AutorDTO> findAutoresComMaisEmprestimos(Integer tamanho) {
+        return findByIds(rankingIndex.autoresComMaisEmprestimos(paginacao.resolverTamanho(tamanho)));
+    }
+
+    // Carrega os autores mantendo a ordem dos IDs
+    private List<AutorDTO> findByIds(List<Integer> ids) {
+        Map<Integer, Autor> autores = autorRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Autor::getId, Function.identity()));
+        return ids.stream()
+                .map(autores::get)
+                .filter(Objects::nonNull)
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<AutorDTO> findAutoresByAnoPublicacao(Integer ano) {
         return autorRepository.findAutoresByAnoPublicacao(ano).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    // Carrega os primeiros autores no cache de findById
+    public int aquecerCache(int quantidade) {
+        Cache cache = cacheManager.getCache(CacheConfig.AUTORES);
+        List<Autor> autores = autorRepository.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, quantidade));
+        autores.forEach(autor -> cache.put(autor.getId(), convertToDto(autor)));
+        return autores.size();
+    }
+
     @Transactional
     public AutorDTO save(AutorDTO autorDTO) {
         Autor autor = convertToEntity(autorDTO);
         Autor savedAutor = autorRepository.save(autor);
+        buscaIndex.registrarAutor(savedAutor.getId(), savedAutor.getNome());
         return convertToDto(savedAutor);
     }
 
     @Transactional
-    public AutorDTO update(Integer id, AutorDTO autorDTO) {
+    // Os livros em cache trazem o nome dos autores
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.AUTORES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.LIVROS, allEntries = true)
+    })
+    public AutorDTO update(Integer id, AutorDTO autorDTO, String etagEsperado) {
         Autor existingAutor = autorRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Autor não encontrado com id: " + id));
+        // A partir daqui, o @Version recusa a gravação se outra transação alterar o autor
+        if (etagEsperado != null && !etagEsperado.equals(String.valueOf(existingAutor.getVersao()))) {
+            throw new VersionMismatchException("O autor foi alterado desde a leitura (id: " + id + ")");
+        }
 
         existingAutor.setNome(autorDTO.getNome());
 
         Autor updatedAutor = autorRepository.save(existingAutor);
+        buscaIndex.registrarAutor(id, updatedAutor.getNome());
         return convertToDto(updatedAutor);
     }
 
     @Transactional
+    // Os livros em cache trazem o nome dos autores
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.AUTORES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.LIVROS, allEntries = true)
+    })
     public void delete(Integer id) {
         Autor autor = autorRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Autor não encontrado com id: " + id));
 
         autorRepository.delete(autor);
+        buscaIndex.removerAutor(id);
+        rankingIndex.removerAutor(id);
     }
 
     // Métodos de conversão entre Entity e DTO
@@ -89,9 +166,7 @@ public class AutorService {
 
     private Autor convertToEntity(AutorDTO autorDTO) {
         Autor autor = new Autor();
-        if (autorDTO.getId() != null) {
-            autor.setId(autorDTO.getId());
-        }
+        // O ID do corpo é ignorado: com @Version, o save trataria uma entidade com ID e sem versão como nova
         autor.setNome(autorDTO.getNome());
         return autor;
     }
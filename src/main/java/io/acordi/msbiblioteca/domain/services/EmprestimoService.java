@@ -1,140 +1,220 @@
 package io.acordi.msbiblioteca.domain.services;
 
+import io.acordi.msbiblioteca.config.Exportador;
+import io.acordi.msbiblioteca.config.Paginacao;
+import io.acordi.msbiblioteca.entrypoint.dto.PaginaDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.DevolucaoDTO;
 import io.acordi.msbiblioteca.entrypoint.dto.EmprestimoDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.ItemResultadoLoteDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.ResultadoLoteDTO;
 import io.acordi.msbiblioteca.domain.exception.ResourceNotFoundException;
 import io.acordi.msbiblioteca.domain.entities.Emprestimo;
-import io.acordi.msbiblioteca.domain.entities.Livro;
-import io.acordi.msbiblioteca.domain.entities.Membro;
 import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
 import io.acordi.msbiblioteca.infra.repository.LivroRepository;
 import io.acordi.msbiblioteca.infra.repository.MembroRepository;
-import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.infra.repository.MultaRepository;
+import io.acordi.msbiblioteca.infra.repository.ReservaLoteRepository;
+import io.acordi.msbiblioteca.domain.types.FormatoArquivo;
+import io.acordi.msbiblioteca.infra.index.DisponibilidadeIndex;
+import io.acordi.msbiblioteca.infra.index.RankingIndex;
+import io.acordi.msbiblioteca.infra.index.VencimentoIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class EmprestimoService {
 
+    private static final int LIMITE_EMPRESTIMOS_ATIVOS = 3;
+
+    private static final List<String> COLUNAS_EXPORTACAO = List.of("id", "membroId", "nomeMembro", "livroId",
+            "tituloLivro", "dataEmprestimo", "dataDevolucaoPrevista", "dataDevolucao");
+
+    // Quantidade máxima de IDs por cláusula IN ao carregar listas vindas dos índices
+    private static final int TAMANHO_CONSULTA_IDS = 1_000;
+
     @Autowired
     private EmprestimoRepository emprestimoRepository;
 
+    @Autowired
+    private Paginacao paginacao;
+
     @Autowired
     private LivroRepository livroRepository;
 
     @Autowired
     private MembroRepository membroRepository;
 
-    public List<EmprestimoDTO> findAll() {
-        return emprestimoRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Autowired
+    private DisponibilidadeIndex disponibilidadeIndex;
+
+    @Autowired
+    private ReservaLoteRepository reservaLoteRepository;
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Autowired
+    private VencimentoIndex vencimentoIndex;
+
+    @Autowired
+    private MultaRepository multaRepository;
+
+    @Autowired
+    private MultaService multaService;
+
+    @Autowired
+    private Exportador exportador;
+
+    @Value("${biblioteca.lote.tamanho-maximo:500}")
+    private int tamanhoMaximoLote;
+
+    @Transactional(readOnly = true)
+    public PaginaDTO<EmprestimoDTO> findAll(Integer cursor, Integer tamanho) {
+        int tamanhoPagina = paginacao.resolverTamanho(tamanho);
+        List<EmprestimoDTO> resultado = emprestimoRepository.findByIdGreaterThan(
+                paginacao.resolverCursor(cursor), paginacao.janela(tamanhoPagina));
+        return paginacao.montar(resultado, tamanhoPagina, EmprestimoDTO::getId, Function.identity());
     }
 
+    @Transactional(readOnly = true)
     public EmprestimoDTO findById(Integer id) {
         Emprestimo emprestimo = emprestimoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Empréstimo não encontrado com id: " + id));
         return convertToDto(emprestimo);
     }
 
+    @Transactional(readOnly = true)
     public List<EmprestimoDTO> findByMembro(Integer membroId) {
-        return emprestimoRepository.findByMembroId(membroId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return emprestimoRepository.findByMembroId(membroId);
     }
 
+    @Transactional(readOnly = true)
     public List<EmprestimoDTO> findByLivro(Integer livroId) {
-        return emprestimoRepository.findByLivroId(livroId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return emprestimoRepository.findByLivroId(livroId);
     }
 
+    @Transactional(readOnly = true)
     public List<EmprestimoDTO> findEmprestimosAtivos() {
-        return emprestimoRepository.findEmprestimosAtivos().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return emprestimoRepository.findEmprestimosAtivos();
     }
 
+    // Atrasados vêm do índice de vencimentos, do vencimento mais antigo para o mais recente
+    @Transactional(readOnly = true)
     public List<EmprestimoDTO> findEmprestimosAtrasados() {
-        LocalDate hoje = LocalDate.now();
-        return emprestimoRepository.findEmprestimosAtrasados(hoje).stream()
-                .map(this::convertToDto)
+        List<Integer> ids = vencimentoIndex.findAtrasados(LocalDate.now());
+        Map<Integer, EmprestimoDTO> emprestimos = new HashMap<>();
+        for (int inicio = 0; inicio < ids.size(); inicio += TAMANHO_CONSULTA_IDS) {
+            emprestimoRepository.findAtivosByIdIn(ids.subList(inicio, Math.min(inicio + TAMANHO_CONSULTA_IDS, ids.size())))
+                    .forEach(emprestimo -> emprestimos.put(emprestimo.getId(), emprestimo));
+        }
+        return ids.stream()
+                .map(emprestimos::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public Integer countEmprestimosAtrasados() {
+        return vencimentoIndex.countAtrasados(LocalDate.now());
+    }
+
+    @Transactional(readOnly = true)
     public List<EmprestimoDTO> findByDataDevolucaoBetween(LocalDate dataInicio, LocalDate dataFim) {
-        return emprestimoRepository.findByDataDevolucaoBetween(dataInicio, dataFim).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return emprestimoRepository.findByDataDevolucaoBetween(dataInicio, dataFim);
     }
 
+    @Transactional(readOnly = true)
     public List<EmprestimoDTO> findEmprestimosAtivosByMembro(Integer membroId) {
-        return emprestimoRepository.findEmprestimosAtivosByMembro(membroId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return emprestimoRepository.findEmprestimosAtivosByMembro(membroId);
     }
 
+    @Transactional(readOnly = true)
     public Integer countEmprestimosAtivosByMembro(Integer membroId) {
         return emprestimoRepository.countEmprestimosAtivosByMembro(membroId);
     }
 
+    @Transactional(readOnly = true)
     public List<EmprestimoDTO> findEmprestimosHistoricoByLivro(Integer livroId) {
-        return emprestimoRepository.findEmprestimosHistoricoByLivro(livroId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return emprestimoRepository.findEmprestimosHistoricoByLivro(livroId);
+    }
+
+    // A transação mantém o cursor aberto enquanto as linhas são escritas na saída
+    @Transactional(readOnly = true)
+    public long exportar(FormatoArquivo formato, Integer membroId, LocalDate dataInicio, LocalDate dataFim,
+                         OutputStream saida) throws IOException {
+        LocalDate inicio = dataInicio != null ? dataInicio : Exportador.PRIMEIRA_DATA;
+        LocalDate fim = dataFim != null ? dataFim : Exportador.ULTIMA_DATA;
+        try (Stream<EmprestimoDTO> emprestimos = membroId != null
+                ? emprestimoRepository.streamParaExportacaoByMembroId(membroId, inicio, fim)
+                : emprestimoRepository.streamParaExportacao(inicio, fim)) {
+            return exportador.exportar(emprestimos, EmprestimoDTO.class, formato, COLUNAS_EXPORTACAO,
+                    emprestimo -> Arrays.asList(emprestimo.getId(), emprestimo.getMembroId(), emprestimo.getNomeMembro(),
+                            emprestimo.getLivroId(), emprestimo.getTituloLivro(), emprestimo.getDataEmprestimo(),
+                            emprestimo.getDataDevolucaoPrevista(), emprestimo.getDataDevolucao()),
+                    saida);
+        }
     }
 
     @Transactional
     public EmprestimoDTO save(EmprestimoDTO emprestimoDTO) {
-        // Verificar se o membro existe
-        Membro membro = membroRepository.findById(emprestimoDTO.getMembroId())
-                .orElseThrow(() -> new ResourceNotFoundException("Membro não encontrado com id: " + emprestimoDTO.getMembroId()));
+        Integer livroId = emprestimoDTO.getLivroId();
+        Integer membroId = emprestimoDTO.getMembroId();
 
-        // Verificar se o livro existe
-        Livro livro = livroRepository.findById(emprestimoDTO.getLivroId())
-                .orElseThrow(() -> new ResourceNotFoundException("Livro não encontrado com id: " + emprestimoDTO.getLivroId()));
-
-        // Verificar se o livro está disponível para empréstimo
-        if (livro.getStatus() == StatusLivro.EMPRESTADO) {
-            throw new IllegalStateException("Livro já está emprestado");
-        }
-
-        // Verificar limite de empréstimos do membro
-        Integer emprestimosAtivos = emprestimoRepository.countEmprestimosAtivosByMembro(membro.getId());
-        if (emprestimosAtivos >= 3) {
-            throw new IllegalStateException("Membro já atingiu o limite de 3 empréstimos ativos");
-        }
+        // Reservas por atualização condicional: o UPDATE só altera a linha se a condição
+        // ainda for verdadeira, então entre requisições concorrentes (em qualquer instância)
+        // apenas uma consegue emprestar o livro ou ocupar a última vaga do membro.
+        // A ordem livro -> membro é a mesma em todas as operações para evitar deadlocks.
+        reservarLivro(livroId);
+        reservarVagaMembro(membroId);
 
         Emprestimo emprestimo = convertToEntity(emprestimoDTO);
-        emprestimo.setMembro(membro);
-        emprestimo.setLivro(livro);
-
-        // O trigger do banco atualizará o status do livro para emprestado
+        emprestimo.setMembro(membroRepository.getReferenceById(membroId));
+        emprestimo.setLivro(livroRepository.getReferenceById(livroId));
 
         Emprestimo savedEmprestimo = emprestimoRepository.save(emprestimo);
-        return convertToDto(savedEmprestimo);
+        livroEmprestado(livroId);
+        rankingIndex.registrarEmprestimo(livroId, membroId);
+        vencimentoIndex.registrar(savedEmprestimo.getId(), savedEmprestimo.getDataDevolucaoPrevista());
+        return emprestimoRepository.findDtoById(savedEmprestimo.getId()).orElseThrow();
     }
 
     @Transactional
     public EmprestimoDTO registrarDevolucao(Integer id, LocalDate dataDevolucao) {
-        Emprestimo emprestimo = emprestimoRepository.findById(id)
+        EmprestimoDTO emprestimoDTO = emprestimoRepository.findDtoById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Empréstimo não encontrado com id: " + id));
 
-        if (emprestimo.getDataDevolucao() != null) {
+        LocalDate data = dataDevolucao != null ? dataDevolucao : LocalDate.now();
+        if (emprestimoRepository.registrarDevolucao(id, data) == 0) {
             throw new IllegalStateException("Este empréstimo já foi devolvido");
         }
 
-        emprestimo.setDataDevolucao(dataDevolucao != null ? dataDevolucao : LocalDate.now());
-
-        // O trigger do banco atualizará o status do livro para disponível
-        // O trigger do banco também criará uma multa, se necessário
+        // A multa, se houver, é gerada depois pela apuração em lote (MultaService.apurarMultas)
+        liberarReservas(emprestimoDTO.getLivroId(), emprestimoDTO.getMembroId());
+        vencimentoIndex.remover(id);
 
-        Emprestimo updatedEmprestimo = emprestimoRepository.save(emprestimo);
-        return convertToDto(updatedEmprestimo);
+        emprestimoDTO.setDataDevolucao(data);
+        return emprestimoDTO;
     }
 
     @Transactional
@@ -142,12 +222,33 @@ public class EmprestimoService {
         Emprestimo existingEmprestimo = emprestimoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Empréstimo não encontrado com id: " + id));
 
+        boolean estavaAtivo = existingEmprestimo.getDataDevolucao() == null;
+        boolean ficaAtivo = emprestimoDTO.getDataDevolucao() == null;
+        Integer livroId = existingEmprestimo.getLivro().getId();
+        Integer membroId = existingEmprestimo.getMembro().getId();
+
+        if (estavaAtivo && !ficaAtivo) {
+            liberarReservas(livroId, membroId);
+        } else if (!estavaAtivo && ficaAtivo) {
+            reservarLivro(livroId);
+            reservarVagaMembro(membroId);
+            livroEmprestado(livroId);
+            // Reaberto: a multa da devolução anterior é desfeita e a próxima devolução volta a ser apurada
+            multaService.removerMultasDoEmprestimo(id);
+            emprestimoRepository.marcarMultaApurada(List.of(id), false);
+        }
+
         // Não permitir alterar o livro ou membro de um empréstimo existente
         existingEmprestimo.setDataEmprestimo(emprestimoDTO.getDataEmprestimo());
         existingEmprestimo.setDataDevolucaoPrevista(emprestimoDTO.getDataDevolucaoPrevista());
         existingEmprestimo.setDataDevolucao(emprestimoDTO.getDataDevolucao());
 
         Emprestimo updatedEmprestimo = emprestimoRepository.save(existingEmprestimo);
+        if (ficaAtivo) {
+            vencimentoIndex.registrar(id, updatedEmprestimo.getDataDevolucaoPrevista());
+        } else {
+            vencimentoIndex.remover(id);
+        }
         return convertToDto(updatedEmprestimo);
     }
 
@@ -156,16 +257,203 @@ public class EmprestimoService {
         Emprestimo emprestimo = emprestimoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Empréstimo não encontrado com id: " + id));
 
-        // Verificar se há multas associadas
-        if (!emprestimo.getMultas().isEmpty()) {
+        // Verificar se há multas associadas (sem carregar a coleção)
+        if (multaRepository.existsByEmprestimoId(id)) {
             throw new IllegalStateException("Não é possível excluir um empréstimo com multas associadas");
         }
 
         emprestimoRepository.delete(emprestimo);
+        rankingIndex.removerEmprestimo(emprestimo.getLivro().getId(), emprestimo.getMembro().getId());
+        vencimentoIndex.remover(id);
+        if (emprestimo.getDataDevolucao() == null) {
+            liberarReservas(emprestimo.getLivro().getId(), emprestimo.getMembro().getId());
+        }
+    }
+
+    @Transactional
+    public ResultadoLoteDTO saveLote(List<EmprestimoDTO> emprestimos) {
+        validarTamanhoLote(emprestimos.size());
+        String[] erros = new String[emprestimos.size()];
+
+        Set<Integer> livrosExistentes = findIdsExistentes(emprestimos, EmprestimoDTO::getLivroId, livroRepository::findIdsByIdIn);
+        Set<Integer> membrosExistentes = findIdsExistentes(emprestimos, EmprestimoDTO::getMembroId, membroRepository::findIdsByIdIn);
+        for (int i = 0; i < emprestimos.size(); i++) {
+            EmprestimoDTO emprestimoDTO = emprestimos.get(i);
+            if (emprestimoDTO.getMembroId() == null || emprestimoDTO.getLivroId() == null
+                    || emprestimoDTO.getDataEmprestimo() == null || emprestimoDTO.getDataDevolucaoPrevista() == null) {
+                erros[i] = "Membro, livro, data de empréstimo e data de devolução prevista são obrigatórios";
+            } else if (!livrosExistentes.contains(emprestimoDTO.getLivroId())) {
+                erros[i] = "Livro não encontrado com id: " + emprestimoDTO.getLivroId();
+            } else if (!membrosExistentes.contains(emprestimoDTO.getMembroId())) {
+                erros[i] = "Membro não encontrado com id: " + emprestimoDTO.getMembroId();
+            }
+        }
+
+        // Mesmas reservas condicionais de save(), em lotes JDBC. Os itens são ordenados por ID
+        // para que lotes concorrentes travem as linhas na mesma ordem.
+        List<Integer> pendentes = semErro(erros, Comparator.comparing(i -> emprestimos.get(i).getLivroId()));
+        int[] livrosReservados = reservaLoteRepository.reservarLivros(mapear(pendentes, i -> emprestimos.get(i).getLivroId()));
+        for (int j = 0; j < pendentes.size(); j++) {
+            if (livrosReservados[j] == 0) {
+                erros[pendentes.get(j)] = "Livro já está emprestado";
+            }
+        }
+
+        pendentes = semErro(erros, Comparator.comparing(i -> emprestimos.get(i).getMembroId()));
+        int[] vagasReservadas = reservaLoteRepository.reservarVagasMembros(
+                mapear(pendentes, i -> emprestimos.get(i).getMembroId()), LIMITE_EMPRESTIMOS_ATIVOS);
+        List<Integer> livrosSemVaga = new ArrayList<>();
+        for (int j = 0; j < pendentes.size(); j++) {
+            if (vagasReservadas[j] == 0) {
+                erros[pendentes.get(j)] = "Membro já atingiu o limite de " + LIMITE_EMPRESTIMOS_ATIVOS + " empréstimos ativos";
+                livrosSemVaga.add(emprestimos.get(pendentes.get(j)).getLivroId());
+            }
+        }
+        Collections.sort(livrosSemVaga);
+        reservaLoteRepository.liberarLivros(livrosSemVaga);
+
+        Map<Integer, Emprestimo> novos = new LinkedHashMap<>();
+        for (Integer i : semErro(erros, Comparator.naturalOrder())) {
+            EmprestimoDTO emprestimoDTO = emprestimos.get(i);
+            Emprestimo emprestimo = convertToEntity(emprestimoDTO);
+            emprestimo.setMembro(membroRepository.getReferenceById(emprestimoDTO.getMembroId()));
+            emprestimo.setLivro(livroRepository.getReferenceById(emprestimoDTO.getLivroId()));
+            novos.put(i, emprestimo);
+        }
+        // IDs gerados pela sequência: o Hibernate agrupa os INSERTs no flush
+        emprestimoRepository.saveAll(novos.values());
+        emprestimoRepository.flush();
+
+        ResultadoLoteDTO resultado = new ResultadoLoteDTO();
+        for (int i = 0; i < emprestimos.size(); i++) {
+            Emprestimo emprestimo = novos.get(i);
+            if (emprestimo != null) {
+                livroEmprestado(emprestimo.getLivro().getId());
+                rankingIndex.registrarEmprestimo(emprestimo.getLivro().getId(), emprestimo.getMembro().getId());
+                vencimentoIndex.registrar(emprestimo.getId(), emprestimo.getDataDevolucaoPrevista());
+                resultado.adicionar(new ItemResultadoLoteDTO(i, emprestimo.getId(), true, null));
+            } else {
+                resultado.adicionar(new ItemResultadoLoteDTO(i, null, false, erros[i]));
+            }
+        }
+        return resultado;
+    }
+
+    @Transactional
+    public ResultadoLoteDTO registrarDevolucoesLote(List<DevolucaoDTO> devolucoes) {
+        validarTamanhoLote(devolucoes.size());
+        String[] erros = new String[devolucoes.size()];
+
+        Map<Integer, EmprestimoDTO> emprestimos = new HashMap<>();
+        List<Integer> ids = devolucoes.stream()
+                .map(DevolucaoDTO::getEmprestimoId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (!ids.isEmpty()) {
+            emprestimoRepository.findDtosByIdIn(ids).forEach(emprestimo -> emprestimos.put(emprestimo.getId(), emprestimo));
+        }
+        for (int i = 0; i < devolucoes.size(); i++) {
+            Integer emprestimoId = devolucoes.get(i).getEmprestimoId();
+            if (emprestimoId == null) {
+                erros[i] = "O ID do empréstimo é obrigatório";
+            } else if (!emprestimos.containsKey(emprestimoId)) {
+                erros[i] = "Empréstimo não encontrado com id: " + emprestimoId;
+            }
+        }
+
+        LocalDate hoje = LocalDate.now();
+        List<Integer> pendentes = semErro(erros, Comparator.comparing(i -> devolucoes.get(i).getEmprestimoId()));
+        int[] devolvidos = reservaLoteRepository.registrarDevolucoes(
+                mapear(pendentes, i -> devolucoes.get(i).getEmprestimoId()),
+                mapear(pendentes, i -> devolucoes.get(i).getDataDevolucao() != null ? devolucoes.get(i).getDataDevolucao() : hoje));
+        for (int j = 0; j < pendentes.size(); j++) {
+            if (devolvidos[j] == 0) {
+                erros[pendentes.get(j)] = "Este empréstimo já foi devolvido";
+            }
+        }
+
+        // As multas, se houver, são geradas depois pela apuração em lote (MultaService.apurarMultas)
+        List<Integer> devolvidosComSucesso = semErro(erros, Comparator.naturalOrder());
+        List<Integer> livroIds = mapear(devolvidosComSucesso, i -> emprestimos.get(devolucoes.get(i).getEmprestimoId()).getLivroId());
+        List<Integer> membroIds = mapear(devolvidosComSucesso, i -> emprestimos.get(devolucoes.get(i).getEmprestimoId()).getMembroId());
+        Collections.sort(livroIds);
+        Collections.sort(membroIds);
+        reservaLoteRepository.liberarLivros(livroIds);
+        reservaLoteRepository.liberarVagasMembros(membroIds);
+        livroIds.forEach(this::livroDevolvido);
+        mapear(devolvidosComSucesso, i -> devolucoes.get(i).getEmprestimoId()).forEach(vencimentoIndex::remover);
+
+        ResultadoLoteDTO resultado = new ResultadoLoteDTO();
+        for (int i = 0; i < devolucoes.size(); i++) {
+            resultado.adicionar(new ItemResultadoLoteDTO(i, devolucoes.get(i).getEmprestimoId(), erros[i] == null, erros[i]));
+        }
+        return resultado;
+    }
+
+    private void validarTamanhoLote(int tamanho) {
+        if (tamanho > tamanhoMaximoLote) {
+            throw new IllegalStateException("O lote deve ter no máximo " + tamanhoMaximoLote + " itens");
+        }
+    }
+
+    private Set<Integer> findIdsExistentes(List<EmprestimoDTO> emprestimos, Function<EmprestimoDTO, Integer> id,
+                                           Function<Collection<Integer>, List<Integer>> consulta) {
+        Set<Integer> ids = emprestimos.stream().map(id).filter(Objects::nonNull).collect(Collectors.toSet());
+        return ids.isEmpty() ? ids : new HashSet<>(consulta.apply(ids));
+    }
+
+    private static List<Integer> semErro(String[] erros, Comparator<Integer> ordem) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < erros.length; i++) {
+            if (erros[i] == null) {
+                indices.add(i);
+            }
+        }
+        indices.sort(ordem);
+        return indices;
+    }
+
+    private static <T> List<T> mapear(List<Integer> indices, Function<Integer, T> valor) {
+        return indices.stream().map(valor).collect(Collectors.toList());
+    }
+
+    private void reservarLivro(Integer livroId) {
+        if (reservaLoteRepository.reservarLivros(List.of(livroId))[0] == 0) {
+            if (!livroRepository.existsById(livroId)) {
+                throw new ResourceNotFoundException("Livro não encontrado com id: " + livroId);
+            }
+            throw new IllegalStateException("Livro já está emprestado");
+        }
+    }
+
+    private void reservarVagaMembro(Integer membroId) {
+        if (membroRepository.reservarEmprestimo(membroId, LIMITE_EMPRESTIMOS_ATIVOS) == 0) {
+            if (!membroRepository.existsById(membroId)) {
+                throw new ResourceNotFoundException("Membro não encontrado com id: " + membroId);
+            }
+            throw new IllegalStateException("Membro já atingiu o limite de " + LIMITE_EMPRESTIMOS_ATIVOS + " empréstimos ativos");
+        }
+    }
+
+    private void liberarReservas(Integer livroId, Integer membroId) {
+        reservaLoteRepository.liberarLivros(List.of(livroId));
+        membroRepository.liberarEmprestimo(membroId);
+        livroDevolvido(livroId);
+    }
+
+    // O status do livro mudou: atualiza o índice de disponibilidade. O cache de livros não guarda o
+    // status (ver LivroService.findById)
+    private void livroEmprestado(Integer livroId) {
+        disponibilidadeIndex.registrarEmprestimo(livroId);
+    }
+
+    private void livroDevolvido(Integer livroId) {
+        disponibilidadeIndex.registrarDevolucao(livroId);
     }
 
     // Métodos de conversão entre Entity e DTO
-    private EmprestimoDTO convertToDto(Emprestimo emprestimo) {
+    EmprestimoDTO convertToDto(Emprestimo emprestimo) {
         EmprestimoDTO emprestimoDTO = new EmprestimoDTO();
         emprestimoDTO.setId(emprestimo.getId());
         emprestimoDTO.setMembroId(emprestimo.getMembro().getId());
@@ -183,10 +471,7 @@ public class EmprestimoService {
 
     private Emprestimo convertToEntity(EmprestimoDTO emprestimoDTO) {
         Emprestimo emprestimo = new Emprestimo();
-
-        if (emprestimoDTO.getId() != null) {
-            emprestimo.setId(emprestimoDTO.getId());
-        }
+        // O ID do corpo é ignorado: com @Version, o save trataria uma entidade com ID e sem versão como nova
 
         emprestimo.setDataEmprestimo(emprestimoDTO.getDataEmprestimo());
         emprestimo.setDataDevolucaoPrevista(emprestimoDTO.getDataDevolucaoPrevista());
@@ -1,89 +1,230 @@
 package io.acordi.msbiblioteca.domain.services;
 
+import io.acordi.msbiblioteca.config.CacheConfig;
+import io.acordi.msbiblioteca.config.Importador;
+import io.acordi.msbiblioteca.config.LeituraNoPrimarioTemplate;
+import io.acordi.msbiblioteca.config.Paginacao;
+import io.acordi.msbiblioteca.config.RoteamentoDataSource;
+import io.acordi.msbiblioteca.entrypoint.dto.AutorDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.ImportacaoLivroDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.PaginaDTO;
 import io.acordi.msbiblioteca.entrypoint.dto.LivroDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.ResultadoImportacaoDTO;
 import io.acordi.msbiblioteca.domain.exception.ResourceNotFoundException;
+import io.acordi.msbiblioteca.domain.exception.VersionMismatchException;
 import io.acordi.msbiblioteca.domain.entities.Autor;
 import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.types.FormatoArquivo;
 import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.infra.index.BuscaIndex;
+import io.acordi.msbiblioteca.infra.index.DisponibilidadeIndex;
+import io.acordi.msbiblioteca.infra.index.LivroAutor;
+import io.acordi.msbiblioteca.infra.index.RankingIndex;
+import io.acordi.msbiblioteca.infra.index.TextoIndexado;
 import io.acordi.msbiblioteca.infra.repository.AutorRepository;
+import io.acordi.msbiblioteca.infra.repository.CatalogoLoteRepository;
 import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.VersaoLivro;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
 public class LivroService {
 
+    private static final Logger log = LoggerFactory.getLogger(LivroService.class);
+
+    // No CSV de importação, os autores de um livro vêm na mesma coluna separados por ';'
+    private static final String SEPARADOR_AUTORES = ";";
+
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private static final int TAMANHO_CARGA_AUTORES = 10_000;
+
     @Autowired
     private LivroRepository livroRepository;
 
+    @Autowired
+    private Paginacao paginacao;
+
     @Autowired
     private AutorRepository autorRepository;
 
     @Autowired
-    private AutorService autorService;
+    private DisponibilidadeIndex disponibilidadeIndex;
 
-    public List<LivroDTO> findAll() {
-        return livroRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Autowired
+    private BuscaIndex buscaIndex;
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private Importador importador;
+
+    @Autowired
+    private CatalogoLoteRepository catalogoLoteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${biblioteca.importacao.tamanho-lote:5000}")
+    private int tamanhoLoteImportacao;
+
+    @Value("${biblioteca.importacao.limite-erros:1000}")
+    private int limiteErrosImportacao;
+
+    @Transactional(readOnly = true)
+    public PaginaDTO<LivroDTO> findAll(Integer cursor, Integer tamanho) {
+        int tamanhoPagina = paginacao.resolverTamanho(tamanho);
+        List<Integer> ids = livroRepository.findIdsByIdGreaterThan(
+                paginacao.resolverCursor(cursor), paginacao.janela(tamanhoPagina));
+        return paginacao.montarPorIds(ids, tamanhoPagina, this::findByIds);
     }
 
+    // O cache guarda só os dados do catálogo, e o status vem do índice de disponibilidade: no acerto
+    // do cache, a consulta não vai ao banco, por isso fica fora de transação. Os empréstimos e
+    // devoluções desta instância chegam ao índice no commit; os de outras instâncias, só na
+    // ressincronização (biblioteca.indices.ressincronizacao-ms). O empréstimo não depende deste
+    // status: a reserva do livro é uma atualização condicional no banco
     public LivroDTO findById(Integer id) {
-        Livro livro = livroRepository.findById(id)
+        Cache cache = cacheManager.getCache(CacheConfig.LIVROS);
+        LivroDTO catalogo = cache.get(id, LivroDTO.class);
+        if (catalogo == null) {
+            catalogo = findByIds(List.of(id)).stream()
+                    .findFirst()
+                    .map(LivroService::semStatus)
+                    .orElseThrow(() -> new ResourceNotFoundException("Livro não encontrado com id: " + id));
+            cache.put(id, catalogo);
+        }
+        // Fora do índice, o livro foi excluído ou é mais novo que a última reconstrução
+        StatusLivro status = disponibilidadeIndex.findStatus(id)
+                .or(() -> livroRepository.findStatusById(id))
                 .orElseThrow(() -> new ResourceNotFoundException("Livro não encontrado com id: " + id));
-        return convertToDto(livro);
+        // Cópia, para não alterar o valor guardado no cache
+        LivroDTO livroDTO = new LivroDTO();
+        livroDTO.setId(catalogo.getId());
+        livroDTO.setTitulo(catalogo.getTitulo());
+        livroDTO.setAnoPublicacao(catalogo.getAnoPublicacao());
+        livroDTO.setStatus(status);
+        livroDTO.setAutores(new HashSet<>(catalogo.getAutores()));
+        return livroDTO;
     }
 
-    public List<LivroDTO> findByTitulo(String titulo) {
-        return livroRepository.findByTituloContainingIgnoreCase(titulo).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    // ETag de findById, calculado só com as versões do livro e dos autores
+    @Transactional(readOnly = true, label = RoteamentoDataSource.LEITURA_NO_PRIMARIO)
+    public String etag(Integer id) {
+        return livroRepository.findVersaoById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Livro não encontrado com id: " + id))
+                .etag();
     }
 
-    public List<LivroDTO> findByStatus(StatusLivro status) {
-        return livroRepository.findByStatus(status).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    // Resultados ordenados por relevância pelo índice de busca
+    @Transactional(readOnly = true)
+    public List<LivroDTO> findByTitulo(String titulo, Integer tamanho) {
+        return findByIds(buscaIndex.buscarLivros(titulo, paginacao.resolverTamanho(tamanho)));
     }
 
+    @Transactional(readOnly = true)
+    public PaginaDTO<LivroDTO> findByStatus(StatusLivro status, Integer cursor, Integer tamanho) {
+        int tamanhoPagina = paginacao.resolverTamanho(tamanho);
+        int inicio = paginacao.resolverCursor(cursor);
+        List<Integer> ids = status == StatusLivro.EMPRESTADO
+                ? disponibilidadeIndex.findEmprestados(inicio, tamanhoPagina + 1)
+                : disponibilidadeIndex.findDisponiveis(inicio, tamanhoPagina + 1);
+        return paginacao.montarPorIds(ids, tamanhoPagina, this::findByIds);
+    }
+
+    @Transactional(readOnly = true)
     public List<LivroDTO> findByAnoPublicacao(Integer anoPublicacao) {
         return livroRepository.findByAnoPublicacao(anoPublicacao).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<LivroDTO> findByAutorId(Integer autorId) {
         return livroRepository.findByAutorId(autorId).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
-    public List<LivroDTO> findLivrosMaisEmprestados() {
-        return livroRepository.findLivrosMaisEmprestados().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    // Ranking mantido em memória pelo RankingIndex
+    @Transactional(readOnly = true)
+    public List<LivroDTO> findLivrosMaisEmprestados(Integer tamanho) {
+        return findByIds(rankingIndex.livrosMaisEmprestados(paginacao.resolverTamanho(tamanho)));
     }
 
-    public List<LivroDTO> findLivrosDisponiveis() {
-        return livroRepository.findLivrosDisponiveis().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public PaginaDTO<LivroDTO> findLivrosDisponiveis(Integer cursor, Integer tamanho) {
+        return findByStatus(StatusLivro.DISPONIVEL, cursor, tamanho);
     }
 
+    @Transactional(readOnly = true)
     public List<LivroDTO> findByAnoPublicacaoBetween(Integer anoInicio, Integer anoFim) {
         return livroRepository.findByAnoPublicacaoBetween(anoInicio, anoFim).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
-    public List<LivroDTO> findRandomLivros(Integer limit) {
-        return livroRepository.findRandomLivros(limit).stream()
+    // Sorteio feito sobre os IDs em memória do índice de disponibilidade
+    @Transactional(readOnly = true)
+    public List<LivroDTO> findRandomLivros(Integer limit, boolean apenasDisponiveis) {
+        return findByIds(disponibilidadeIndex.amostrar(paginacao.resolverTamanho(limit), apenasDisponiveis));
+    }
+
+    // Carrega os primeiros livros no cache de findById
+    public int aquecerCache(int quantidade) {
+        Cache cache = cacheManager.getCache(CacheConfig.LIVROS);
+        List<LivroDTO> livros = findByIds(livroRepository.findIdsByIdGreaterThan(0, PageRequest.of(0, quantidade)));
+        livros.forEach(livro -> cache.put(livro.getId(), semStatus(livro)));
+        return livros.size();
+    }
+
+    private static LivroDTO semStatus(LivroDTO livroDTO) {
+        livroDTO.setStatus(null);
+        return livroDTO;
+    }
+
+    // Carrega os livros com seus autores em uma única consulta, mantendo a ordem dos IDs
+    private List<LivroDTO> findByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Livro> livros = livroRepository.findComAutoresByIdIn(ids).stream()
+                .collect(Collectors.toMap(Livro::getId, Function.identity()));
+        return ids.stream()
+                .map(livros::get)
+                .filter(Objects::nonNull)
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -92,17 +233,27 @@ public class LivroService {
     public LivroDTO save(LivroDTO livroDTO) {
         Livro livro = convertToEntity(livroDTO);
         Livro savedLivro = livroRepository.save(livro);
+        disponibilidadeIndex.registrarLivro(savedLivro.getId());
+        buscaIndex.registrarLivro(savedLivro.getId(), savedLivro.getTitulo());
+        rankingIndex.registrarLivro(savedLivro.getId(), autorIds(savedLivro));
         return convertToDto(savedLivro);
     }
 
     @Transactional
-    public LivroDTO update(Integer id, LivroDTO livroDTO) {
+    @CacheEvict(cacheNames = CacheConfig.LIVROS, key = "#id")
+    public LivroDTO update(Integer id, LivroDTO livroDTO, String etagEsperado) {
         Livro existingLivro = livroRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Livro não encontrado com id: " + id));
+        // A partir daqui, o @Version recusa a gravação se outra transação alterar o livro
+        if (etagEsperado != null && !etagEsperado.equals(livroRepository.findVersaoById(id)
+                .map(VersaoLivro::etag)
+                .orElse(null))) {
+            throw new VersionMismatchException("O livro foi alterado desde a leitura (id: " + id + ")");
+        }
 
         existingLivro.setTitulo(livroDTO.getTitulo());
         existingLivro.setAnoPublicacao(livroDTO.getAnoPublicacao());
-        existingLivro.setStatus(livroDTO.getStatus());
+        // O status não é alterado aqui: ele acompanha os empréstimos (ver EmprestimoService)
 
         // Atualizar autores se forem fornecidos
         if (livroDTO.getAutores() != null && !livroDTO.getAutores().isEmpty()) {
@@ -116,19 +267,177 @@ public class LivroService {
         }
 
         Livro updatedLivro = livroRepository.save(existingLivro);
+        buscaIndex.registrarLivro(id, updatedLivro.getTitulo());
+        rankingIndex.registrarLivro(id, autorIds(updatedLivro));
         return convertToDto(updatedLivro);
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.LIVROS, key = "#id")
     public void delete(Integer id) {
         Livro livro = livroRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Livro não encontrado com id: " + id));
 
         livroRepository.delete(livro);
+        disponibilidadeIndex.removerLivro(id);
+        buscaIndex.removerLivro(id);
+        rankingIndex.removerLivro(id);
+    }
+
+    /**
+     * Importa livros de um arquivo NDJSON ou CSV (colunas titulo, anoPublicacao e autores),
+     * lido à medida que chega. Os autores são informados pelo nome e resolvidos por um mapa
+     * nome → ID carregado no início, sem diferenciar maiúsculas nem espaços extras; os que não
+     * existem são criados. Cada lote de linhas é gravado em uma transação própria, com inserts
+     * em lote JDBC, de modo que uma falha no banco perde apenas o lote corrente. Linhas
+     * inválidas são relatadas com o número da linha e não interrompem a importação.
+     */
+    public ResultadoImportacaoDTO importar(InputStream entrada, FormatoArquivo formato) throws IOException {
+        // No primário: lido de uma réplica atrasada, o mapa não teria autores recém-criados, e eles seriam duplicados
+        Map<String, Integer> autoresPorNome = new LeituraNoPrimarioTemplate(transactionManager)
+                .execute(status -> carregarAutoresPorNome());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ResultadoImportacaoDTO resultado = new ResultadoImportacaoDTO();
+        long inicio = System.nanoTime();
+
+        importador.importar(entrada, formato, ImportacaoLivroDTO.class, LivroService::converterLinhaCsv,
+                tamanhoLoteImportacao, lote -> {
+                    List<Importador.Linha<ImportacaoLivroDTO>> validas = new ArrayList<>();
+                    for (Importador.Linha<ImportacaoLivroDTO> linha : lote) {
+                        String erro = linha.erro() != null ? linha.erro() : validarImportacao(linha.valor());
+                        if (erro != null) {
+                            resultado.registrarFalha(linha.numero(), erro, limiteErrosImportacao);
+                        } else {
+                            validas.add(linha);
+                        }
+                    }
+                    try {
+                        // Os autores criados só entram no mapa depois do commit do lote
+                        Map<String, Integer> criados = transactionTemplate.execute(
+                                status -> importarLote(validas, autoresPorNome));
+                        autoresPorNome.putAll(criados);
+                        resultado.registrarImportados(validas.size());
+                        resultado.registrarAutoresCriados(criados.size());
+                    } catch (DataAccessException e) {
+                        String mensagem = "Lote não gravado: " + e.getMostSpecificCause().getMessage();
+                        validas.forEach(linha -> resultado.registrarFalha(linha.numero(), mensagem, limiteErrosImportacao));
+                    }
+                    log.info("Importação do catálogo: {} linhas lidas, {} livros importados, {} falhas",
+                            resultado.getTotal(), resultado.getImportados(), resultado.getFalhas());
+                });
+
+        log.info("Importação do catálogo concluída em {} ms: {} livros e {} autores criados, {} falhas",
+                Math.round((System.nanoTime() - inicio) / 1e6), resultado.getImportados(),
+                resultado.getAutoresCriados(), resultado.getFalhas());
+        return resultado;
+    }
+
+    // Grava um lote de linhas válidas e retorna os autores criados (chave do nome → ID)
+    private Map<String, Integer> importarLote(List<Importador.Linha<ImportacaoLivroDTO>> linhas,
+                                              Map<String, Integer> autoresPorNome) {
+        Map<String, String> nomesNovos = new LinkedHashMap<>();
+        for (Importador.Linha<ImportacaoLivroDTO> linha : linhas) {
+            for (String nome : linha.valor().getAutores()) {
+                String chave = chaveAutor(nome);
+                if (!autoresPorNome.containsKey(chave)) {
+                    nomesNovos.putIfAbsent(chave, nome.trim());
+                }
+            }
+        }
+        List<String> nomes = new ArrayList<>(nomesNovos.values());
+        List<Integer> idsAutores = catalogoLoteRepository.inserirAutores(nomes);
+        Map<String, Integer> criados = new HashMap<>();
+        List<String> chaves = new ArrayList<>(nomesNovos.keySet());
+        for (int i = 0; i < chaves.size(); i++) {
+            criados.put(chaves.get(i), idsAutores.get(i));
+            buscaIndex.registrarAutor(idsAutores.get(i), nomes.get(i));
+        }
+
+        List<ImportacaoLivroDTO> livros = linhas.stream().map(Importador.Linha::valor).toList();
+        List<Integer> idsLivros = catalogoLoteRepository.inserirLivros(livros);
+        List<LivroAutor> vinculos = new ArrayList<>();
+        for (int i = 0; i < livros.size(); i++) {
+            Integer livroId = idsLivros.get(i);
+            Set<Integer> autorIds = new LinkedHashSet<>();
+            for (String nome : livros.get(i).getAutores()) {
+                String chave = chaveAutor(nome);
+                autorIds.add(criados.containsKey(chave) ? criados.get(chave) : autoresPorNome.get(chave));
+            }
+            autorIds.forEach(autorId -> vinculos.add(new LivroAutor(livroId, autorId)));
+
+            disponibilidadeIndex.registrarLivro(livroId);
+            buscaIndex.registrarLivro(livroId, livros.get(i).getTitulo());
+            rankingIndex.registrarLivro(livroId, autorIds);
+        }
+        catalogoLoteRepository.vincularAutores(vinculos);
+        return criados;
+    }
+
+    private Map<String, Integer> carregarAutoresPorNome() {
+        Map<String, Integer> autores = new HashMap<>();
+        List<TextoIndexado> lote = autorRepository.findNomesByIdGreaterThan(0, PageRequest.of(0, TAMANHO_CARGA_AUTORES));
+        while (!lote.isEmpty()) {
+            // Com nomes repetidos no banco, vale o autor mais antigo
+            lote.forEach(autor -> autores.putIfAbsent(chaveAutor(autor.texto()), autor.id()));
+            lote = autorRepository.findNomesByIdGreaterThan(lote.get(lote.size() - 1).id(),
+                    PageRequest.of(0, TAMANHO_CARGA_AUTORES));
+        }
+        return autores;
+    }
+
+    private static String chaveAutor(String nome) {
+        return ESPACOS.matcher(nome.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    // Mesmas regras de LivroDTO e AutorDTO; descarta nomes de autor vazios e retorna a mensagem de erro ou null
+    private static String validarImportacao(ImportacaoLivroDTO livro) {
+        if (livro == null) {
+            return "Linha sem dados do livro";
+        }
+        if (livro.getTitulo() == null || livro.getTitulo().isBlank()) {
+            return "O título do livro é obrigatório";
+        }
+        if (livro.getTitulo().length() > 200) {
+            return "O título do livro deve ter no máximo 200 caracteres";
+        }
+        if (livro.getAnoPublicacao() != null && livro.getAnoPublicacao() < 0) {
+            return "O ano de publicação deve ser maior ou igual a 0";
+        }
+        if (livro.getAutores() == null) {
+            livro.setAutores(new ArrayList<>());
+        }
+        livro.getAutores().removeIf(nome -> nome == null || nome.isBlank());
+        for (String nome : livro.getAutores()) {
+            if (nome.trim().length() > 100) {
+                return "O nome do autor deve ter no máximo 100 caracteres";
+            }
+        }
+        return null;
+    }
+
+    private static ImportacaoLivroDTO converterLinhaCsv(Map<String, String> registro) {
+        String ano = registro.get("anoPublicacao");
+        Integer anoPublicacao;
+        try {
+            anoPublicacao = ano == null || ano.isBlank() ? null : Integer.valueOf(ano.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ano de publicação inválido: " + ano);
+        }
+        String autores = registro.get("autores");
+        List<String> nomes = autores == null || autores.isBlank()
+                ? new ArrayList<>()
+                : new ArrayList<>(List.of(autores.split(SEPARADOR_AUTORES)));
+        return new ImportacaoLivroDTO(registro.get("titulo"), anoPublicacao, nomes);
+    }
+
+    private static Set<Integer> autorIds(Livro livro) {
+        return livro.getAutores() != null
+                ? livro.getAutores().stream().map(Autor::getId).collect(Collectors.toSet())
+                : new HashSet<>();
     }
 
     // Métodos de conversão entre Entity e DTO
-    private LivroDTO convertToDto(Livro livro) {
+    LivroDTO convertToDto(Livro livro) {
         LivroDTO livroDTO = new LivroDTO();
         livroDTO.setId(livro.getId());
         livroDTO.setTitulo(livro.getTitulo());
@@ -138,23 +447,27 @@ public class LivroService {
         // Converter autores
         if (livro.getAutores() != null) {
             livroDTO.setAutores(livro.getAutores().stream()
-                    .map(autor -> autorService.findById(autor.getId()))
+                    .map(this::convertAutorToDto)
                     .collect(Collectors.toSet()));
         }
 
         return livroDTO;
     }
 
+    private AutorDTO convertAutorToDto(Autor autor) {
+        AutorDTO autorDTO = new AutorDTO();
+        autorDTO.setId(autor.getId());
+        autorDTO.setNome(autor.getNome());
+        return autorDTO;
+    }
+
     private Livro convertToEntity(LivroDTO livroDTO) {
         Livro livro = new Livro();
-
-        if (livroDTO.getId() != null) {
-            livro.setId(livroDTO.getId());
-        }
+        // O ID do corpo é ignorado: com @Version, o save trataria uma entidade com ID e sem versão como nova
+        // O status também: o livro nasce DISPONIVEL e só muda pelos empréstimos e devoluções
 
         livro.setTitulo(livroDTO.getTitulo());
         livro.setAnoPublicacao(livroDTO.getAnoPublicacao());
-        livro.setStatus(livroDTO.getStatus());
 
         // Converter autores
         if (livroDTO.getAutores() != null) {
@@ -1,14 +1,23 @@
 package io.acordi.msbiblioteca.domain.services;
 
+import io.acordi.msbiblioteca.config.Paginacao;
+import io.acordi.msbiblioteca.config.RoteamentoDataSource;
+import io.acordi.msbiblioteca.entrypoint.dto.PaginaDTO;
 import io.acordi.msbiblioteca.entrypoint.dto.MembroDTO;
 import io.acordi.msbiblioteca.domain.exception.ResourceNotFoundException;
+import io.acordi.msbiblioteca.domain.exception.VersionMismatchException;
 import io.acordi.msbiblioteca.domain.entities.Membro;
+import io.acordi.msbiblioteca.infra.index.BuscaIndex;
+import io.acordi.msbiblioteca.infra.index.RankingIndex;
 import io.acordi.msbiblioteca.infra.repository.MembroRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,48 +26,81 @@ public class MembroService {
     @Autowired
     private MembroRepository membroRepository;
 
-    public List<MembroDTO> findAll() {
-        return membroRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Autowired
+    private Paginacao paginacao;
+
+    @Autowired
+    private BuscaIndex buscaIndex;
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Transactional(readOnly = true)
+    public PaginaDTO<MembroDTO> findAll(Integer cursor, Integer tamanho) {
+        int tamanhoPagina = paginacao.resolverTamanho(tamanho);
+        List<Membro> resultado = membroRepository.findByIdGreaterThanOrderByIdAsc(
+                paginacao.resolverCursor(cursor), paginacao.janela(tamanhoPagina));
+        return paginacao.montar(resultado, tamanhoPagina, Membro::getId, this::convertToDto);
     }
 
+    @Transactional(readOnly = true, label = RoteamentoDataSource.LEITURA_NO_PRIMARIO)
     public MembroDTO findById(Integer id) {
         Membro membro = membroRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Membro não encontrado com id: " + id));
         return convertToDto(membro);
     }
 
-    public List<MembroDTO> findByNome(String nome) {
-        return membroRepository.findByNomeContainingIgnoreCase(nome).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    // ETag de findById, calculado só com a versão do membro
+    @Transactional(readOnly = true, label = RoteamentoDataSource.LEITURA_NO_PRIMARIO)
+    public String etag(Integer id) {
+        return membroRepository.findVersaoById(id)
+                .map(String::valueOf)
+                .orElseThrow(() -> new ResourceNotFoundException("Membro não encontrado com id: " + id));
     }
 
+    // Resultados ordenados por relevância pelo índice de busca
+    @Transactional(readOnly = true)
+    public List<MembroDTO> findByNome(String nome, Integer tamanho) {
+        return findByIds(buscaIndex.buscarMembros(nome, paginacao.resolverTamanho(tamanho)));
+    }
+
+    @Transactional(readOnly = true)
     public MembroDTO findByEmail(String email) {
         Membro membro = membroRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("Membro não encontrado com email: " + email));
         return convertToDto(membro);
     }
 
-    public List<MembroDTO> findMembrosComMaisEmprestimos() {
-        return membroRepository.findMembrosComMaisEmprestimos().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    // Rankings mantidos em memória pelo RankingIndex
+    @Transactional(readOnly = true)
+    public List<MembroDTO> findMembrosComMaisEmprestimos(Integer tamanho) {
+        return findByIds(rankingIndex.membrosComMaisEmprestimos(paginacao.resolverTamanho(tamanho)));
     }
 
-    public List<MembroDTO> findMembrosComMaisMultas() {
-        return membroRepository.findMembrosComMaisMultas().stream()
+    @Transactional(readOnly = true)
+    public List<MembroDTO> findMembrosComMaisMultas(Integer tamanho) {
+        return findByIds(rankingIndex.membrosComMaisMultas(paginacao.resolverTamanho(tamanho)));
+    }
+
+    // Carrega os membros mantendo a ordem dos IDs
+    private List<MembroDTO> findByIds(List<Integer> ids) {
+        Map<Integer, Membro> membros = membroRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Membro::getId, Function.identity()));
+        return ids.stream()
+                .map(membros::get)
+                .filter(Objects::nonNull)
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<MembroDTO> findMembrosComEmprestimosCompletos() {
         return membroRepository.findMembrosComEmprestimosCompletos().stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<MembroDTO> findMembrosComEmprestimosAtivos(Integer quantidade) {
         return membroRepository.findMembrosComEmprestimosAtivos(quantidade).stream()
                 .map(this::convertToDto)
@@ -69,18 +111,24 @@ public class MembroService {
     public MembroDTO save(MembroDTO membroDTO) {
         Membro membro = convertToEntity(membroDTO);
         Membro savedMembro = membroRepository.save(membro);
+        buscaIndex.registrarMembro(savedMembro.getId(), savedMembro.getNome());
         return convertToDto(savedMembro);
     }
 
     @Transactional
-    public MembroDTO update(Integer id, MembroDTO membroDTO) {
+    public MembroDTO update(Integer id, MembroDTO membroDTO, String etagEsperado) {
         Membro existingMembro = membroRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Membro não encontrado com id: " + id));
+        // A partir daqui, o @Version recusa a gravação se outra transação alterar o membro
+        if (etagEsperado != null && !etagEsperado.equals(String.valueOf(existingMembro.getVersao()))) {
+            throw new VersionMismatchException("O membro foi alterado desde a leitura (id: " + id + ")");
+        }
 
         existingMembro.setNome(membroDTO.getNome());
         existingMembro.setEmail(membroDTO.getEmail());
 
         Membro updatedMembro = membroRepository.save(existingMembro);
+        buscaIndex.registrarMembro(id, updatedMembro.getNome());
         return convertToDto(updatedMembro);
     }
 
@@ -90,6 +138,8 @@ public class MembroService {
                 .orElseThrow(() -> new ResourceNotFoundException("Membro não encontrado com id: " + id));
 
         membroRepository.delete(membro);
+        buscaIndex.removerMembro(id);
+        rankingIndex.removerMembro(id);
     }
 
     // Métodos de conversão entre Entity e DTO
@@ -103,10 +153,7 @@ public class MembroService {
 
     private Membro convertToEntity(MembroDTO membroDTO) {
         Membro membro = new Membro();
-
-        if (membroDTO.getId() != null) {
-            membro.setId(membroDTO.getId());
-        }
+        // O ID do corpo é ignorado: com @Version, o save trataria uma entidade com ID e sem versão como nova
 
         membro.setNome(membroDTO.getNome());
         membro.setEmail(membroDTO.getEmail());
@@ -1,78 +1,166 @@
 package io.acordi.msbiblioteca.domain.services;
 
+import io.acordi.msbiblioteca.config.Exportador;
+import io.acordi.msbiblioteca.config.Paginacao;
+import io.acordi.msbiblioteca.entrypoint.dto.PaginaDTO;
 import io.acordi.msbiblioteca.entrypoint.dto.MultaDTO;
 import io.acordi.msbiblioteca.domain.exception.ResourceNotFoundException;
 import io.acordi.msbiblioteca.domain.entities.Emprestimo;
 import io.acordi.msbiblioteca.domain.entities.Membro;
 import io.acordi.msbiblioteca.domain.entities.Multa;
+import io.acordi.msbiblioteca.domain.entities.Checkpoint;
+import io.acordi.msbiblioteca.domain.types.FormatoArquivo;
+import io.acordi.msbiblioteca.infra.index.AposCommit;
+import io.acordi.msbiblioteca.infra.index.Pontuacao;
+import io.acordi.msbiblioteca.infra.index.RankingIndex;
+import io.acordi.msbiblioteca.infra.repository.CheckpointRepository;
+import io.acordi.msbiblioteca.infra.repository.DevolucaoPendente;
 import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
 import io.acordi.msbiblioteca.infra.repository.MembroRepository;
+import io.acordi.msbiblioteca.infra.repository.MultaLoteRepository;
 import io.acordi.msbiblioteca.infra.repository.MultaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class MultaService {
 
+    private static final Logger log = LoggerFactory.getLogger(MultaService.class);
+
+    private static final String CHECKPOINT_APURACAO = "apuracao-multas";
+
+    private static final List<String> COLUNAS_EXPORTACAO = List.of("id", "emprestimoId", "membroId", "nomeMembro",
+            "tituloLivro", "valor", "dataGeracao");
+
     @Autowired
     private MultaRepository multaRepository;
 
+    @Autowired
+    private Paginacao paginacao;
+
     @Autowired
     private EmprestimoRepository emprestimoRepository;
 
     @Autowired
     private MembroRepository membroRepository;
 
-    public List<MultaDTO> findAll() {
-        return multaRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Autowired
+    private MultaLoteRepository multaLoteRepository;
+
+    @Autowired
+    private CheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Exportador exportador;
+
+    @Value("${biblioteca.multas.valor-por-dia:1.00}")
+    private BigDecimal valorPorDia;
+
+    @Value("${biblioteca.multas.carencia-dias:0}")
+    private int carenciaDias;
+
+    @Value("${biblioteca.multas.valor-maximo:100.00}")
+    private BigDecimal valorMaximo;
+
+    @Value("${biblioteca.multas.tamanho-lote:500}")
+    private int tamanhoLote;
+
+    @Transactional(readOnly = true)
+    public PaginaDTO<MultaDTO> findAll(Integer cursor, Integer tamanho) {
+        int tamanhoPagina = paginacao.resolverTamanho(tamanho);
+        List<MultaDTO> resultado = multaRepository.findByIdGreaterThan(
+                paginacao.resolverCursor(cursor), paginacao.janela(tamanhoPagina));
+        return paginacao.montar(resultado, tamanhoPagina, MultaDTO::getId, Function.identity());
     }
 
+    @Transactional(readOnly = true)
     public MultaDTO findById(Integer id) {
         Multa multa = multaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Multa não encontrada com id: " + id));
         return convertToDto(multa);
     }
 
+    @Transactional(readOnly = true)
     public List<MultaDTO> findByMembro(Integer membroId) {
-        return multaRepository.findByMembroId(membroId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return multaRepository.findByMembroId(membroId);
     }
 
+    @Transactional(readOnly = true)
     public List<MultaDTO> findByEmprestimo(Integer emprestimoId) {
-        return multaRepository.findByEmprestimoId(emprestimoId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return multaRepository.findByEmprestimoId(emprestimoId);
     }
 
+    // Saldo mantido na coluna membro.total_multas
+    @Transactional(readOnly = true)
     public BigDecimal getTotalMultasByMembro(Integer membroId) {
-        return multaRepository.sumValorByMembroId(membroId);
+        return membroRepository.findTotalMultasById(membroId)
+                .orElseThrow(() -> new ResourceNotFoundException("Membro não encontrado com id: " + membroId));
     }
 
+    @Transactional(readOnly = true)
     public List<MultaDTO> findByDataGeracaoBetween(LocalDateTime dataInicio, LocalDateTime dataFim) {
-        return multaRepository.findByDataGeracaoBetween(dataInicio, dataFim).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return multaRepository.findByDataGeracaoBetween(dataInicio, dataFim);
     }
 
+    @Transactional(readOnly = true)
     public List<MultaDTO> findByValorGreaterThan(BigDecimal valorMinimo) {
-        return multaRepository.findByValorGreaterThan(valorMinimo).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return multaRepository.findByValorGreaterThan(valorMinimo);
     }
 
+    @Transactional(readOnly = true)
     public List<MultaDTO> findAllOrderByValorDesc() {
-        return multaRepository.findAllOrderByValorDesc().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return multaRepository.findAllOrderByValorDesc();
+    }
+
+    // A transação mantém o cursor aberto enquanto as linhas são escritas na saída
+    @Transactional(readOnly = true)
+    public long exportar(FormatoArquivo formato, Integer membroId, LocalDate dataInicio, LocalDate dataFim,
+                         OutputStream saida) throws IOException {
+        LocalDateTime inicio = (dataInicio != null ? dataInicio : Exportador.PRIMEIRA_DATA).atStartOfDay();
+        LocalDateTime fim = dataFim != null ? dataFim.plusDays(1).atStartOfDay() : Exportador.ULTIMA_DATA.atStartOfDay();
+        try (Stream<MultaDTO> multas = membroId != null
+                ? multaRepository.streamParaExportacaoByMembroId(membroId, inicio, fim)
+                : multaRepository.streamParaExportacao(inicio, fim)) {
+            return exportador.exportar(multas, MultaDTO.class, formato, COLUNAS_EXPORTACAO,
+                    multa -> Arrays.asList(multa.getId(), multa.getEmprestimoId(), multa.getMembroId(), multa.getNomeMembro(),
+                            multa.getTituloLivro(), multa.getValor(), multa.getDataGeracao()),
+                    saida);
+        }
     }
 
     @Transactional
@@ -95,6 +183,7 @@ public class MultaService {
         }
 
         Multa savedMulta = multaRepository.save(multa);
+        ajustarSaldo(membro.getId(), null, savedMulta.getValor());
         return convertToDto(savedMulta);
     }
 
@@ -104,9 +193,11 @@ public class MultaService {
                 .orElseThrow(() -> new ResourceNotFoundException("Multa não encontrada com id: " + id));
 
         // Não permitir alterar o empréstimo ou membro de uma multa existente
+        BigDecimal valorAnterior = existingMulta.getValor();
         existingMulta.setValor(multaDTO.getValor());
 
         Multa updatedMulta = multaRepository.save(existingMulta);
+        ajustarSaldo(updatedMulta.getMembro().getId(), valorAnterior, updatedMulta.getValor());
         return convertToDto(updatedMulta);
     }
 
@@ -116,6 +207,175 @@ public class MultaService {
                 .orElseThrow(() -> new ResourceNotFoundException("Multa não encontrada com id: " + id));
 
         multaRepository.delete(multa);
+        ajustarSaldo(multa.getMembro().getId(), multa.getValor(), null);
+    }
+
+    /**
+     * Exclui as multas de um empréstimo reaberto, descontando-as do saldo do membro. A devolução
+     * seguinte é apurada de novo e gera a multa com a nova data.
+     */
+    @Transactional
+    public void removerMultasDoEmprestimo(Integer emprestimoId) {
+        for (Multa multa : multaRepository.findAllByEmprestimoId(emprestimoId)) {
+            multaRepository.delete(multa);
+            ajustarSaldo(multa.getMembro().getId(), multa.getValor(), null);
+        }
+    }
+
+    /**
+     * Gera as multas das devoluções ainda não apuradas, em lotes de até biblioteca.multas.tamanho-lote
+     * empréstimos. Cada lote é uma transação que grava as multas, marca os empréstimos como apurados
+     * e avança o checkpoint; se o processamento for interrompido, a próxima execução continua
+     * do último lote confirmado.
+     *
+     * @return quantidade de devoluções processadas
+     */
+    @Scheduled(initialDelayString = "${biblioteca.multas.intervalo-ms:60000}",
+            fixedDelayString = "${biblioteca.multas.intervalo-ms:60000}")
+    public int apurarMultas() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        // Em transação própria: dentro da do lote, a verificação da chave travaria a linha antes do
+        // SELECT ... FOR UPDATE, e duas instâncias poderiam se bloquear mutuamente
+        transactionTemplate.executeWithoutResult(status -> checkpointRepository.criarSeAusente(CHECKPOINT_APURACAO));
+        Timer duracaoLote = meterRegistry.timer("biblioteca.multas.apuracao.lote");
+        long inicio = System.nanoTime();
+        int total = 0;
+        int processados;
+        do {
+            processados = duracaoLote.record(() -> transactionTemplate.execute(status -> apurarLote()));
+            total += processados;
+        } while (processados > 0);
+
+        if (total > 0) {
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            log.info("Apuração de multas: {} devoluções processadas em {} ms ({} por segundo)",
+                    total, Math.round(segundos * 1000), Math.round(total / segundos));
+        }
+        return total;
+    }
+
+    // Valor da multa pelos dias de atraso, ou null se a devolução estiver dentro da carência
+    BigDecimal calcularValor(LocalDate dataDevolucaoPrevista, LocalDate dataDevolucao) {
+        long diasAtraso = ChronoUnit.DAYS.between(dataDevolucaoPrevista, dataDevolucao);
+        if (diasAtraso <= carenciaDias) {
+            return null;
+        }
+        return valorPorDia.multiply(BigDecimal.valueOf(diasAtraso)).min(valorMaximo);
+    }
+
+    private int apurarLote() {
+        // Trava o checkpoint: instâncias concorrentes processam os lotes uma de cada vez
+        Checkpoint checkpoint = checkpointRepository.findParaAtualizacao(CHECKPOINT_APURACAO)
+                .orElseThrow(() -> new IllegalStateException("Checkpoint não encontrado: " + CHECKPOINT_APURACAO));
+
+        List<DevolucaoPendente> pendentes = emprestimoRepository.findDevolucoesPendentesDeMulta(
+                checkpoint.getUltimoId(), PageRequest.of(0, tamanhoLote));
+        if (pendentes.isEmpty()) {
+            // Fim da passada; a próxima recomeça do início para incluir devoluções de empréstimos antigos
+            if (checkpoint.getUltimoId() != 0) {
+                checkpoint.setUltimoId(0);
+                checkpoint.setAtualizadoEm(LocalDateTime.now());
+            }
+            return 0;
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<MultaDTO> multas = new ArrayList<>();
+        for (DevolucaoPendente devolucao : pendentes) {
+            BigDecimal valor = calcularValor(devolucao.dataDevolucaoPrevista(), devolucao.dataDevolucao());
+            if (valor != null) {
+                MultaDTO multa = new MultaDTO();
+                multa.setEmprestimoId(devolucao.emprestimoId());
+                multa.setMembroId(devolucao.membroId());
+                multa.setValor(valor);
+                multa.setDataGeracao(agora);
+                multas.add(multa);
+            }
+        }
+        multaLoteRepository.inserir(multas);
+
+        // Saldos atualizados em ordem de ID de membro, a mesma em todas as instâncias
+        Map<Integer, BigDecimal> totaisPorMembro = new TreeMap<>();
+        multas.forEach(multa -> totaisPorMembro.merge(multa.getMembroId(), multa.getValor(), BigDecimal::add));
+        multaLoteRepository.acumularTotaisMembros(totaisPorMembro);
+        emprestimoRepository.marcarMultaApurada(
+                pendentes.stream().map(DevolucaoPendente::emprestimoId).collect(Collectors.toList()), true);
+
+        checkpoint.setUltimoId(pendentes.get(pendentes.size() - 1).emprestimoId());
+        checkpoint.setAtualizadoEm(agora);
+
+        rankingIndex.registrarMultas(totaisPorMembro.entrySet().stream()
+                .map(total -> new Pontuacao(total.getKey(), total.getValue()))
+                .collect(Collectors.toList()));
+
+        int processados = pendentes.size();
+        AposCommit.executar(() -> {
+            meterRegistry.counter("biblioteca.multas.emprestimos.processados").increment(processados);
+            meterRegistry.counter("biblioteca.multas.geradas").increment(multas.size());
+        });
+        return processados;
+    }
+
+    /**
+     * Compara o saldo de multas de cada membro com a soma das suas multas e corrige as
+     * divergências, percorrendo os membros em lotes.
+     *
+     * @return quantidade de saldos corrigidos
+     */
+    @Scheduled(cron = "${biblioteca.multas.reconciliacao-cron:0 30 3 * * *}")
+    public int reconciliarSaldos() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int corrigidos = 0;
+        LoteReconciliado lote = new LoteReconciliado(0, 0);
+        do {
+            Integer cursor = lote.ultimoId();
+            lote = transactionTemplate.execute(status -> reconciliarLote(cursor));
+            corrigidos += lote.corrigidos();
+        } while (lote.ultimoId() != null);
+        if (corrigidos > 0) {
+            meterRegistry.counter("biblioteca.multas.saldos.divergentes").increment(corrigidos);
+        }
+        log.info("Reconciliação de saldos de multas: {} saldos corrigidos", corrigidos);
+        return corrigidos;
+    }
+
+    private LoteReconciliado reconciliarLote(Integer cursor) {
+        List<Pontuacao> saldos = membroRepository.findTotaisMultasByIdGreaterThan(cursor, PageRequest.of(0, tamanhoLote));
+        if (saldos.isEmpty()) {
+            return new LoteReconciliado(null, 0);
+        }
+        Map<Integer, Long> somas = new HashMap<>();
+        multaRepository.findTotaisPorMembroByMembroIdIn(saldos.stream().map(Pontuacao::id).collect(Collectors.toList()))
+                .forEach(soma -> somas.put(soma.id(), soma.valor()));
+
+        int corrigidos = 0;
+        for (Pontuacao saldo : saldos) {
+            long soma = somas.getOrDefault(saldo.id(), 0L);
+            if (soma != saldo.valor()) {
+                BigDecimal esperado = BigDecimal.valueOf(saldo.valor(), 2);
+                BigDecimal correto = BigDecimal.valueOf(soma, 2);
+                if (membroRepository.corrigirTotalMultas(saldo.id(), esperado, correto) > 0) {
+                    log.warn("Saldo de multas do membro {} divergente: {} registrado, {} pelas multas",
+                            saldo.id(), esperado, correto);
+                    rankingIndex.alterarMulta(saldo.id(), esperado, correto);
+                    corrigidos++;
+                }
+            }
+        }
+        return new LoteReconciliado(saldos.get(saldos.size() - 1).id(), corrigidos);
+    }
+
+    private record LoteReconciliado(Integer ultimoId, int corrigidos) {
+    }
+
+    // Atualiza o saldo do membro e o ranking com a diferença entre os valores
+    private void ajustarSaldo(Integer membroId, BigDecimal valorAnterior, BigDecimal valorNovo) {
+        BigDecimal diferenca = (valorNovo != null ? valorNovo : BigDecimal.ZERO)
+                .subtract(valorAnterior != null ? valorAnterior : BigDecimal.ZERO);
+        if (diferenca.signum() != 0) {
+            membroRepository.acumularMultas(membroId, diferenca);
+            rankingIndex.alterarMulta(membroId, valorAnterior, valorNovo);
+        }
     }
 
     // Métodos de conversão entre Entity e DTO
@@ -136,10 +396,7 @@ public class MultaService {
 
     private Multa convertToEntity(MultaDTO multaDTO) {
         Multa multa = new Multa();
-
-        if (multaDTO.getId() != null) {
-            multa.setId(multaDTO.getId());
-        }
+        // O ID do corpo é ignorado: o save gravaria sobre a multa existente, e o saldo do membro receberia o valor inteiro
 
         multa.setValor(multaDTO.getValor());
         multa.setDataGeracao(multaDTO.getDataGeracao());
@@ -0,0 +1,72 @@
+package io.acordi.msbiblioteca.domain.services;
+
+import io.acordi.msbiblioteca.entrypoint.dto.EmprestimoDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.MembroDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.MultaDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.PainelMembroDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Monta a página do membro em uma única requisição: dados do membro, empréstimos ativos,
+ * multas e saldo de multas. As quatro consultas rodam em paralelo no executor de tarefas da
+ * aplicação (spring.task.execution), cada uma em sua própria transação somente leitura, e a
+ * resposta demora o tanto da consulta mais lenta, não a soma delas.
+ */
+@Service
+public class PainelMembroService {
+
+    @Autowired
+    private MembroService membroService;
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private MultaService multaService;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor executor;
+
+    public PainelMembroDTO painel(Integer membroId) {
+        CompletableFuture<MembroDTO> membro = consultar(() -> membroService.findById(membroId));
+        CompletableFuture<List<EmprestimoDTO>> ativos = consultar(() -> emprestimoService.findEmprestimosAtivosByMembro(membroId));
+        CompletableFuture<List<MultaDTO>> multas = consultar(() -> multaService.findByMembro(membroId));
+        CompletableFuture<BigDecimal> totalMultas = consultar(() -> multaService.getTotalMultasByMembro(membroId));
+
+        PainelMembroDTO painel = new PainelMembroDTO();
+        painel.setMembro(aguardar(membro));
+        painel.setEmprestimosAtivos(aguardar(ativos));
+        // Contado na mesma lista devolvida, em vez de uma quinta consulta
+        painel.setQuantidadeEmprestimosAtivos(painel.getEmprestimosAtivos().size());
+        painel.setMultas(aguardar(multas));
+        painel.setTotalMultas(aguardar(totalMultas));
+        return painel;
+    }
+
+    private <T> CompletableFuture<T> consultar(Supplier<T> consulta) {
+        return CompletableFuture.supplyAsync(consulta, executor);
+    }
+
+    // Devolve a exceção original (ex.: ResourceNotFoundException) para o GlobalExceptionHandler
+    private static <T> T aguardar(CompletableFuture<T> consulta) {
+        try {
+            return consulta.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package io.acordi.msbiblioteca.domain.types;
+
+public enum FormatoArquivo {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+
+    private final String extensao;
+
+    FormatoArquivo(String contentType, String extensao) {
+        this.contentType = contentType;
+        this.extensao = extensao;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtensao() {
+        return extensao;
+    }
+}
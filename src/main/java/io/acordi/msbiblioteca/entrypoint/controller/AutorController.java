@@ -1,15 +1,19 @@
 package io.acordi.msbiblioteca.entrypoint.controller;
 
 import io.acordi.msbiblioteca.entrypoint.dto.AutorDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.PaginaDTO;
 import io.acordi.msbiblioteca.domain.services.AutorService;
+import io.acordi.msbiblioteca.config.ListagemVersionada;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -22,40 +26,60 @@ public class AutorController {
     private AutorService autorService;
 
     @GetMapping
-    @Operation(summary = "Listar todos os autores", description = "Retorna uma lista com todos os autores cadastrados")
-    public ResponseEntity<List<AutorDTO>> findAll() {
-        return ResponseEntity.ok(autorService.findAll());
+    @ListagemVersionada
+    @Operation(summary = "Listar autores", description = "Retorna uma página de autores ordenada por ID. Use o proximoCursor da resposta para buscar a página seguinte")
+    public ResponseEntity<PaginaDTO<AutorDTO>> findAll(
+            @Parameter(description = "ID do último autor da página anterior (opcional)", required = false)
+            @RequestParam(required = false) Integer cursor,
+            @Parameter(description = "Quantidade de itens por página (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(autorService.findAll(cursor, tamanho));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Buscar autor por ID", description = "Retorna um autor específico pelo seu ID")
     public ResponseEntity<AutorDTO> findById(
             @Parameter(description = "ID do autor", required = true)
-            @PathVariable Integer id) {
+            @PathVariable Integer id,
+            WebRequest request) {
+        // Com If-None-Match igual à versão atual, responde 304 sem carregar o autor
+        if (request.checkNotModified(autorService.etag(id))) {
+            return null;
+        }
         return ResponseEntity.ok(autorService.findById(id));
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Buscar autores por nome", description = "Retorna uma lista de autores que contêm o nome especificado")
+    @ListagemVersionada
+    @Operation(summary = "Buscar autores por nome", description = "Retorna os autores cujo nome contém o texto informado, sem diferenciar acentos e maiúsculas, ordenados por relevância")
     public ResponseEntity<List<AutorDTO>> findByNome(
             @Parameter(description = "Nome (ou parte do nome) do autor", required = true)
-            @RequestParam String nome) {
-        return ResponseEntity.ok(autorService.findByNome(nome));
+            @RequestParam String nome,
+            @Parameter(description = "Quantidade máxima de resultados (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(autorService.findByNome(nome, tamanho));
     }
 
     @GetMapping("/mais-livros")
+    @ListagemVersionada
     @Operation(summary = "Listar autores com mais livros", description = "Retorna uma lista de autores ordenados pela quantidade de livros que possuem")
-    public ResponseEntity<List<AutorDTO>> findAutoresComMaisLivros() {
-        return ResponseEntity.ok(autorService.findAutoresComMaisLivros());
+    public ResponseEntity<List<AutorDTO>> findAutoresComMaisLivros(
+            @Parameter(description = "Quantidade de posições do ranking (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(autorService.findAutoresComMaisLivros(tamanho));
     }
 
     @GetMapping("/mais-emprestimos")
+    @ListagemVersionada
     @Operation(summary = "Listar autores com mais empréstimos", description = "Retorna uma lista de autores cujos livros foram mais emprestados")
-    public ResponseEntity<List<AutorDTO>> findAutoresComMaisEmprestimos() {
-        return ResponseEntity.ok(autorService.findAutoresComMaisEmprestimos());
+    public ResponseEntity<List<AutorDTO>> findAutoresComMaisEmprestimos(
+            @Parameter(description = "Quantidade de posições do ranking (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(autorService.findAutoresComMaisEmprestimos(tamanho));
     }
 
     @GetMapping("/por-ano-publicacao/{ano}")
+    @ListagemVersionada
     @Operation(summary = "Buscar autores por ano de publicação", description = "Retorna uma lista de autores que têm livros publicados no ano especificado")
     public ResponseEntity<List<AutorDTO>> findAutoresByAnoPublicacao(
             @Parameter(description = "Ano de publicação", required = true)
@@ -78,8 +102,11 @@ public class AutorController {
             @Parameter(description = "ID do autor", required = true)
             @PathVariable Integer id,
             @Parameter(description = "Novos dados do autor", required = true)
-            @Valid @RequestBody AutorDTO autorDTO) {
-        return ResponseEntity.ok(autorService.update(id, autorDTO));
+            @Valid @RequestBody AutorDTO autorDTO,
+            @Parameter(description = "ETag recebido na leitura; se o autor mudou desde então, responde 412", required = false)
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AutorDTO atualizado = autorService.update(id, autorDTO, Etags.etagEsperado(ifMatch));
+        return ResponseEntity.ok().eTag(autorService.etag(id)).body(atualizado);
     }
 
     @DeleteMapping("/{id}")
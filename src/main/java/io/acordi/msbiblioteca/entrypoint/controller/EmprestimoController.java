@@ -1,17 +1,25 @@
 package io.acordi.msbiblioteca.entrypoint.controller;
 
+import io.acordi.msbiblioteca.entrypoint.dto.DevolucaoDTO;
 import io.acordi.msbiblioteca.entrypoint.dto.EmprestimoDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.PaginaDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.ResultadoLoteDTO;
 import io.acordi.msbiblioteca.domain.services.EmprestimoService;
+import io.acordi.msbiblioteca.domain.types.FormatoArquivo;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -24,9 +32,13 @@ public class EmprestimoController {
     private EmprestimoService emprestimoService;
 
     @GetMapping
-    @Operation(summary = "Listar todos os empréstimos", description = "Retorna uma lista com todos os empréstimos cadastrados")
-    public ResponseEntity<List<EmprestimoDTO>> findAll() {
-        return ResponseEntity.ok(emprestimoService.findAll());
+    @Operation(summary = "Listar empréstimos", description = "Retorna uma página de empréstimos ordenada por ID. Use o proximoCursor da resposta para buscar a página seguinte")
+    public ResponseEntity<PaginaDTO<EmprestimoDTO>> findAll(
+            @Parameter(description = "ID do último empréstimo da página anterior (opcional)", required = false)
+            @RequestParam(required = false) Integer cursor,
+            @Parameter(description = "Quantidade de itens por página (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(emprestimoService.findAll(cursor, tamanho));
     }
 
     @GetMapping("/{id}")
@@ -83,6 +95,12 @@ public class EmprestimoController {
         return ResponseEntity.ok(emprestimoService.findEmprestimosAtivosByMembro(membroId));
     }
 
+    @GetMapping("/count/atrasados")
+    @Operation(summary = "Contar empréstimos atrasados", description = "Retorna a quantidade de empréstimos ativos com a data de devolução prevista vencida")
+    public ResponseEntity<Integer> countEmprestimosAtrasados() {
+        return ResponseEntity.ok(emprestimoService.countEmprestimosAtrasados());
+    }
+
     @GetMapping("/count/ativos/membro/{membroId}")
     @Operation(summary = "Contar empréstimos ativos por membro", description = "Retorna a quantidade de empréstimos ativos de um determinado membro")
     public ResponseEntity<Integer> countEmprestimosAtivosByMembro(
@@ -99,6 +117,24 @@ public class EmprestimoController {
         return ResponseEntity.ok(emprestimoService.findEmprestimosHistoricoByLivro(livroId));
     }
 
+    @GetMapping("/exportacao")
+    @Operation(summary = "Exportar empréstimos", description = "Transmite o histórico de empréstimos em NDJSON ou CSV à medida que é lido do banco, sem limite de tamanho. Filtros opcionais por membro e por data de empréstimo")
+    public void exportar(
+            @Parameter(description = "Formato da exportação (NDJSON ou CSV)", required = false)
+            @RequestParam(defaultValue = "NDJSON") FormatoArquivo formato,
+            @Parameter(description = "ID do membro (opcional)", required = false)
+            @RequestParam(required = false) Integer membroId,
+            @Parameter(description = "Data inicial de empréstimo (opcional)", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @Parameter(description = "Data final de empréstimo, inclusiva (opcional)", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(formato.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=emprestimos." + formato.getExtensao());
+        emprestimoService.exportar(formato, membroId, dataInicio, dataFim, response.getOutputStream());
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Registrar empréstimo", description = "Registra um novo empréstimo de livro")
@@ -108,6 +144,22 @@ public class EmprestimoController {
         return emprestimoService.save(emprestimoDTO);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Registrar empréstimos em lote", description = "Registra vários empréstimos em uma única transação e retorna o resultado de cada item")
+    public ResponseEntity<ResultadoLoteDTO> saveLote(
+            @Parameter(description = "Lista de empréstimos", required = true)
+            @RequestBody List<EmprestimoDTO> emprestimos) {
+        return ResponseEntity.ok(emprestimoService.saveLote(emprestimos));
+    }
+
+    @PutMapping("/devolucoes/batch")
+    @Operation(summary = "Registrar devoluções em lote", description = "Registra várias devoluções em uma única transação e retorna o resultado de cada item")
+    public ResponseEntity<ResultadoLoteDTO> registrarDevolucoesLote(
+            @Parameter(description = "Lista de devoluções", required = true)
+            @RequestBody List<DevolucaoDTO> devolucoes) {
+        return ResponseEntity.ok(emprestimoService.registrarDevolucoesLote(devolucoes));
+    }
+
     @PutMapping("/{id}/devolucao")
     @Operation(summary = "Registrar devolução", description = "Registra a devolução de um livro emprestado")
     public ResponseEntity<EmprestimoDTO> registrarDevolucao(
@@ -0,0 +1,25 @@
+package io.acordi.msbiblioteca.entrypoint.controller;
+
+/**
+ * Leitura do cabeçalho If-Match nas atualizações: o cliente envia o ETag recebido no GET.
+ */
+final class Etags {
+
+    private Etags() {
+    }
+
+    // ETag sem aspas e sem o prefixo de ETag fraco, ou null se o cabeçalho não exige versão
+    static String etagEsperado(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        if (etag.length() >= 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            etag = etag.substring(1, etag.length() - 1);
+        }
+        return etag;
+    }
+}
@@ -1,6 +1,8 @@
 package io.acordi.msbiblioteca.entrypoint.controller;
 
 import io.acordi.msbiblioteca.domain.exception.ResourceNotFoundException;
+import io.acordi.msbiblioteca.domain.exception.VersionMismatchException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -38,6 +40,29 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(VersionMismatchException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ResponseEntity<ApiError> handleVersionMismatchException(VersionMismatchException ex) {
+        ApiError error = new ApiError(
+                HttpStatus.PRECONDITION_FAILED.value(),
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(error);
+    }
+
+    // Outra transação gravou o mesmo registro entre a leitura e a gravação (@Version)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<ApiError> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        ApiError error = new ApiError(
+                HttpStatus.CONFLICT.value(),
+                "O registro foi alterado por outra requisição; leia novamente e repita a alteração",
+                LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ValidationError> handleValidationExceptions(MethodArgumentNotValidException ex) {
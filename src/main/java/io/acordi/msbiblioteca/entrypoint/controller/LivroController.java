@@ -1,17 +1,25 @@
 package io.acordi.msbiblioteca.entrypoint.controller;
 
 import io.acordi.msbiblioteca.entrypoint.dto.LivroDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.PaginaDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.ResultadoImportacaoDTO;
+import io.acordi.msbiblioteca.domain.types.FormatoArquivo;
 import io.acordi.msbiblioteca.domain.types.StatusLivro;
 import io.acordi.msbiblioteca.domain.services.LivroService;
+import io.acordi.msbiblioteca.config.ListagemVersionada;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -23,36 +31,55 @@ public class LivroController {
     private LivroService livroService;
 
     @GetMapping
-    @Operation(summary = "Listar todos os livros", description = "Retorna uma lista com todos os livros cadastrados")
-    public ResponseEntity<List<LivroDTO>> findAll() {
-        return ResponseEntity.ok(livroService.findAll());
+    @ListagemVersionada
+    @Operation(summary = "Listar livros", description = "Retorna uma página de livros ordenada por ID. Use o proximoCursor da resposta para buscar a página seguinte")
+    public ResponseEntity<PaginaDTO<LivroDTO>> findAll(
+            @Parameter(description = "ID do último livro da página anterior (opcional)", required = false)
+            @RequestParam(required = false) Integer cursor,
+            @Parameter(description = "Quantidade de itens por página (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(livroService.findAll(cursor, tamanho));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Buscar livro por ID", description = "Retorna um livro específico pelo seu ID")
     public ResponseEntity<LivroDTO> findById(
             @Parameter(description = "ID do livro", required = true)
-            @PathVariable Integer id) {
+            @PathVariable Integer id,
+            WebRequest request) {
+        // Com If-None-Match igual à versão atual, responde 304 sem carregar o livro
+        if (request.checkNotModified(livroService.etag(id))) {
+            return null;
+        }
         return ResponseEntity.ok(livroService.findById(id));
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Buscar livros por título", description = "Retorna uma lista de livros que contêm o título especificado")
+    @ListagemVersionada
+    @Operation(summary = "Buscar livros por título", description = "Retorna os livros cujo título contém o texto informado, sem diferenciar acentos e maiúsculas, ordenados por relevância")
     public ResponseEntity<List<LivroDTO>> findByTitulo(
             @Parameter(description = "Título (ou parte do título) do livro", required = true)
-            @RequestParam String titulo) {
-        return ResponseEntity.ok(livroService.findByTitulo(titulo));
+            @RequestParam String titulo,
+            @Parameter(description = "Quantidade máxima de resultados (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(livroService.findByTitulo(titulo, tamanho));
     }
 
     @GetMapping("/status/{status}")
+    @ListagemVersionada
     @Operation(summary = "Buscar livros por status", description = "Retorna uma lista de livros com o status especificado (disponivel ou emprestado)")
-    public ResponseEntity<List<LivroDTO>> findByStatus(
+    public ResponseEntity<PaginaDTO<LivroDTO>> findByStatus(
             @Parameter(description = "Status do livro", required = true)
-            @PathVariable StatusLivro status) {
-        return ResponseEntity.ok(livroService.findByStatus(status));
+            @PathVariable StatusLivro status,
+            @Parameter(description = "ID do último livro da página anterior (opcional)", required = false)
+            @RequestParam(required = false) Integer cursor,
+            @Parameter(description = "Quantidade de itens por página (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(livroService.findByStatus(status, cursor, tamanho));
     }
 
     @GetMapping("/ano/{ano}")
+    @ListagemVersionada
     @Operation(summary = "Buscar livros por ano de publicação", description = "Retorna uma lista de livros publicados no ano especificado")
     public ResponseEntity<List<LivroDTO>> findByAnoPublicacao(
             @Parameter(description = "Ano de publicação", required = true)
@@ -61,6 +88,7 @@ public class LivroController {
     }
 
     @GetMapping("/autor/{autorId}")
+    @ListagemVersionada
     @Operation(summary = "Buscar livros por autor", description = "Retorna uma lista de livros de um determinado autor")
     public ResponseEntity<List<LivroDTO>> findByAutorId(
             @Parameter(description = "ID do autor", required = true)
@@ -69,18 +97,27 @@ public class LivroController {
     }
 
     @GetMapping("/mais-emprestados")
+    @ListagemVersionada
     @Operation(summary = "Listar livros mais emprestados", description = "Retorna uma lista de livros ordenados pela quantidade de empréstimos")
-    public ResponseEntity<List<LivroDTO>> findLivrosMaisEmprestados() {
-        return ResponseEntity.ok(livroService.findLivrosMaisEmprestados());
+    public ResponseEntity<List<LivroDTO>> findLivrosMaisEmprestados(
+            @Parameter(description = "Quantidade de posições do ranking (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(livroService.findLivrosMaisEmprestados(tamanho));
     }
 
     @GetMapping("/disponiveis")
+    @ListagemVersionada
     @Operation(summary = "Listar livros disponíveis", description = "Retorna uma lista de livros que estão disponíveis para empréstimo")
-    public ResponseEntity<List<LivroDTO>> findLivrosDisponiveis() {
-        return ResponseEntity.ok(livroService.findLivrosDisponiveis());
+    public ResponseEntity<PaginaDTO<LivroDTO>> findLivrosDisponiveis(
+            @Parameter(description = "ID do último livro da página anterior (opcional)", required = false)
+            @RequestParam(required = false) Integer cursor,
+            @Parameter(description = "Quantidade de itens por página (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(livroService.findLivrosDisponiveis(cursor, tamanho));
     }
 
     @GetMapping("/periodo")
+    @ListagemVersionada
     @Operation(summary = "Buscar livros por período de publicação", description = "Retorna uma lista de livros publicados entre os anos especificados")
     public ResponseEntity<List<LivroDTO>> findByAnoPublicacaoBetween(
             @Parameter(description = "Ano inicial", required = true)
@@ -91,11 +128,13 @@ public class LivroController {
     }
 
     @GetMapping("/random")
-    @Operation(summary = "Listar livros aleatórios", description = "Retorna uma lista aleatória de livros (sugestões)")
+    @Operation(summary = "Listar livros aleatórios", description = "Retorna uma lista aleatória de livros (sugestões), opcionalmente apenas entre os disponíveis")
     public ResponseEntity<List<LivroDTO>> findRandomLivros(
             @Parameter(description = "Quantidade de livros para retornar", required = false)
-            @RequestParam(defaultValue = "5") Integer limit) {
-        return ResponseEntity.ok(livroService.findRandomLivros(limit));
+            @RequestParam(defaultValue = "5") Integer limit,
+            @Parameter(description = "Sortear apenas livros disponíveis", required = false)
+            @RequestParam(defaultValue = "false") boolean disponiveis) {
+        return ResponseEntity.ok(livroService.findRandomLivros(limit, disponiveis));
     }
 
     @PostMapping
@@ -107,14 +146,26 @@ public class LivroController {
         return livroService.save(livroDTO);
     }
 
+    @PostMapping("/importacao")
+    @Operation(summary = "Importar catálogo", description = "Importa livros de um arquivo NDJSON ou CSV enviado no corpo da requisição (colunas titulo, anoPublicacao e autores, com os nomes separados por ';'). Autores inexistentes são criados. Retorna os totais e as linhas com erro")
+    public ResponseEntity<ResultadoImportacaoDTO> importar(
+            @Parameter(description = "Formato do arquivo (NDJSON ou CSV)", required = false)
+            @RequestParam(defaultValue = "NDJSON") FormatoArquivo formato,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(livroService.importar(request.getInputStream(), formato));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Atualizar livro", description = "Atualiza os dados de um livro existente")
     public ResponseEntity<LivroDTO> update(
             @Parameter(description = "ID do livro", required = true)
             @PathVariable Integer id,
             @Parameter(description = "Novos dados do livro", required = true)
-            @Valid @RequestBody LivroDTO livroDTO) {
-        return ResponseEntity.ok(livroService.update(id, livroDTO));
+            @Valid @RequestBody LivroDTO livroDTO,
+            @Parameter(description = "ETag recebido na leitura; se o livro mudou desde então, responde 412", required = false)
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        LivroDTO atualizado = livroService.update(id, livroDTO, Etags.etagEsperado(ifMatch));
+        return ResponseEntity.ok().eTag(livroService.etag(id)).body(atualizado);
     }
 
     @DeleteMapping("/{id}")
@@ -1,15 +1,21 @@
 package io.acordi.msbiblioteca.entrypoint.controller;
 
 import io.acordi.msbiblioteca.entrypoint.dto.MembroDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.PaginaDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.PainelMembroDTO;
 import io.acordi.msbiblioteca.domain.services.MembroService;
+import io.acordi.msbiblioteca.domain.services.PainelMembroService;
+import io.acordi.msbiblioteca.config.ListagemVersionada;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -21,26 +27,50 @@ public class MembroController {
     @Autowired
     private MembroService membroService;
 
+    @Autowired
+    private PainelMembroService painelMembroService;
+
     @GetMapping
-    @Operation(summary = "Listar todos os membros", description = "Retorna uma lista com todos os membros cadastrados")
-    public ResponseEntity<List<MembroDTO>> findAll() {
-        return ResponseEntity.ok(membroService.findAll());
+    @ListagemVersionada
+    @Operation(summary = "Listar membros", description = "Retorna uma página de membros ordenada por ID. Use o proximoCursor da resposta para buscar a página seguinte")
+    public ResponseEntity<PaginaDTO<MembroDTO>> findAll(
+            @Parameter(description = "ID do último membro da página anterior (opcional)", required = false)
+            @RequestParam(required = false) Integer cursor,
+            @Parameter(description = "Quantidade de itens por página (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(membroService.findAll(cursor, tamanho));
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Buscar membro por ID", description = "Retorna um membro específico pelo seu ID")
     public ResponseEntity<MembroDTO> findById(
             @Parameter(description = "ID do membro", required = true)
-            @PathVariable Integer id) {
+            @PathVariable Integer id,
+            WebRequest request) {
+        // Com If-None-Match igual à versão atual, responde 304 sem carregar o membro
+        if (request.checkNotModified(membroService.etag(id))) {
+            return null;
+        }
         return ResponseEntity.ok(membroService.findById(id));
     }
 
+    @GetMapping("/{id}/painel")
+    @Operation(summary = "Painel do membro", description = "Retorna, em uma única resposta, o membro, seus empréstimos ativos, suas multas e o saldo de multas")
+    public ResponseEntity<PainelMembroDTO> painel(
+            @Parameter(description = "ID do membro", required = true)
+            @PathVariable Integer id) {
+        return ResponseEntity.ok(painelMembroService.painel(id));
+    }
+
     @GetMapping("/search")
-    @Operation(summary = "Buscar membros por nome", description = "Retorna uma lista de membros que contêm o nome especificado")
+    @ListagemVersionada
+    @Operation(summary = "Buscar membros por nome", description = "Retorna os membros cujo nome contém o texto informado, sem diferenciar acentos e maiúsculas, ordenados por relevância")
     public ResponseEntity<List<MembroDTO>> findByNome(
             @Parameter(description = "Nome (ou parte do nome) do membro", required = true)
-            @RequestParam String nome) {
-        return ResponseEntity.ok(membroService.findByNome(nome));
+            @RequestParam String nome,
+            @Parameter(description = "Quantidade máxima de resultados (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(membroService.findByNome(nome, tamanho));
     }
 
     @GetMapping("/email")
@@ -52,24 +82,32 @@ public class MembroController {
     }
 
     @GetMapping("/mais-emprestimos")
+    @ListagemVersionada
     @Operation(summary = "Listar membros com mais empréstimos", description = "Retorna uma lista de membros ordenados pela quantidade de empréstimos")
-    public ResponseEntity<List<MembroDTO>> findMembrosComMaisEmprestimos() {
-        return ResponseEntity.ok(membroService.findMembrosComMaisEmprestimos());
+    public ResponseEntity<List<MembroDTO>> findMembrosComMaisEmprestimos(
+            @Parameter(description = "Quantidade de posições do ranking (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(membroService.findMembrosComMaisEmprestimos(tamanho));
     }
 
     @GetMapping("/mais-multas")
+    @ListagemVersionada
     @Operation(summary = "Listar membros com mais multas", description = "Retorna uma lista de membros ordenados pelo valor total de multas")
-    public ResponseEntity<List<MembroDTO>> findMembrosComMaisMultas() {
-        return ResponseEntity.ok(membroService.findMembrosComMaisMultas());
+    public ResponseEntity<List<MembroDTO>> findMembrosComMaisMultas(
+            @Parameter(description = "Quantidade de posições do ranking (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(membroService.findMembrosComMaisMultas(tamanho));
     }
 
     @GetMapping("/emprestimos-completos")
+    @ListagemVersionada
     @Operation(summary = "Listar membros com empréstimos completos", description = "Retorna uma lista de membros que já completaram todos os seus empréstimos")
     public ResponseEntity<List<MembroDTO>> findMembrosComEmprestimosCompletos() {
         return ResponseEntity.ok(membroService.findMembrosComEmprestimosCompletos());
     }
 
     @GetMapping("/emprestimos-ativos")
+    @ListagemVersionada
     @Operation(summary = "Listar membros com empréstimos ativos", description = "Retorna uma lista de membros que possuem o número especificado ou mais de empréstimos ativos")
     public ResponseEntity<List<MembroDTO>> findMembrosComEmprestimosAtivos(
             @Parameter(description = "Quantidade mínima de empréstimos ativos", required = false)
@@ -92,8 +130,11 @@ public class MembroController {
             @Parameter(description = "ID do membro", required = true)
             @PathVariable Integer id,
             @Parameter(description = "Novos dados do membro", required = true)
-            @Valid @RequestBody MembroDTO membroDTO) {
-        return ResponseEntity.ok(membroService.update(id, membroDTO));
+            @Valid @RequestBody MembroDTO membroDTO,
+            @Parameter(description = "ETag recebido na leitura; se o membro mudou desde então, responde 412", required = false)
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        MembroDTO atualizado = membroService.update(id, membroDTO, Etags.etagEsperado(ifMatch));
+        return ResponseEntity.ok().eTag(membroService.etag(id)).body(atualizado);
     }
 
     @DeleteMapping("/{id}")
@@ -1,18 +1,25 @@
 package io.acordi.msbiblioteca.entrypoint.controller;
 
 import io.acordi.msbiblioteca.entrypoint.dto.MultaDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.PaginaDTO;
 import io.acordi.msbiblioteca.domain.services.MultaService;
+import io.acordi.msbiblioteca.domain.types.FormatoArquivo;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -25,9 +32,13 @@ public class MultaController {
     private MultaService multaService;
 
     @GetMapping
-    @Operation(summary = "Listar todas as multas", description = "Retorna uma lista com todas as multas cadastradas")
-    public ResponseEntity<List<MultaDTO>> findAll() {
-        return ResponseEntity.ok(multaService.findAll());
+    @Operation(summary = "Listar multas", description = "Retorna uma página de multas ordenada por ID. Use o proximoCursor da resposta para buscar a página seguinte")
+    public ResponseEntity<PaginaDTO<MultaDTO>> findAll(
+            @Parameter(description = "ID da última multa da página anterior (opcional)", required = false)
+            @RequestParam(required = false) Integer cursor,
+            @Parameter(description = "Quantidade de itens por página (opcional, limitada pela configuração)", required = false)
+            @RequestParam(required = false) Integer tamanho) {
+        return ResponseEntity.ok(multaService.findAll(cursor, tamanho));
     }
 
     @GetMapping("/{id}")
@@ -86,6 +97,24 @@ public class MultaController {
         return ResponseEntity.ok(multaService.findAllOrderByValorDesc());
     }
 
+    @GetMapping("/exportacao")
+    @Operation(summary = "Exportar multas", description = "Transmite o histórico de multas em NDJSON ou CSV à medida que é lido do banco, sem limite de tamanho. Filtros opcionais por membro e por data de geração")
+    public void exportar(
+            @Parameter(description = "Formato da exportação (NDJSON ou CSV)", required = false)
+            @RequestParam(defaultValue = "NDJSON") FormatoArquivo formato,
+            @Parameter(description = "ID do membro (opcional)", required = false)
+            @RequestParam(required = false) Integer membroId,
+            @Parameter(description = "Data inicial de geração (opcional)", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInicio,
+            @Parameter(description = "Data final de geração, inclusiva (opcional)", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFim,
+            HttpServletResponse response) throws IOException {
+        response.setContentType(formato.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=multas." + formato.getExtensao());
+        multaService.exportar(formato, membroId, dataInicio, dataFim, response.getOutputStream());
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Registrar multa", description = "Registra uma nova multa")
@@ -0,0 +1,28 @@
+package io.acordi.msbiblioteca.entrypoint.dto;
+
+import java.time.LocalDate;
+
+public class DevolucaoDTO {
+
+    private Integer emprestimoId;
+
+    // Opcional, padrão é a data atual
+    private LocalDate dataDevolucao;
+
+    // Getters and Setters
+    public Integer getEmprestimoId() {
+        return emprestimoId;
+    }
+
+    public void setEmprestimoId(Integer emprestimoId) {
+        this.emprestimoId = emprestimoId;
+    }
+
+    public LocalDate getDataDevolucao() {
+        return dataDevolucao;
+    }
+
+    public void setDataDevolucao(LocalDate dataDevolucao) {
+        this.dataDevolucao = dataDevolucao;
+    }
+}
@@ -27,6 +27,23 @@ public class EmprestimoDTO {
     private String nomeMembro;
     private String tituloLivro;
 
+    public EmprestimoDTO() {
+    }
+
+    // Usado pelas projeções de EmprestimoRepository
+    public EmprestimoDTO(Integer id, Integer membroId, Integer livroId, LocalDate dataEmprestimo,
+                         LocalDate dataDevolucaoPrevista, LocalDate dataDevolucao,
+                         String nomeMembro, String tituloLivro) {
+        this.id = id;
+        this.membroId = membroId;
+        this.livroId = livroId;
+        this.dataEmprestimo = dataEmprestimo;
+        this.dataDevolucaoPrevista = dataDevolucaoPrevista;
+        this.dataDevolucao = dataDevolucao;
+        this.nomeMembro = nomeMembro;
+        this.tituloLivro = tituloLivro;
+    }
+
     // Getters and Setters
     public Integer getId() {
         return id;
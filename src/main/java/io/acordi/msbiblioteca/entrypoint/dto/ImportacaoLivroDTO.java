@@ -0,0 +1,48 @@
+package io.acordi.msbiblioteca.entrypoint.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Linha do arquivo de importação do catálogo: os autores vêm pelo nome, não pelo ID
+public class ImportacaoLivroDTO {
+
+    private String titulo;
+
+    private Integer anoPublicacao;
+
+    private List<String> autores = new ArrayList<>();
+
+    public ImportacaoLivroDTO() {
+    }
+
+    public ImportacaoLivroDTO(String titulo, Integer anoPublicacao, List<String> autores) {
+        this.titulo = titulo;
+        this.anoPublicacao = anoPublicacao;
+        this.autores = autores;
+    }
+
+    // Getters and Setters
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public void setTitulo(String titulo) {
+        this.titulo = titulo;
+    }
+
+    public Integer getAnoPublicacao() {
+        return anoPublicacao;
+    }
+
+    public void setAnoPublicacao(Integer anoPublicacao) {
+        this.anoPublicacao = anoPublicacao;
+    }
+
+    public List<String> getAutores() {
+        return autores;
+    }
+
+    public void setAutores(List<String> autores) {
+        this.autores = autores;
+    }
+}
@@ -0,0 +1,56 @@
+package io.acordi.msbiblioteca.entrypoint.dto;
+
+public class ItemResultadoLoteDTO {
+
+    // Posição do item na lista enviada
+    private int indice;
+
+    private Integer id;
+
+    private boolean sucesso;
+
+    private String mensagem;
+
+    public ItemResultadoLoteDTO() {
+    }
+
+    public ItemResultadoLoteDTO(int indice, Integer id, boolean sucesso, String mensagem) {
+        this.indice = indice;
+        this.id = id;
+        this.sucesso = sucesso;
+        this.mensagem = mensagem;
+    }
+
+    // Getters and Setters
+    public int getIndice() {
+        return indice;
+    }
+
+    public void setIndice(int indice) {
+        this.indice = indice;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public boolean isSucesso() {
+        return sucesso;
+    }
+
+    public void setSucesso(boolean sucesso) {
+        this.sucesso = sucesso;
+    }
+
+    public String getMensagem() {
+        return mensagem;
+    }
+
+    public void setMensagem(String mensagem) {
+        this.mensagem = mensagem;
+    }
+}
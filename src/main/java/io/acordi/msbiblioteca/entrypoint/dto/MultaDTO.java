@@ -25,6 +25,21 @@ public class MultaDTO {
     private String nomeMembro;
     private String tituloLivro;
 
+    public MultaDTO() {
+    }
+
+    // Usado pelas projeções de MultaRepository
+    public MultaDTO(Integer id, Integer emprestimoId, Integer membroId, BigDecimal valor,
+                    LocalDateTime dataGeracao, String nomeMembro, String tituloLivro) {
+        this.id = id;
+        this.emprestimoId = emprestimoId;
+        this.membroId = membroId;
+        this.valor = valor;
+        this.dataGeracao = dataGeracao;
+        this.nomeMembro = nomeMembro;
+        this.tituloLivro = tituloLivro;
+    }
+
     // Getters and Setters
     public Integer getId() {
         return id;
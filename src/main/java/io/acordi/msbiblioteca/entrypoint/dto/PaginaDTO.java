@@ -0,0 +1,48 @@
+package io.acordi.msbiblioteca.entrypoint.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PaginaDTO<T> {
+
+    private List<T> itens = new ArrayList<>();
+
+    // ID do último item da página; null quando não há mais páginas
+    private Integer proximoCursor;
+
+    private Integer tamanho;
+
+    public PaginaDTO() {
+    }
+
+    public PaginaDTO(List<T> itens, Integer proximoCursor, Integer tamanho) {
+        this.itens = itens;
+        this.proximoCursor = proximoCursor;
+        this.tamanho = tamanho;
+    }
+
+    // Getters and Setters
+    public List<T> getItens() {
+        return itens;
+    }
+
+    public void setItens(List<T> itens) {
+        this.itens = itens;
+    }
+
+    public Integer getProximoCursor() {
+        return proximoCursor;
+    }
+
+    public void setProximoCursor(Integer proximoCursor) {
+        this.proximoCursor = proximoCursor;
+    }
+
+    public Integer getTamanho() {
+        return tamanho;
+    }
+
+    public void setTamanho(Integer tamanho) {
+        this.tamanho = tamanho;
+    }
+}
@@ -0,0 +1,59 @@
+package io.acordi.msbiblioteca.entrypoint.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PainelMembroDTO {
+
+    private MembroDTO membro;
+
+    private List<EmprestimoDTO> emprestimosAtivos = new ArrayList<>();
+
+    private int quantidadeEmprestimosAtivos;
+
+    private List<MultaDTO> multas = new ArrayList<>();
+
+    private BigDecimal totalMultas;
+
+    // Getters and Setters
+    public MembroDTO getMembro() {
+        return membro;
+    }
+
+    public void setMembro(MembroDTO membro) {
+        this.membro = membro;
+    }
+
+    public List<EmprestimoDTO> getEmprestimosAtivos() {
+        return emprestimosAtivos;
+    }
+
+    public void setEmprestimosAtivos(List<EmprestimoDTO> emprestimosAtivos) {
+        this.emprestimosAtivos = emprestimosAtivos;
+    }
+
+    public int getQuantidadeEmprestimosAtivos() {
+        return quantidadeEmprestimosAtivos;
+    }
+
+    public void setQuantidadeEmprestimosAtivos(int quantidadeEmprestimosAtivos) {
+        this.quantidadeEmprestimosAtivos = quantidadeEmprestimosAtivos;
+    }
+
+    public List<MultaDTO> getMultas() {
+        return multas;
+    }
+
+    public void setMultas(List<MultaDTO> multas) {
+        this.multas = multas;
+    }
+
+    public BigDecimal getTotalMultas() {
+        return totalMultas;
+    }
+
+    public void setTotalMultas(BigDecimal totalMultas) {
+        this.totalMultas = totalMultas;
+    }
+}
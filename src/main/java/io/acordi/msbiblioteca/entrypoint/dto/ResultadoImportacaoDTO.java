@@ -0,0 +1,89 @@
+package io.acordi.msbiblioteca.entrypoint.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResultadoImportacaoDTO {
+
+    private int total;
+
+    private int importados;
+
+    private int falhas;
+
+    private int autoresCriados;
+
+    // Falhas por linha do arquivo (indice = número da linha), até o limite configurado
+    private List<ItemResultadoLoteDTO> erros = new ArrayList<>();
+
+    // Falhas além do limite, contadas mas não listadas
+    private int errosOmitidos;
+
+    public void registrarFalha(int linha, String mensagem, int limiteErros) {
+        total++;
+        falhas++;
+        if (erros.size() < limiteErros) {
+            erros.add(new ItemResultadoLoteDTO(linha, null, false, mensagem));
+        } else {
+            errosOmitidos++;
+        }
+    }
+
+    public void registrarImportados(int quantidade) {
+        total += quantidade;
+        importados += quantidade;
+    }
+
+    public void registrarAutoresCriados(int quantidade) {
+        autoresCriados += quantidade;
+    }
+
+    // Getters and Setters
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getImportados() {
+        return importados;
+    }
+
+    public void setImportados(int importados) {
+        this.importados = importados;
+    }
+
+    public int getFalhas() {
+        return falhas;
+    }
+
+    public void setFalhas(int falhas) {
+        this.falhas = falhas;
+    }
+
+    public int getAutoresCriados() {
+        return autoresCriados;
+    }
+
+    public void setAutoresCriados(int autoresCriados) {
+        this.autoresCriados = autoresCriados;
+    }
+
+    public List<ItemResultadoLoteDTO> getErros() {
+        return erros;
+    }
+
+    public void setErros(List<ItemResultadoLoteDTO> erros) {
+        this.erros = erros;
+    }
+
+    public int getErrosOmitidos() {
+        return errosOmitidos;
+    }
+
+    public void setErrosOmitidos(int errosOmitidos) {
+        this.errosOmitidos = errosOmitidos;
+    }
+}
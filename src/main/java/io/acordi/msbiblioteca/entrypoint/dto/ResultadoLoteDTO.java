@@ -0,0 +1,58 @@
+package io.acordi.msbiblioteca.entrypoint.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResultadoLoteDTO {
+
+    private int total;
+
+    private int sucessos;
+
+    private int falhas;
+
+    private List<ItemResultadoLoteDTO> itens = new ArrayList<>();
+
+    public void adicionar(ItemResultadoLoteDTO item) {
+        itens.add(item);
+        total++;
+        if (item.isSucesso()) {
+            sucessos++;
+        } else {
+            falhas++;
+        }
+    }
+
+    // Getters and Setters
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getSucessos() {
+        return sucessos;
+    }
+
+    public void setSucessos(int sucessos) {
+        this.sucessos = sucessos;
+    }
+
+    public int getFalhas() {
+        return falhas;
+    }
+
+    public void setFalhas(int falhas) {
+        this.falhas = falhas;
+    }
+
+    public List<ItemResultadoLoteDTO> getItens() {
+        return itens;
+    }
+
+    public void setItens(List<ItemResultadoLoteDTO> itens) {
+        this.itens = itens;
+    }
+}
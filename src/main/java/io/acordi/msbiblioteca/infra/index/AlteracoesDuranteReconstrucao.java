@@ -0,0 +1,48 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Alterações recebidas por um índice em memória enquanto ele é reconstruído. A reconstrução lê o
+ * banco sem bloquear o índice, e uma alteração confirmada depois da leitura do trecho que ela
+ * afeta iria apenas para a estrutura antiga, descartada na troca. Por isso ela também é guardada
+ * aqui e reaplicada sobre a estrutura nova antes de a nova ser publicada.
+ * <p>
+ * Uma alteração confirmada depois do início da gravação mas antes da leitura do banco aparece nos
+ * dois lugares; as alterações reaplicadas precisam, então, dar o mesmo resultado sobre um estado
+ * que já as contém.
+ * <p>
+ * Protocolo: {@link #iniciar} antes da primeira leitura; {@link #registrar} com a trava do índice,
+ * junto com a aplicação da alteração à estrutura atual; {@link #reaplicar} com a trava de escrita,
+ * logo depois da troca.
+ */
+final class AlteracoesDuranteReconstrucao {
+
+    // Nula fora de uma reconstrução
+    private volatile Queue<Runnable> pendentes;
+
+    void iniciar() {
+        pendentes = new ConcurrentLinkedQueue<>();
+    }
+
+    void registrar(Runnable alteracao) {
+        Queue<Runnable> fila = pendentes;
+        if (fila != null) {
+            fila.add(alteracao);
+        }
+    }
+
+    void reaplicar() {
+        Queue<Runnable> fila = pendentes;
+        pendentes = null;
+        if (fila != null) {
+            fila.forEach(Runnable::run);
+        }
+    }
+
+    // Reconstrução interrompida por uma falha: o índice atual continua valendo
+    void descartar() {
+        pendentes = null;
+    }
+}
@@ -0,0 +1,27 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Adia alterações nos índices em memória até o commit da transação corrente,
+ * para que um rollback não deixe o índice divergente do banco.
+ */
+public final class AposCommit {
+
+    private AposCommit() {
+    }
+
+    public static void executar(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import io.acordi.msbiblioteca.config.LeituraNoPrimarioTemplate;
+import io.acordi.msbiblioteca.infra.repository.AutorRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.MembroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Índices de trigramas usados pelas buscas textuais de livros (título), autores e
+ * membros (nome), no lugar do LIKE '%termo%' que obrigava a varrer as tabelas.
+ * <p>
+ * Segue o mesmo modelo do {@link DisponibilidadeIndex}: as alterações são aplicadas
+ * após o commit e os índices são reconstruídos periodicamente a partir do banco.
+ */
+@Component
+public class BuscaIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BuscaIndex.class);
+
+    private static final int TAMANHO_LOTE = 10_000;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private MembroRepository membroRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Exclui as alterações durante a troca de um índice pelo reconstruído
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AlteracoesDuranteReconstrucao alteracoes = new AlteracoesDuranteReconstrucao();
+
+    private volatile TrigramaIndex livros = new TrigramaIndex();
+
+    private volatile TrigramaIndex autores = new TrigramaIndex();
+
+    private volatile TrigramaIndex membros = new TrigramaIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${biblioteca.indices.ressincronizacao-ms:300000}",
+            fixedDelayString = "${biblioteca.indices.ressincronizacao-ms:300000}")
+    public synchronized void reconstruir() {
+        int totalLivros = reconstruir(livroRepository::findTitulosByIdGreaterThan, indice -> livros = indice);
+        int totalAutores = reconstruir(autorRepository::findNomesByIdGreaterThan, indice -> autores = indice);
+        int totalMembros = reconstruir(membroRepository::findNomesByIdGreaterThan, indice -> membros = indice);
+        log.info("Índices de busca reconstruídos: {} livros, {} autores, {} membros",
+                totalLivros, totalAutores, totalMembros);
+    }
+
+    public List<Integer> buscarLivros(String titulo, int limite) {
+        return livros.buscar(titulo, limite);
+    }
+
+    public List<Integer> buscarAutores(String nome, int limite) {
+        return autores.buscar(nome, limite);
+    }
+
+    public List<Integer> buscarMembros(String nome, int limite) {
+        return membros.buscar(nome, limite);
+    }
+
+    public void registrarLivro(Integer id, String titulo) {
+        alterar(() -> livros.indexar(id, titulo));
+    }
+
+    public void removerLivro(Integer id) {
+        alterar(() -> livros.remover(id));
+    }
+
+    public void registrarAutor(Integer id, String nome) {
+        alterar(() -> autores.indexar(id, nome));
+    }
+
+    public void removerAutor(Integer id) {
+        alterar(() -> autores.remover(id));
+    }
+
+    public void registrarMembro(Integer id, String nome) {
+        alterar(() -> membros.indexar(id, nome));
+    }
+
+    public void removerMembro(Integer id) {
+        alterar(() -> membros.remover(id));
+    }
+
+    // Lê um dos índices do banco e o publica com as alterações recebidas durante a leitura
+    private int reconstruir(BiFunction<Integer, Pageable, List<TextoIndexado>> consulta, Consumer<TrigramaIndex> publicar) {
+        alteracoes.iniciar();
+        TrigramaIndex indice;
+        try {
+            // No primário: uma réplica atrasada não teria as alterações anteriores ao início da gravação
+            indice = new LeituraNoPrimarioTemplate(transactionManager).execute(status -> carregar(consulta));
+        } catch (RuntimeException e) {
+            alteracoes.descartar();
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            publicar.accept(indice);
+            // Indexar e remover substituem a entrada inteira: reaplicar uma já lida não muda o resultado
+            alteracoes.reaplicar();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return indice.tamanho();
+    }
+
+    // A trava de leitura só exclui a troca dos índices; eles mesmos já são seguros entre threads
+    private void alterar(Runnable alteracao) {
+        AposCommit.executar(() -> {
+            lock.readLock().lock();
+            try {
+                alteracao.run();
+                alteracoes.registrar(alteracao);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    private TrigramaIndex carregar(BiFunction<Integer, Pageable, List<TextoIndexado>> consulta) {
+        TrigramaIndex indice = new TrigramaIndex();
+        List<TextoIndexado> lote = consulta.apply(0, PageRequest.of(0, TAMANHO_LOTE));
+        while (!lote.isEmpty()) {
+            lote.forEach(t -> indice.indexar(t.id(), t.texto()));
+            lote = consulta.apply(lote.get(lote.size() - 1).id(), PageRequest.of(0, TAMANHO_LOTE));
+        }
+        return indice;
+    }
+}
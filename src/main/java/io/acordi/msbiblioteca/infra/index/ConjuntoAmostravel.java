@@ -0,0 +1,82 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Conjunto de IDs guardado em um array denso, do qual se sorteiam amostras uniformes
+ * em O(quantidade), independentemente do tamanho do conjunto e das lacunas entre IDs.
+ * Inserção e remoção são O(1): a remoção move o último elemento para a posição liberada.
+ * <p>
+ * Não é thread-safe; o acesso é controlado por quem o contém.
+ */
+public class ConjuntoAmostravel {
+
+    private int[] ids = new int[16];
+
+    private int tamanho;
+
+    // Posição de cada ID em ids, indexada pelo próprio ID (-1 quando ausente)
+    private int[] posicoes = new int[0];
+
+    public void adicionar(int id) {
+        if (contem(id)) {
+            return;
+        }
+        if (id >= posicoes.length) {
+            int anterior = posicoes.length;
+            posicoes = Arrays.copyOf(posicoes, Math.max(id + 1, anterior * 2));
+            Arrays.fill(posicoes, anterior, posicoes.length, -1);
+        }
+        if (tamanho == ids.length) {
+            ids = Arrays.copyOf(ids, tamanho * 2);
+        }
+        ids[tamanho] = id;
+        posicoes[id] = tamanho++;
+    }
+
+    public void remover(int id) {
+        if (!contem(id)) {
+            return;
+        }
+        int posicao = posicoes[id];
+        int ultimo = ids[--tamanho];
+        ids[posicao] = ultimo;
+        posicoes[ultimo] = posicao;
+        posicoes[id] = -1;
+    }
+
+    public boolean contem(int id) {
+        return id >= 0 && id < posicoes.length && posicoes[id] >= 0;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Sorteia até {@code quantidade} IDs distintos (algoritmo de Floyd).
+     */
+    public List<Integer> amostrar(int quantidade) {
+        int total = Math.min(quantidade, tamanho);
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        Set<Integer> sorteadas = new HashSet<>(total * 2);
+        List<Integer> resultado = new ArrayList<>(total);
+        for (int limite = tamanho - total; limite < tamanho; limite++) {
+            int posicao = aleatorio.nextInt(limite + 1);
+            if (!sorteadas.add(posicao)) {
+                posicao = limite;
+                sorteadas.add(posicao);
+            }
+            resultado.add(ids[posicao]);
+        }
+        // O algoritmo de Floyd escolhe um subconjunto uniforme, mas não uma ordem uniforme
+        Collections.shuffle(resultado, aleatorio);
+        return resultado;
+    }
+}
@@ -0,0 +1,213 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import io.acordi.msbiblioteca.config.LeituraNoPrimarioTemplate;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice em memória da disponibilidade dos livros, com um bit por ID de livro.
+ * Substitui o NOT IN sobre os empréstimos ativos: as listagens por status percorrem
+ * o bitmap a partir do cursor e o banco só é consultado para carregar a página.
+ * <p>
+ * As alterações são aplicadas após o commit das transações de empréstimo e devolução.
+ * Como o índice é local a cada instância, ele é reconstruído periodicamente a partir
+ * do banco para absorver alterações feitas por outras instâncias; as alterações locais
+ * que chegam durante a reconstrução são reaplicadas sobre o índice novo.
+ * <p>
+ * Os mesmos IDs também ficam em arrays densos ({@link ConjuntoAmostravel}) para o
+ * sorteio de livros aleatórios, no lugar do ORDER BY RAND().
+ */
+@Component
+public class DisponibilidadeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DisponibilidadeIndex.class);
+
+    private static final int TAMANHO_LOTE = 10_000;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AlteracoesDuranteReconstrucao alteracoes = new AlteracoesDuranteReconstrucao();
+
+    private BitSet disponiveis = new BitSet();
+
+    private BitSet emprestados = new BitSet();
+
+    private ConjuntoAmostravel amostraTodos = new ConjuntoAmostravel();
+
+    private ConjuntoAmostravel amostraDisponiveis = new ConjuntoAmostravel();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${biblioteca.indices.ressincronizacao-ms:300000}",
+            fixedDelayString = "${biblioteca.indices.ressincronizacao-ms:300000}")
+    public synchronized void reconstruir() {
+        BitSet novosDisponiveis = new BitSet();
+        BitSet novosEmprestados = new BitSet();
+        ConjuntoAmostravel novaAmostraTodos = new ConjuntoAmostravel();
+        ConjuntoAmostravel novaAmostraDisponiveis = new ConjuntoAmostravel();
+
+        alteracoes.iniciar();
+        try {
+            // No primário: uma réplica atrasada não teria as alterações anteriores ao início da gravação
+            new LeituraNoPrimarioTemplate(transactionManager).executeWithoutResult(status -> {
+                List<Integer> ids = livroRepository.findIdsByIdGreaterThan(0, PageRequest.of(0, TAMANHO_LOTE));
+                while (!ids.isEmpty()) {
+                    ids.forEach(novosDisponiveis::set);
+                    ids.forEach(novaAmostraTodos::adicionar);
+                    ids = livroRepository.findIdsByIdGreaterThan(ids.get(ids.size() - 1), PageRequest.of(0, TAMANHO_LOTE));
+                }
+                for (Integer livroId : emprestimoRepository.findLivroIdsComEmprestimoAtivo()) {
+                    if (novosDisponiveis.get(livroId)) {
+                        novosDisponiveis.clear(livroId);
+                        novosEmprestados.set(livroId);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            alteracoes.descartar();
+            throw e;
+        }
+        novosDisponiveis.stream().forEach(novaAmostraDisponiveis::adicionar);
+
+        int totalDisponiveis;
+        int totalEmprestados;
+        lock.writeLock().lock();
+        try {
+            disponiveis = novosDisponiveis;
+            emprestados = novosEmprestados;
+            amostraTodos = novaAmostraTodos;
+            amostraDisponiveis = novaAmostraDisponiveis;
+            // Cada alteração define o estado do livro por inteiro: reaplicá-la não muda o resultado
+            alteracoes.reaplicar();
+            totalDisponiveis = disponiveis.cardinality();
+            totalEmprestados = emprestados.cardinality();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de disponibilidade reconstruído: {} disponíveis, {} emprestados",
+                totalDisponiveis, totalEmprestados);
+    }
+
+    public void registrarLivro(Integer livroId) {
+        AposCommit.executar(() -> atualizar(livroId, true, false));
+    }
+
+    public void removerLivro(Integer livroId) {
+        AposCommit.executar(() -> atualizar(livroId, false, false));
+    }
+
+    public void registrarEmprestimo(Integer livroId) {
+        AposCommit.executar(() -> atualizar(livroId, false, true));
+    }
+
+    public void registrarDevolucao(Integer livroId) {
+        AposCommit.executar(() -> atualizar(livroId, true, false));
+    }
+
+    public boolean isDisponivel(Integer livroId) {
+        lock.readLock().lock();
+        try {
+            return disponiveis.get(livroId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Status do livro segundo o índice; vazio se o livro não está no índice, por ter sido excluído
+     * ou cadastrado em outra instância depois da última reconstrução.
+     */
+    public Optional<StatusLivro> findStatus(Integer livroId) {
+        lock.readLock().lock();
+        try {
+            if (disponiveis.get(livroId)) {
+                return Optional.of(StatusLivro.DISPONIVEL);
+            }
+            return emprestados.get(livroId) ? Optional.of(StatusLivro.EMPRESTADO) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Integer> findDisponiveis(int cursor, int limite) {
+        return percorrer(true, cursor, limite);
+    }
+
+    public List<Integer> findEmprestados(int cursor, int limite) {
+        return percorrer(false, cursor, limite);
+    }
+
+    public List<Integer> amostrar(int quantidade, boolean apenasDisponiveis) {
+        lock.readLock().lock();
+        try {
+            return (apenasDisponiveis ? amostraDisponiveis : amostraTodos).amostrar(quantidade);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Integer> percorrer(boolean disponivel, int cursor, int limite) {
+        List<Integer> ids = new ArrayList<>(limite);
+        lock.readLock().lock();
+        try {
+            BitSet conjunto = disponivel ? disponiveis : emprestados;
+            for (int id = conjunto.nextSetBit(cursor + 1); id >= 0 && ids.size() < limite; id = conjunto.nextSetBit(id + 1)) {
+                ids.add(id);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ids;
+    }
+
+    private void atualizar(int livroId, boolean disponivel, boolean emprestado) {
+        lock.writeLock().lock();
+        try {
+            aplicar(livroId, disponivel, emprestado);
+            alteracoes.registrar(() -> aplicar(livroId, disponivel, emprestado));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Com a trava de escrita
+    private void aplicar(int livroId, boolean disponivel, boolean emprestado) {
+        disponiveis.set(livroId, disponivel);
+        emprestados.set(livroId, emprestado);
+        if (disponivel || emprestado) {
+            amostraTodos.adicionar(livroId);
+        } else {
+            amostraTodos.remover(livroId);
+        }
+        if (disponivel) {
+            amostraDisponiveis.adicionar(livroId);
+        } else {
+            amostraDisponiveis.remover(livroId);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package io.acordi.msbiblioteca.infra.index;
+
+/**
+ * Vínculo entre livro e autor usado para carregar o {@link RankingIndex}.
+ */
+public record LivroAutor(Integer livroId, Integer autorId) {
+}
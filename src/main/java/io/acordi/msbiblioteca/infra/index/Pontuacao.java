@@ -0,0 +1,23 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Total agregado por ID usado para carregar o {@link RankingIndex}. Valores monetários
+ * são guardados em centavos.
+ */
+public record Pontuacao(Integer id, long valor) {
+
+    public Pontuacao(Integer id, Long total) {
+        this(id, total != null ? total : 0L);
+    }
+
+    public Pontuacao(Integer id, BigDecimal total) {
+        this(id, centavos(total));
+    }
+
+    public static long centavos(BigDecimal valor) {
+        return valor != null ? valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue() : 0L;
+    }
+}
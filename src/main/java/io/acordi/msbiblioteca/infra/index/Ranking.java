@@ -0,0 +1,66 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Pontuações por ID mantidas em ordem decrescente (empates pelo menor ID), para que os
+ * K primeiros sejam lidos sem reordenar. IDs com pontuação zero ou negativa saem do ranking.
+ */
+public class Ranking {
+
+    private static final Comparator<Entrada> ORDEM = Comparator.comparingLong(Entrada::pontuacao).reversed()
+            .thenComparingInt(Entrada::id);
+
+    private final Map<Integer, Long> pontuacoes = new HashMap<>();
+
+    private final TreeSet<Entrada> ordenadas = new TreeSet<>(ORDEM);
+
+    public synchronized void adicionar(int id, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        Long atual = pontuacoes.remove(id);
+        long nova = delta;
+        if (atual != null) {
+            ordenadas.remove(new Entrada(id, atual));
+            nova += atual;
+        }
+        if (nova > 0) {
+            pontuacoes.put(id, nova);
+            ordenadas.add(new Entrada(id, nova));
+        }
+    }
+
+    public synchronized void remover(int id) {
+        Long atual = pontuacoes.remove(id);
+        if (atual != null) {
+            ordenadas.remove(new Entrada(id, atual));
+        }
+    }
+
+    public synchronized long pontuacao(int id) {
+        return pontuacoes.getOrDefault(id, 0L);
+    }
+
+    public synchronized List<Integer> primeiros(int quantidade) {
+        List<Integer> ids = new ArrayList<>(Math.min(quantidade, ordenadas.size()));
+        Iterator<Entrada> iterator = ordenadas.iterator();
+        while (ids.size() < quantidade && iterator.hasNext()) {
+            ids.add(iterator.next().id());
+        }
+        return ids;
+    }
+
+    public synchronized int tamanho() {
+        return pontuacoes.size();
+    }
+
+    private record Entrada(int id, long pontuacao) {
+    }
+}
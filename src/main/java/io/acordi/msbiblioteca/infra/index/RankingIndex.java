@@ -0,0 +1,244 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import io.acordi.msbiblioteca.config.LeituraNoPrimarioTemplate;
+import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.MembroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Rankings de popularidade (livros e autores mais emprestados, autores com mais livros,
+ * membros com mais empréstimos e com mais multas) mantidos em memória. Substituem os
+ * GROUP BY sobre todo o histórico: empréstimos, multas e alterações de autoria ajustam
+ * os contadores após o commit, e as consultas leem apenas os K primeiros.
+ * <p>
+ * Assim como os demais índices, é reconstruído periodicamente a partir do banco. Os
+ * contadores não são idempotentes: a reconstrução lê tudo em um único instante do banco
+ * e reaplica apenas as alterações recebidas a partir do início dessa leitura.
+ */
+@Component
+public class RankingIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RankingIndex.class);
+
+    private static final int TAMANHO_LOTE = 10_000;
+
+    private static final int[] SEM_AUTORES = new int[0];
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private MembroRepository membroRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Exclui as alterações durante a troca do estado pelo reconstruído
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AlteracoesDuranteReconstrucao alteracoes = new AlteracoesDuranteReconstrucao();
+
+    private volatile Estado estado = new Estado();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${biblioteca.indices.ressincronizacao-ms:300000}",
+            fixedDelayString = "${biblioteca.indices.ressincronizacao-ms:300000}")
+    public synchronized void reconstruir() {
+        Estado novo = new Estado();
+        alteracoes.iniciar();
+        try {
+            // Uma única leitura consistente no primário, iniciada logo depois da gravação das alterações:
+            // só as confirmadas nesse intervalo, de microssegundos, podem ser contadas duas vezes
+            LeituraNoPrimarioTemplate leitura = new LeituraNoPrimarioTemplate(transactionManager);
+            leitura.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+            leitura.executeWithoutResult(status -> carregar(novo));
+        } catch (RuntimeException e) {
+            alteracoes.descartar();
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            estado = novo;
+            alteracoes.reaplicar();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Rankings reconstruídos: {} livros emprestados, {} autores, {} membros",
+                novo.livrosEmprestimos.tamanho(), novo.autoresLivros.tamanho(), novo.membrosEmprestimos.tamanho());
+    }
+
+    private void carregar(Estado novo) {
+        List<Integer> ids = livroRepository.findIdsByIdGreaterThan(0, PageRequest.of(0, TAMANHO_LOTE));
+        while (!ids.isEmpty()) {
+            for (LivroAutor vinculo : livroRepository.findAutoresByLivroIdIn(ids)) {
+                novo.autoresPorLivro.merge(vinculo.livroId(), new int[]{vinculo.autorId()}, RankingIndex::concatenar);
+            }
+            ids = livroRepository.findIdsByIdGreaterThan(ids.get(ids.size() - 1), PageRequest.of(0, TAMANHO_LOTE));
+        }
+        novo.autoresPorLivro.values().forEach(autores -> {
+            for (int autorId : autores) {
+                novo.autoresLivros.adicionar(autorId, 1);
+            }
+        });
+
+        for (Pontuacao total : emprestimoRepository.findTotaisPorLivro()) {
+            novo.livrosEmprestimos.adicionar(total.id(), total.valor());
+            for (int autorId : novo.autoresPorLivro.getOrDefault(total.id(), SEM_AUTORES)) {
+                novo.autoresEmprestimos.adicionar(autorId, total.valor());
+            }
+        }
+        emprestimoRepository.findTotaisPorMembro().forEach(total -> novo.membrosEmprestimos.adicionar(total.id(), total.valor()));
+        // Saldo de multas lido da coluna mantida em membro, sem somar a tabela de multas
+        List<Pontuacao> saldos = membroRepository.findTotaisMultasByIdGreaterThan(0, PageRequest.of(0, TAMANHO_LOTE));
+        while (!saldos.isEmpty()) {
+            saldos.forEach(saldo -> novo.membrosMultas.adicionar(saldo.id(), saldo.valor()));
+            saldos = membroRepository.findTotaisMultasByIdGreaterThan(saldos.get(saldos.size() - 1).id(), PageRequest.of(0, TAMANHO_LOTE));
+        }
+    }
+
+    public List<Integer> livrosMaisEmprestados(int quantidade) {
+        return estado.livrosEmprestimos.primeiros(quantidade);
+    }
+
+    public List<Integer> autoresComMaisEmprestimos(int quantidade) {
+        return estado.autoresEmprestimos.primeiros(quantidade);
+    }
+
+    public List<Integer> autoresComMaisLivros(int quantidade) {
+        return estado.autoresLivros.primeiros(quantidade);
+    }
+
+    public List<Integer> membrosComMaisEmprestimos(int quantidade) {
+        return estado.membrosEmprestimos.primeiros(quantidade);
+    }
+
+    public List<Integer> membrosComMaisMultas(int quantidade) {
+        return estado.membrosMultas.primeiros(quantidade);
+    }
+
+    public void registrarEmprestimo(Integer livroId, Integer membroId) {
+        alterar(atual -> ajustarEmprestimos(atual, livroId, membroId, 1));
+    }
+
+    public void removerEmprestimo(Integer livroId, Integer membroId) {
+        alterar(atual -> ajustarEmprestimos(atual, livroId, membroId, -1));
+    }
+
+    public void alterarMulta(Integer membroId, BigDecimal valorAnterior, BigDecimal valorNovo) {
+        long delta = Pontuacao.centavos(valorNovo) - Pontuacao.centavos(valorAnterior);
+        alterar(atual -> atual.membrosMultas.adicionar(membroId, delta));
+    }
+
+    public void registrarMultas(Collection<Pontuacao> totaisPorMembro) {
+        alterar(atual -> totaisPorMembro.forEach(total -> atual.membrosMultas.adicionar(total.id(), total.valor())));
+    }
+
+    public void registrarLivro(Integer livroId, Collection<Integer> autorIds) {
+        int[] novos = autorIds.stream().mapToInt(Integer::intValue).distinct().toArray();
+        alterar(atual -> alterarAutores(atual, livroId, novos));
+    }
+
+    public void removerLivro(Integer livroId) {
+        alterar(atual -> {
+            alterarAutores(atual, livroId, SEM_AUTORES);
+            atual.livrosEmprestimos.remover(livroId);
+        });
+    }
+
+    public void removerAutor(Integer autorId) {
+        alterar(atual -> {
+            atual.autoresLivros.remover(autorId);
+            atual.autoresEmprestimos.remover(autorId);
+        });
+    }
+
+    public void removerMembro(Integer membroId) {
+        alterar(atual -> {
+            atual.membrosEmprestimos.remover(membroId);
+            atual.membrosMultas.remover(membroId);
+        });
+    }
+
+    // Aplica após o commit e guarda a alteração para a reconstrução em andamento, se houver; a trava
+    // de leitura só exclui a troca do estado, já que os rankings são seguros entre threads
+    private void alterar(Consumer<Estado> alteracao) {
+        AposCommit.executar(() -> {
+            lock.readLock().lock();
+            try {
+                alteracao.accept(estado);
+                alteracoes.registrar(() -> alteracao.accept(estado));
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    private static void ajustarEmprestimos(Estado atual, Integer livroId, Integer membroId, int delta) {
+        atual.livrosEmprestimos.adicionar(livroId, delta);
+        for (int autorId : atual.autoresPorLivro.getOrDefault(livroId, SEM_AUTORES)) {
+            atual.autoresEmprestimos.adicionar(autorId, delta);
+        }
+        atual.membrosEmprestimos.adicionar(membroId, delta);
+    }
+
+    // Os empréstimos do livro passam a contar para os novos autores e deixam de contar para os antigos
+    private static void alterarAutores(Estado atual, Integer livroId, int[] novos) {
+        int[] anteriores = novos.length > 0
+                ? atual.autoresPorLivro.put(livroId, novos)
+                : atual.autoresPorLivro.remove(livroId);
+        long emprestimos = atual.livrosEmprestimos.pontuacao(livroId);
+        for (int autorId : anteriores != null ? anteriores : SEM_AUTORES) {
+            atual.autoresLivros.adicionar(autorId, -1);
+            atual.autoresEmprestimos.adicionar(autorId, -emprestimos);
+        }
+        for (int autorId : novos) {
+            atual.autoresLivros.adicionar(autorId, 1);
+            atual.autoresEmprestimos.adicionar(autorId, emprestimos);
+        }
+    }
+
+    private static int[] concatenar(int[] a, int[] b) {
+        int[] resultado = new int[a.length + b.length];
+        System.arraycopy(a, 0, resultado, 0, a.length);
+        System.arraycopy(b, 0, resultado, a.length, b.length);
+        return resultado;
+    }
+
+    private static final class Estado {
+
+        private final Map<Integer, int[]> autoresPorLivro = new ConcurrentHashMap<>();
+
+        private final Ranking livrosEmprestimos = new Ranking();
+
+        private final Ranking autoresEmprestimos = new Ranking();
+
+        private final Ranking autoresLivros = new Ranking();
+
+        private final Ranking membrosEmprestimos = new Ranking();
+
+        private final Ranking membrosMultas = new Ranking();
+    }
+}
@@ -0,0 +1,7 @@
+package io.acordi.msbiblioteca.infra.index;
+
+/**
+ * Par ID/texto carregado do banco para alimentar o {@link BuscaIndex}.
+ */
+public record TextoIndexado(Integer id, String texto) {
+}
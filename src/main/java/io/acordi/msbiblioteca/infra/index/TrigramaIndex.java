@@ -0,0 +1,229 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas para busca por substring, sem diferenciar acentos
+ * e maiúsculas. Cada trigrama aponta para a lista ordenada dos IDs que o contêm;
+ * a busca intersecta as listas dos trigramas da consulta e confirma os candidatos
+ * comparando o texto normalizado.
+ * <p>
+ * Resultados são ordenados por relevância: texto igual à consulta, texto que começa
+ * com a consulta, palavra que começa com a consulta e, por fim, qualquer ocorrência.
+ * Dentro de cada grupo, textos mais curtos vêm primeiro.
+ */
+public class TrigramaIndex {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private final Map<Long, Postagens> postagens = new HashMap<>();
+
+    private final Map<Integer, String> textos = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcentos = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACOS.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    public void indexar(int id, String texto) {
+        String normalizado = normalizar(texto);
+        lock.writeLock().lock();
+        try {
+            removerSemLock(id);
+            textos.put(id, normalizado);
+            for (long trigrama : trigramas(normalizado)) {
+                postagens.computeIfAbsent(trigrama, t -> new Postagens()).adicionar(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(int id) {
+        lock.writeLock().lock();
+        try {
+            removerSemLock(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return textos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Integer> buscar(String consulta, int limite) {
+        String termo = normalizar(consulta);
+        if (termo.isEmpty() || limite <= 0) {
+            return new ArrayList<>();
+        }
+
+        Comparator<Resultado> pior = Comparator.comparingInt((Resultado r) -> r.relevancia)
+                .thenComparingInt(r -> r.comprimento)
+                .thenComparingInt(r -> r.id)
+                .reversed();
+        PriorityQueue<Resultado> melhores = new PriorityQueue<>(limite + 1, pior);
+
+        lock.readLock().lock();
+        try {
+            if (termo.length() < 3) {
+                // Consultas curtas não formam trigramas: percorre os textos
+                textos.forEach((id, texto) -> avaliar(id, texto, termo, melhores, limite));
+            } else {
+                for (int id : candidatos(termo)) {
+                    avaliar(id, textos.get(id), termo, melhores, limite);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Resultado> ordenados = new ArrayList<>(melhores);
+        ordenados.sort(pior.reversed());
+        List<Integer> ids = new ArrayList<>(ordenados.size());
+        ordenados.forEach(r -> ids.add(r.id));
+        return ids;
+    }
+
+    private int[] candidatos(String termo) {
+        Set<Long> trigramasConsulta = trigramas(termo);
+        List<Postagens> listas = new ArrayList<>(trigramasConsulta.size());
+        for (long trigrama : trigramasConsulta) {
+            Postagens lista = postagens.get(trigrama);
+            if (lista == null) {
+                return new int[0];
+            }
+            listas.add(lista);
+        }
+        listas.sort(Comparator.comparingInt(p -> p.tamanho));
+
+        // Parte da menor lista e descarta os IDs ausentes em qualquer outra. Como os
+        // candidatos são crescentes, cada lista só é pesquisada a partir da última posição
+        Postagens menor = listas.get(0);
+        int[] posicoes = new int[listas.size()];
+        int[] resultado = new int[menor.tamanho];
+        int quantidade = 0;
+        for (int i = 0; i < menor.tamanho; i++) {
+            int id = menor.ids[i];
+            boolean emTodas = true;
+            for (int j = 1; j < listas.size() && emTodas; j++) {
+                Postagens lista = listas.get(j);
+                int posicao = Arrays.binarySearch(lista.ids, posicoes[j], lista.tamanho, id);
+                if (posicao >= 0) {
+                    posicoes[j] = posicao + 1;
+                } else {
+                    posicoes[j] = -posicao - 1;
+                    emTodas = false;
+                }
+            }
+            if (emTodas) {
+                resultado[quantidade++] = id;
+            }
+        }
+        return Arrays.copyOf(resultado, quantidade);
+    }
+
+    private static void avaliar(int id, String texto, String termo, PriorityQueue<Resultado> melhores, int limite) {
+        int posicao = texto.indexOf(termo);
+        if (posicao < 0) {
+            return;
+        }
+        int relevancia;
+        if (texto.length() == termo.length()) {
+            relevancia = 0;
+        } else if (posicao == 0) {
+            relevancia = 1;
+        } else if (texto.charAt(posicao - 1) == ' ') {
+            relevancia = 2;
+        } else {
+            relevancia = 3;
+        }
+        melhores.add(new Resultado(id, relevancia, texto.length()));
+        if (melhores.size() > limite) {
+            melhores.poll();
+        }
+    }
+
+    private void removerSemLock(int id) {
+        String anterior = textos.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        for (long trigrama : trigramas(anterior)) {
+            Postagens lista = postagens.get(trigrama);
+            if (lista != null && lista.remover(id) && lista.tamanho == 0) {
+                postagens.remove(trigrama);
+            }
+        }
+    }
+
+    private static Set<Long> trigramas(String texto) {
+        Set<Long> trigramas = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            trigramas.add(((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2));
+        }
+        return trigramas;
+    }
+
+    private record Resultado(int id, int relevancia, int comprimento) {
+    }
+
+    /**
+     * Lista ordenada de IDs. IDs novos costumam ser maiores que os existentes,
+     * então a inserção é em geral um acréscimo no fim do array.
+     */
+    private static final class Postagens {
+
+        private int[] ids = new int[4];
+
+        private int tamanho;
+
+        void adicionar(int id) {
+            int posicao = tamanho == 0 || id > ids[tamanho - 1] ? tamanho : Arrays.binarySearch(ids, 0, tamanho, id);
+            if (posicao >= 0 && posicao < tamanho) {
+                return;
+            }
+            int insercao = posicao >= 0 ? posicao : -posicao - 1;
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            System.arraycopy(ids, insercao, ids, insercao + 1, tamanho - insercao);
+            ids[insercao] = id;
+            tamanho++;
+        }
+
+        boolean remover(int id) {
+            int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (posicao < 0) {
+                return false;
+            }
+            System.arraycopy(ids, posicao + 1, ids, posicao, tamanho - posicao - 1);
+            tamanho--;
+            return true;
+        }
+    }
+}
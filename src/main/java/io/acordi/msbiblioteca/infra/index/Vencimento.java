@@ -0,0 +1,9 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import java.time.LocalDate;
+
+/**
+ * Data de devolução prevista de um empréstimo ativo, usada para carregar o {@link VencimentoIndex}.
+ */
+public record Vencimento(Integer emprestimoId, LocalDate dataDevolucaoPrevista) {
+}
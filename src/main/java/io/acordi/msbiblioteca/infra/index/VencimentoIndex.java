@@ -0,0 +1,191 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import io.acordi.msbiblioteca.config.LeituraNoPrimarioTemplate;
+import io.acordi.msbiblioteca.domain.events.EmprestimoAtrasadoEvent;
+import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Empréstimos ativos agrupados por data de devolução prevista, em ordem de data.
+ * Os atrasados são os dos dias anteriores a hoje, então a listagem e a contagem
+ * leem apenas esses grupos em vez de filtrar a tabela de empréstimos.
+ * <p>
+ * Na virada do dia, os empréstimos que vencem passam a estar atrasados e um
+ * {@link EmprestimoAtrasadoEvent} é publicado para cada um.
+ */
+@Component
+public class VencimentoIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(VencimentoIndex.class);
+
+    private static final int TAMANHO_LOTE = 10_000;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AlteracoesDuranteReconstrucao alteracoes = new AlteracoesDuranteReconstrucao();
+
+    private NavigableMap<LocalDate, Set<Integer>> porData = new TreeMap<>();
+
+    private Map<Integer, LocalDate> dataPorEmprestimo = new HashMap<>();
+
+    // Dia da última virada: os vencimentos anteriores a ele já estavam atrasados
+    private LocalDate ultimoDia = LocalDate.now();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${biblioteca.indices.ressincronizacao-ms:300000}",
+            fixedDelayString = "${biblioteca.indices.ressincronizacao-ms:300000}")
+    public synchronized void reconstruir() {
+        NavigableMap<LocalDate, Set<Integer>> novoPorData = new TreeMap<>();
+        Map<Integer, LocalDate> novaDataPorEmprestimo = new HashMap<>();
+
+        alteracoes.iniciar();
+        try {
+            // No primário: uma réplica atrasada não teria as alterações anteriores ao início da gravação
+            new LeituraNoPrimarioTemplate(transactionManager).executeWithoutResult(status -> {
+                List<Vencimento> lote = emprestimoRepository.findVencimentosAtivos(0, PageRequest.of(0, TAMANHO_LOTE));
+                while (!lote.isEmpty()) {
+                    for (Vencimento vencimento : lote) {
+                        if (vencimento.dataDevolucaoPrevista() != null) {
+                            novoPorData.computeIfAbsent(vencimento.dataDevolucaoPrevista(), d -> new LinkedHashSet<>())
+                                    .add(vencimento.emprestimoId());
+                            novaDataPorEmprestimo.put(vencimento.emprestimoId(), vencimento.dataDevolucaoPrevista());
+                        }
+                    }
+                    lote = emprestimoRepository.findVencimentosAtivos(lote.get(lote.size() - 1).emprestimoId(), PageRequest.of(0, TAMANHO_LOTE));
+                }
+            });
+        } catch (RuntimeException e) {
+            alteracoes.descartar();
+            throw e;
+        }
+
+        int total;
+        lock.writeLock().lock();
+        try {
+            porData = novoPorData;
+            dataPorEmprestimo = novaDataPorEmprestimo;
+            // Registrar e remover substituem a entrada do empréstimo: reaplicar uma já lida não muda o resultado
+            alteracoes.reaplicar();
+            total = dataPorEmprestimo.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de vencimentos reconstruído: {} empréstimos ativos", total);
+    }
+
+    @Scheduled(cron = "${biblioteca.atrasos.virada-do-dia-cron:0 0 0 * * *}")
+    public void virarDia() {
+        List<EmprestimoAtrasadoEvent> eventos = virarDia(LocalDate.now());
+        eventos.forEach(eventPublisher::publishEvent);
+        log.info("{} empréstimos passaram a estar atrasados", eventos.size());
+    }
+
+    // Os empréstimos que venceram entre a última virada e hoje
+    List<EmprestimoAtrasadoEvent> virarDia(LocalDate hoje) {
+        List<EmprestimoAtrasadoEvent> eventos = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            porData.subMap(ultimoDia, true, hoje, false).forEach((data, ids) ->
+                    ids.forEach(id -> eventos.add(new EmprestimoAtrasadoEvent(id, data))));
+            ultimoDia = hoje;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return eventos;
+    }
+
+    public void registrar(Integer emprestimoId, LocalDate dataDevolucaoPrevista) {
+        alterar(() -> {
+            removerSemLock(emprestimoId);
+            if (dataDevolucaoPrevista != null) {
+                porData.computeIfAbsent(dataDevolucaoPrevista, d -> new LinkedHashSet<>()).add(emprestimoId);
+                dataPorEmprestimo.put(emprestimoId, dataDevolucaoPrevista);
+            }
+        });
+    }
+
+    public void remover(Integer emprestimoId) {
+        alterar(() -> removerSemLock(emprestimoId));
+    }
+
+    /**
+     * IDs dos empréstimos atrasados em {@code hoje}, do vencimento mais antigo para o mais recente.
+     */
+    public List<Integer> findAtrasados(LocalDate hoje) {
+        List<Integer> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            porData.headMap(hoje, false).values().forEach(ids::addAll);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ids;
+    }
+
+    public int countAtrasados(LocalDate hoje) {
+        lock.readLock().lock();
+        try {
+            int total = 0;
+            for (Set<Integer> ids : porData.headMap(hoje, false).values()) {
+                total += ids.size();
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Aplica após o commit e guarda a alteração para a reconstrução em andamento, se houver
+    private void alterar(Runnable alteracao) {
+        AposCommit.executar(() -> {
+            lock.writeLock().lock();
+            try {
+                alteracao.run();
+                alteracoes.registrar(alteracao);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void removerSemLock(Integer emprestimoId) {
+        LocalDate data = dataPorEmprestimo.remove(emprestimoId);
+        if (data != null) {
+            Set<Integer> ids = porData.get(data);
+            ids.remove(emprestimoId);
+            if (ids.isEmpty()) {
+                porData.remove(data);
+            }
+        }
+    }
+}
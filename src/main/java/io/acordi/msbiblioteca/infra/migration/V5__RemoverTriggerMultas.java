@@ -0,0 +1,54 @@
+package io.acordi.msbiblioteca.infra.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Remove o trigger que gerava a multa na devolução, mantido à mão nos bancos anteriores às
+ * migrações: as multas são apuradas pela aplicação (MultaService) e o trigger as duplicaria.
+ * O nome variava de banco para banco, então os triggers de emprestimo que inserem em multa
+ * são procurados no information_schema. Os bancos criados pelas migrações não têm triggers.
+ * As devoluções já multadas pelo trigger foram marcadas como apuradas na V4.
+ * <p>
+ * Registrada no Flyway como bean (a auto-configuração inclui as JavaMigration do contexto).
+ */
+@Component
+public class V5__RemoverTriggerMultas extends BaseJavaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(V5__RemoverTriggerMultas.class);
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection conexao = context.getConnection();
+        if (!"MySQL".equals(conexao.getMetaData().getDatabaseProductName())) {
+            return;
+        }
+
+        List<String> triggers = new ArrayList<>();
+        try (PreparedStatement consulta = conexao.prepareStatement("SELECT trigger_name FROM information_schema.triggers " +
+                "WHERE event_object_schema = DATABASE() AND event_object_table = 'emprestimo' " +
+                "AND action_statement LIKE '%INSERT%INTO%multa%'");
+             ResultSet linhas = consulta.executeQuery()) {
+            while (linhas.next()) {
+                triggers.add(linhas.getString(1));
+            }
+        }
+
+        try (Statement comando = conexao.createStatement()) {
+            for (String trigger : triggers) {
+                comando.execute("DROP TRIGGER `" + trigger.replace("`", "``") + "`");
+                log.info("Trigger {} removido: as multas são apuradas pela aplicação", trigger);
+            }
+        }
+    }
+}
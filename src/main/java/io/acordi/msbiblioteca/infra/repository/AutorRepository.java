@@ -1,24 +1,35 @@
 package io.acordi.msbiblioteca.infra.repository;
 
+import io.acordi.msbiblioteca.config.CacheSegundoNivel;
 import io.acordi.msbiblioteca.domain.entities.Autor;
+import io.acordi.msbiblioteca.infra.index.TextoIndexado;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AutorRepository extends JpaRepository<Autor, Integer> {
 
-    List<Autor> findByNomeContainingIgnoreCase(String nome);
+    List<Autor> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
 
-    @Query("SELECT a FROM Autor a JOIN a.livros l GROUP BY a ORDER BY COUNT(l) DESC")
-    List<Autor> findAutoresComMaisLivros();
+    @Query("SELECT new io.acordi.msbiblioteca.infra.index.TextoIndexado(a.id, a.nome) FROM Autor a WHERE a.id > :cursor ORDER BY a.id")
+    List<TextoIndexado> findNomesByIdGreaterThan(@Param("cursor") Integer cursor, Pageable pageable);
 
-    @Query("SELECT a FROM Autor a JOIN a.livros l JOIN l.emprestimos e GROUP BY a ORDER BY COUNT(e) DESC")
-    List<Autor> findAutoresComMaisEmprestimos();
+    @Query("SELECT a.versao FROM Autor a WHERE a.id = :id")
+    Optional<Long> findVersaoById(@Param("id") Integer id);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheSegundoNivel.CONSULTAS_CATALOGO)
+    })
     @Query("SELECT a FROM Autor a JOIN a.livros l WHERE l.anoPublicacao = :ano")
     List<Autor> findAutoresByAnoPublicacao(@Param("ano") Integer ano);
 }
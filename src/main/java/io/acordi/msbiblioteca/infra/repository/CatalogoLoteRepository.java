@@ -0,0 +1,97 @@
+package io.acordi.msbiblioteca.infra.repository;
+
+import io.acordi.msbiblioteca.config.CacheSegundoNivel;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.entrypoint.dto.ImportacaoLivroDTO;
+import io.acordi.msbiblioteca.infra.index.LivroAutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserção de autores, livros e vínculos livro_autor em lote JDBC, usada pela importação
+ * do catálogo. As inserções de autores e livros devolvem os IDs gerados na ordem das linhas
+ * recebidas; com rewriteBatchedStatements, o driver do MySQL envia cada lote como um único
+ * INSERT com várias linhas e calcula os IDs a partir do primeiro. As linhas novas mudam o
+ * resultado das consultas do catálogo, removidas do cache de consultas após o commit.
+ */
+@Repository
+public class CatalogoLoteRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheSegundoNivel cacheSegundoNivel;
+
+    public List<Integer> inserirAutores(List<String> nomes) {
+        List<Object[]> parametros = new ArrayList<>();
+        for (String nome : nomes) {
+            parametros.add(new Object[]{nome});
+        }
+        return inserirComIds("INSERT INTO autor (nome) VALUES (?)", parametros);
+    }
+
+    public List<Integer> inserirLivros(List<ImportacaoLivroDTO> livros) {
+        List<Object[]> parametros = new ArrayList<>();
+        for (ImportacaoLivroDTO livro : livros) {
+            parametros.add(new Object[]{livro.getTitulo(), livro.getAnoPublicacao(), StatusLivro.DISPONIVEL.name()});
+        }
+        return inserirComIds("INSERT INTO livro (titulo, ano_publicacao, status) VALUES (?, ?, ?)", parametros);
+    }
+
+    public int[] vincularAutores(List<LivroAutor> vinculos) {
+        if (vinculos.isEmpty()) {
+            return new int[0];
+        }
+        List<Object[]> parametros = new ArrayList<>();
+        for (LivroAutor vinculo : vinculos) {
+            parametros.add(new Object[]{vinculo.livroId(), vinculo.autorId()});
+        }
+        cacheSegundoNivel.removerConsultasCatalogo();
+        return jdbcTemplate.batchUpdate("INSERT INTO livro_autor (livro_id, autor_id) VALUES (?, ?)", parametros);
+    }
+
+    // O JdbcTemplate não expõe as chaves geradas de um batchUpdate; a conexão é a da transação corrente
+    private List<Integer> inserirComIds(String sql, List<Object[]> parametros) {
+        if (parametros.isEmpty()) {
+            return new ArrayList<>();
+        }
+        cacheSegundoNivel.removerConsultasCatalogo();
+        return jdbcTemplate.execute((ConnectionCallback<List<Integer>>) conexao -> {
+            try (PreparedStatement comando = conexao.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Object[] linha : parametros) {
+                    for (int i = 0; i < linha.length; i++) {
+                        if (linha[i] == null) {
+                            comando.setNull(i + 1, Types.INTEGER);
+                        } else {
+                            comando.setObject(i + 1, linha[i]);
+                        }
+                    }
+                    comando.addBatch();
+                }
+                comando.executeBatch();
+
+                List<Integer> ids = new ArrayList<>(parametros.size());
+                try (ResultSet chaves = comando.getGeneratedKeys()) {
+                    while (chaves.next()) {
+                        ids.add(chaves.getInt(1));
+                    }
+                }
+                if (ids.size() != parametros.size()) {
+                    throw new IllegalStateException("O driver retornou " + ids.size() + " IDs para "
+                            + parametros.size() + " linhas inseridas");
+                }
+                return ids;
+            }
+        });
+    }
+}
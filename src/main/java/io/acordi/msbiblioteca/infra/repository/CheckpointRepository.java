@@ -0,0 +1,25 @@
+package io.acordi.msbiblioteca.infra.repository;
+
+import io.acordi.msbiblioteca.domain.entities.Checkpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CheckpointRepository extends JpaRepository<Checkpoint, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Checkpoint c WHERE c.nome = :nome")
+    Optional<Checkpoint> findParaAtualizacao(@Param("nome") String nome);
+
+    // Não falha se outra instância criou o checkpoint ao mesmo tempo (a chave primária recusa a linha)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO job_checkpoint (nome, ultimo_id) VALUES (:nome, 0)", nativeQuery = true)
+    int criarSeAusente(@Param("nome") String nome);
+}
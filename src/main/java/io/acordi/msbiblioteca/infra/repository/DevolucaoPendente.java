@@ -0,0 +1,10 @@
+package io.acordi.msbiblioteca.infra.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Empréstimo devolvido cuja multa ainda não foi apurada.
+ */
+public record DevolucaoPendente(Integer emprestimoId, Integer membroId, LocalDate dataDevolucaoPrevista,
+                                LocalDate dataDevolucao) {
+}
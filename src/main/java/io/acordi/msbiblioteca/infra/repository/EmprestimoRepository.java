@@ -1,37 +1,106 @@
 package io.acordi.msbiblioteca.infra.repository;
 
+import io.acordi.msbiblioteca.config.Exportador;
 import io.acordi.msbiblioteca.domain.entities.Emprestimo;
+import io.acordi.msbiblioteca.entrypoint.dto.EmprestimoDTO;
+import io.acordi.msbiblioteca.infra.index.Pontuacao;
+import io.acordi.msbiblioteca.infra.index.Vencimento;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EmprestimoRepository extends JpaRepository<Emprestimo, Integer> {
 
-    List<Emprestimo> findByMembroId(Integer membroId);
+    // Projeção somente leitura: seleciona apenas as colunas do DTO em uma única consulta,
+    // sem carregar Membro e Livro no contexto de persistência
+    String SELECT_DTO = "SELECT new io.acordi.msbiblioteca.entrypoint.dto.EmprestimoDTO(" +
+            "e.id, m.id, l.id, e.dataEmprestimo, e.dataDevolucaoPrevista, e.dataDevolucao, m.nome, l.titulo) " +
+            "FROM Emprestimo e JOIN e.membro m JOIN e.livro l ";
 
-    List<Emprestimo> findByLivroId(Integer livroId);
+    @Query(SELECT_DTO + "WHERE e.id = :id")
+    Optional<EmprestimoDTO> findDtoById(@Param("id") Integer id);
 
-    @Query("SELECT e FROM Emprestimo e WHERE e.dataDevolucao IS NULL")
-    List<Emprestimo> findEmprestimosAtivos();
+    @Query(SELECT_DTO + "WHERE e.id IN :ids")
+    List<EmprestimoDTO> findDtosByIdIn(@Param("ids") Collection<Integer> ids);
 
-    @Query("SELECT e FROM Emprestimo e WHERE e.dataDevolucao IS NULL AND e.dataDevolucaoPrevista < :hoje")
-    List<Emprestimo> findEmprestimosAtrasados(@Param("hoje") LocalDate hoje);
+    // O índice de vencimentos é ressincronizado periodicamente: um empréstimo devolvido em outra
+    // instância pode continuar nele até lá, então a devolução é conferida aqui
+    @Query(SELECT_DTO + "WHERE e.id IN :ids AND e.dataDevolucao IS NULL")
+    List<EmprestimoDTO> findAtivosByIdIn(@Param("ids") Collection<Integer> ids);
 
-    @Query("SELECT e FROM Emprestimo e WHERE e.dataDevolucao >= :dataInicio AND e.dataDevolucao <= :dataFim")
-    List<Emprestimo> findByDataDevolucaoBetween(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
+    @Query(SELECT_DTO + "WHERE e.id > :cursor ORDER BY e.id")
+    List<EmprestimoDTO> findByIdGreaterThan(@Param("cursor") Integer cursor, Pageable pageable);
 
-    @Query("SELECT e FROM Emprestimo e WHERE e.membro.id = :membroId AND e.dataDevolucao IS NULL")
-    List<Emprestimo> findEmprestimosAtivosByMembro(@Param("membroId") Integer membroId);
+    @Query(SELECT_DTO + "WHERE m.id = :membroId")
+    List<EmprestimoDTO> findByMembroId(@Param("membroId") Integer membroId);
+
+    // Leituras contínuas para exportação, com fetch size limitado: uma consulta para cada filtro, para
+    // que o plano de cada uma use o índice certo. O período é obrigatório (ver EmprestimoService.exportar)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Exportador.TAMANHO_BUSCA))
+    @Query(SELECT_DTO + "WHERE e.dataEmprestimo BETWEEN :dataInicio AND :dataFim ORDER BY e.id")
+    Stream<EmprestimoDTO> streamParaExportacao(@Param("dataInicio") LocalDate dataInicio,
+                                               @Param("dataFim") LocalDate dataFim);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Exportador.TAMANHO_BUSCA))
+    @Query(SELECT_DTO + "WHERE m.id = :membroId AND e.dataEmprestimo BETWEEN :dataInicio AND :dataFim " +
+            "ORDER BY e.id")
+    Stream<EmprestimoDTO> streamParaExportacaoByMembroId(@Param("membroId") Integer membroId,
+                                                         @Param("dataInicio") LocalDate dataInicio,
+                                                         @Param("dataFim") LocalDate dataFim);
+
+    @Query(SELECT_DTO + "WHERE l.id = :livroId")
+    List<EmprestimoDTO> findByLivroId(@Param("livroId") Integer livroId);
+
+    @Query(SELECT_DTO + "WHERE e.dataDevolucao IS NULL")
+    List<EmprestimoDTO> findEmprestimosAtivos();
+
+    @Query("SELECT new io.acordi.msbiblioteca.infra.repository.DevolucaoPendente(e.id, e.membro.id, e.dataDevolucaoPrevista, e.dataDevolucao) " +
+            "FROM Emprestimo e WHERE e.dataDevolucao IS NOT NULL AND e.multaApurada = false AND e.id > :cursor ORDER BY e.id")
+    List<DevolucaoPendente> findDevolucoesPendentesDeMulta(@Param("cursor") Integer cursor, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Emprestimo e SET e.multaApurada = :apurada WHERE e.id IN :ids")
+    int marcarMultaApurada(@Param("ids") Collection<Integer> ids, @Param("apurada") boolean apurada);
+
+    @Query("SELECT new io.acordi.msbiblioteca.infra.index.Vencimento(e.id, e.dataDevolucaoPrevista) FROM Emprestimo e " +
+            "WHERE e.dataDevolucao IS NULL AND e.id > :cursor ORDER BY e.id")
+    List<Vencimento> findVencimentosAtivos(@Param("cursor") Integer cursor, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE e.dataDevolucao >= :dataInicio AND e.dataDevolucao <= :dataFim")
+    List<EmprestimoDTO> findByDataDevolucaoBetween(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
+
+    @Query(SELECT_DTO + "WHERE m.id = :membroId AND e.dataDevolucao IS NULL")
+    List<EmprestimoDTO> findEmprestimosAtivosByMembro(@Param("membroId") Integer membroId);
+
+    @Query("SELECT DISTINCT e.livro.id FROM Emprestimo e WHERE e.dataDevolucao IS NULL")
+    List<Integer> findLivroIdsComEmprestimoAtivo();
+
+    @Query("SELECT new io.acordi.msbiblioteca.infra.index.Pontuacao(e.livro.id, COUNT(e)) FROM Emprestimo e GROUP BY e.livro.id")
+    List<Pontuacao> findTotaisPorLivro();
+
+    @Query("SELECT new io.acordi.msbiblioteca.infra.index.Pontuacao(e.membro.id, COUNT(e)) FROM Emprestimo e GROUP BY e.membro.id")
+    List<Pontuacao> findTotaisPorMembro();
 
     @Query("SELECT COUNT(e) FROM Emprestimo e WHERE e.membro.id = :membroId AND e.dataDevolucao IS NULL")
     Integer countEmprestimosAtivosByMembro(@Param("membroId") Integer membroId);
 
-    @Query("SELECT e FROM Emprestimo e WHERE e.livro.id = :livroId ORDER BY e.dataEmprestimo DESC")
-    List<Emprestimo> findEmprestimosHistoricoByLivro(@Param("livroId") Integer livroId);
-}
+    @Query(SELECT_DTO + "WHERE l.id = :livroId ORDER BY e.dataEmprestimo DESC")
+    List<EmprestimoDTO> findEmprestimosHistoricoByLivro(@Param("livroId") Integer livroId);
 
+    @Modifying
+    @Query("UPDATE Emprestimo e SET e.dataDevolucao = :dataDevolucao, e.versao = e.versao + 1 WHERE e.id = :id AND e.dataDevolucao IS NULL")
+    int registrarDevolucao(@Param("id") Integer id, @Param("dataDevolucao") LocalDate dataDevolucao);
+}
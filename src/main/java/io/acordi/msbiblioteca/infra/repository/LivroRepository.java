@@ -2,34 +2,61 @@ package io.acordi.msbiblioteca.infra.repository;
 
 import io.acordi.msbiblioteca.domain.entities.Livro;
 import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.infra.index.LivroAutor;
+import io.acordi.msbiblioteca.infra.index.TextoIndexado;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LivroRepository extends JpaRepository<Livro, Integer> {
 
-    List<Livro> findByTituloContainingIgnoreCase(String titulo);
+    // Consultas com ordenação ou limite buscam apenas os IDs e depois carregam
+    // os livros com seus autores em uma única consulta (findComAutoresByIdIn).
 
-    List<Livro> findByStatus(StatusLivro status);
+    @Query("SELECT l.id FROM Livro l WHERE l.id > :cursor ORDER BY l.id")
+    List<Integer> findIdsByIdGreaterThan(@Param("cursor") Integer cursor, Pageable pageable);
 
+    @Query("SELECT DISTINCT l FROM Livro l LEFT JOIN FETCH l.autores WHERE l.id IN :ids")
+    List<Livro> findComAutoresByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Override
+    @EntityGraph(attributePaths = "autores")
+    Optional<Livro> findById(Integer id);
+
+    @Query("SELECT new io.acordi.msbiblioteca.infra.index.TextoIndexado(l.id, l.titulo) FROM Livro l WHERE l.id > :cursor ORDER BY l.id")
+    List<TextoIndexado> findTitulosByIdGreaterThan(@Param("cursor") Integer cursor, Pageable pageable);
+
+    @EntityGraph(attributePaths = "autores")
     List<Livro> findByAnoPublicacao(Integer anoPublicacao);
 
+    @EntityGraph(attributePaths = "autores")
     @Query("SELECT l FROM Livro l JOIN l.autores a WHERE a.id = :autorId")
     List<Livro> findByAutorId(@Param("autorId") Integer autorId);
 
-    @Query("SELECT l FROM Livro l JOIN l.emprestimos e GROUP BY l ORDER BY COUNT(e) DESC")
-    List<Livro> findLivrosMaisEmprestados();
-
-    @Query("SELECT l FROM Livro l WHERE l.id NOT IN (SELECT e.livro.id FROM Emprestimo e WHERE e.dataDevolucao IS NULL)")
-    List<Livro> findLivrosDisponiveis();
+    @Query("SELECT new io.acordi.msbiblioteca.infra.index.LivroAutor(l.id, a.id) FROM Livro l JOIN l.autores a WHERE l.id IN :ids")
+    List<LivroAutor> findAutoresByLivroIdIn(@Param("ids") Collection<Integer> ids);
 
+    @EntityGraph(attributePaths = "autores")
     @Query("SELECT l FROM Livro l WHERE l.anoPublicacao BETWEEN :anoInicio AND :anoFim")
     List<Livro> findByAnoPublicacaoBetween(@Param("anoInicio") Integer anoInicio, @Param("anoFim") Integer anoFim);
 
-    @Query(value = "SELECT * FROM Livro ORDER BY RAND() LIMIT :limit", nativeQuery = true)
-    List<Livro> findRandomLivros(@Param("limit") Integer limit);
+    // Só as versões, para responder If-None-Match sem carregar o livro e os autores
+    @Query("SELECT new io.acordi.msbiblioteca.infra.repository.VersaoLivro(l.versao, COUNT(a), COALESCE(SUM(a.versao), 0L)) " +
+            "FROM Livro l LEFT JOIN l.autores a WHERE l.id = :id GROUP BY l.id, l.versao")
+    Optional<VersaoLivro> findVersaoById(@Param("id") Integer id);
+
+    // Só o status, para completar o livro guardado no cache de findById
+    @Query("SELECT l.status FROM Livro l WHERE l.id = :id")
+    Optional<StatusLivro> findStatusById(@Param("id") Integer id);
+
+    @Query("SELECT l.id FROM Livro l WHERE l.id IN :ids")
+    List<Integer> findIdsByIdIn(@Param("ids") Collection<Integer> ids);
 }
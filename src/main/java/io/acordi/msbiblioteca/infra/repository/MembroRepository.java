@@ -1,32 +1,65 @@
 package io.acordi.msbiblioteca.infra.repository;
 
 import io.acordi.msbiblioteca.domain.entities.Membro;
+import io.acordi.msbiblioteca.infra.index.Pontuacao;
+import io.acordi.msbiblioteca.infra.index.TextoIndexado;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface MembroRepository extends JpaRepository<Membro, Integer> {
 
-    List<Membro> findByNomeContainingIgnoreCase(String nome);
+    List<Membro> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
 
-    Optional<Membro> findByEmail(String email);
-
-    @Query("SELECT m FROM Membro m JOIN m.emprestimos e GROUP BY m ORDER BY COUNT(e) DESC")
-    List<Membro> findMembrosComMaisEmprestimos();
+    @Query("SELECT new io.acordi.msbiblioteca.infra.index.TextoIndexado(m.id, m.nome) FROM Membro m WHERE m.id > :cursor ORDER BY m.id")
+    List<TextoIndexado> findNomesByIdGreaterThan(@Param("cursor") Integer cursor, Pageable pageable);
 
-    @Query("SELECT m FROM Membro m JOIN m.multas mu GROUP BY m ORDER BY SUM(mu.valor) DESC")
-    List<Membro> findMembrosComMaisMultas();
+    Optional<Membro> findByEmail(String email);
 
-    @Query("SELECT m FROM Membro m WHERE SIZE(m.emprestimos) > 0 AND " +
-            "(SELECT COUNT(e) FROM Emprestimo e WHERE e.membro = m AND e.dataDevolucao IS NULL) = 0")
+    // Filtram pelo contador de empréstimos ativos (indexado) em vez de contar os empréstimos de cada membro
+    @Query("SELECT m FROM Membro m WHERE m.emprestimosAtivos = 0 AND " +
+            "EXISTS (SELECT 1 FROM Emprestimo e WHERE e.membro = m)")
     List<Membro> findMembrosComEmprestimosCompletos();
 
-    @Query("SELECT m FROM Membro m WHERE (SELECT COUNT(e) FROM Emprestimo e WHERE e.membro = m AND e.dataDevolucao IS NULL) >= :quantidade")
+    @Query("SELECT m FROM Membro m WHERE m.emprestimosAtivos >= :quantidade")
     List<Membro> findMembrosComEmprestimosAtivos(@Param("quantidade") Integer quantidade);
-}
 
+    @Modifying
+    @Query("UPDATE Membro m SET m.emprestimosAtivos = m.emprestimosAtivos + 1 WHERE m.id = :id AND m.emprestimosAtivos < :limite")
+    int reservarEmprestimo(@Param("id") Integer id, @Param("limite") int limite);
+
+    @Modifying
+    @Query("UPDATE Membro m SET m.emprestimosAtivos = m.emprestimosAtivos - 1 WHERE m.id = :id AND m.emprestimosAtivos > 0")
+    int liberarEmprestimo(@Param("id") Integer id);
+
+    @Query("SELECT m.versao FROM Membro m WHERE m.id = :id")
+    Optional<Long> findVersaoById(@Param("id") Integer id);
+
+    @Query("SELECT m.totalMultas FROM Membro m WHERE m.id = :id")
+    Optional<BigDecimal> findTotalMultasById(@Param("id") Integer id);
+
+    @Query("SELECT new io.acordi.msbiblioteca.infra.index.Pontuacao(m.id, m.totalMultas) FROM Membro m " +
+            "WHERE m.id > :cursor ORDER BY m.id")
+    List<Pontuacao> findTotaisMultasByIdGreaterThan(@Param("cursor") Integer cursor, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Membro m SET m.totalMultas = m.totalMultas + :delta WHERE m.id = :id")
+    int acumularMultas(@Param("id") Integer id, @Param("delta") BigDecimal delta);
+
+    // Só corrige se o saldo não mudou desde a leitura, para não descartar um ajuste concorrente
+    @Modifying
+    @Query("UPDATE Membro m SET m.totalMultas = :total WHERE m.id = :id AND m.totalMultas = :esperado")
+    int corrigirTotalMultas(@Param("id") Integer id, @Param("esperado") BigDecimal esperado, @Param("total") BigDecimal total);
+
+    @Query("SELECT m.id FROM Membro m WHERE m.id IN :ids")
+    List<Integer> findIdsByIdIn(@Param("ids") Collection<Integer> ids);
+}
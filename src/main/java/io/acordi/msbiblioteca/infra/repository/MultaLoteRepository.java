@@ -0,0 +1,47 @@
+package io.acordi.msbiblioteca.infra.repository;
+
+import io.acordi.msbiblioteca.entrypoint.dto.MultaDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserção de multas e atualização dos saldos dos membros em lote JDBC. Com
+ * rewriteBatchedStatements, o driver do MySQL envia o lote de INSERTs como um único
+ * INSERT com várias linhas.
+ */
+@Repository
+public class MultaLoteRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public int[] inserir(List<MultaDTO> multas) {
+        if (multas.isEmpty()) {
+            return new int[0];
+        }
+        List<Object[]> parametros = new ArrayList<>();
+        for (MultaDTO multa : multas) {
+            parametros.add(new Object[]{multa.getEmprestimoId(), multa.getMembroId(), multa.getValor(),
+                    Timestamp.valueOf(multa.getDataGeracao())});
+        }
+        return jdbcTemplate.batchUpdate("INSERT INTO multa (emprestimo_id, membro_id, valor, data_geracao) " +
+                "VALUES (?, ?, ?, ?)", parametros);
+    }
+
+    // Soma os valores ao saldo de cada membro, na ordem dos IDs recebidos
+    public int[] acumularTotaisMembros(Map<Integer, BigDecimal> valoresPorMembro) {
+        if (valoresPorMembro.isEmpty()) {
+            return new int[0];
+        }
+        List<Object[]> parametros = new ArrayList<>();
+        valoresPorMembro.forEach((membroId, valor) -> parametros.add(new Object[]{valor, membroId}));
+        return jdbcTemplate.batchUpdate("UPDATE membro SET total_multas = total_multas + ? WHERE id = ?", parametros);
+    }
+}
@@ -1,32 +1,69 @@
 package io.acordi.msbiblioteca.infra.repository;
 
+import io.acordi.msbiblioteca.config.Exportador;
 import io.acordi.msbiblioteca.domain.entities.Multa;
+import io.acordi.msbiblioteca.entrypoint.dto.MultaDTO;
+import io.acordi.msbiblioteca.infra.index.Pontuacao;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface MultaRepository extends JpaRepository<Multa, Integer> {
 
-    List<Multa> findByMembroId(Integer membroId);
+    // Projeção somente leitura: seleciona apenas as colunas do DTO em uma única consulta,
+    // sem carregar Emprestimo, Livro e Membro no contexto de persistência
+    String SELECT_DTO = "SELECT new io.acordi.msbiblioteca.entrypoint.dto.MultaDTO(" +
+            "mu.id, e.id, m.id, mu.valor, mu.dataGeracao, m.nome, l.titulo) " +
+            "FROM Multa mu JOIN mu.emprestimo e JOIN e.livro l JOIN mu.membro m ";
 
-    List<Multa> findByEmprestimoId(Integer emprestimoId);
+    @Query(SELECT_DTO + "WHERE mu.id > :cursor ORDER BY mu.id")
+    List<MultaDTO> findByIdGreaterThan(@Param("cursor") Integer cursor, Pageable pageable);
 
-    @Query("SELECT SUM(m.valor) FROM Multa m WHERE m.membro.id = :membroId")
-    BigDecimal sumValorByMembroId(@Param("membroId") Integer membroId);
+    @Query(SELECT_DTO + "WHERE m.id = :membroId")
+    List<MultaDTO> findByMembroId(@Param("membroId") Integer membroId);
 
-    @Query("SELECT m FROM Multa m WHERE m.dataGeracao BETWEEN :dataInicio AND :dataFim ORDER BY m.dataGeracao DESC")
-    List<Multa> findByDataGeracaoBetween(@Param("dataInicio") LocalDateTime dataInicio, @Param("dataFim") LocalDateTime dataFim);
+    // Leituras contínuas para exportação, uma para cada filtro como em EmprestimoRepository; fim exclusivo
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Exportador.TAMANHO_BUSCA))
+    @Query(SELECT_DTO + "WHERE mu.dataGeracao >= :inicio AND mu.dataGeracao < :fim ORDER BY mu.id")
+    Stream<MultaDTO> streamParaExportacao(@Param("inicio") LocalDateTime inicio,
+                                          @Param("fim") LocalDateTime fim);
 
-    @Query("SELECT m FROM Multa m WHERE m.valor > :valorMinimo ORDER BY m.valor DESC")
-    List<Multa> findByValorGreaterThan(@Param("valorMinimo") BigDecimal valorMinimo);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = Exportador.TAMANHO_BUSCA))
+    @Query(SELECT_DTO + "WHERE m.id = :membroId AND mu.dataGeracao >= :inicio AND mu.dataGeracao < :fim " +
+            "ORDER BY mu.id")
+    Stream<MultaDTO> streamParaExportacaoByMembroId(@Param("membroId") Integer membroId,
+                                                    @Param("inicio") LocalDateTime inicio,
+                                                    @Param("fim") LocalDateTime fim);
 
-    @Query("SELECT m FROM Multa m ORDER BY m.valor DESC")
-    List<Multa> findAllOrderByValorDesc();
-}
+    @Query(SELECT_DTO + "WHERE e.id = :emprestimoId")
+    List<MultaDTO> findByEmprestimoId(@Param("emprestimoId") Integer emprestimoId);
+
+    boolean existsByEmprestimoId(Integer emprestimoId);
+
+    List<Multa> findAllByEmprestimoId(Integer emprestimoId);
+
+    @Query("SELECT new io.acordi.msbiblioteca.infra.index.Pontuacao(m.membro.id, SUM(m.valor)) FROM Multa m " +
+            "WHERE m.membro.id IN :membroIds GROUP BY m.membro.id")
+    List<Pontuacao> findTotaisPorMembroByMembroIdIn(@Param("membroIds") Collection<Integer> membroIds);
 
+    @Query(SELECT_DTO + "WHERE mu.dataGeracao BETWEEN :dataInicio AND :dataFim ORDER BY mu.dataGeracao DESC")
+    List<MultaDTO> findByDataGeracaoBetween(@Param("dataInicio") LocalDateTime dataInicio, @Param("dataFim") LocalDateTime dataFim);
+
+    @Query(SELECT_DTO + "WHERE mu.valor > :valorMinimo ORDER BY mu.valor DESC")
+    List<MultaDTO> findByValorGreaterThan(@Param("valorMinimo") BigDecimal valorMinimo);
+
+    @Query(SELECT_DTO + "ORDER BY mu.valor DESC")
+    List<MultaDTO> findAllOrderByValorDesc();
+}
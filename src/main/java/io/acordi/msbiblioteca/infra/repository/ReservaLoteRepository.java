@@ -0,0 +1,74 @@
+package io.acordi.msbiblioteca.infra.repository;
+
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versões em lote JDBC das atualizações condicionais usadas no registro de empréstimos
+ * e devoluções. Cada posição do array retornado indica se a linha correspondente foi
+ * alterada (1) ou se a condição não era mais verdadeira (0). Também atendem às transições
+ * de um único livro.
+ */
+@Repository
+public class ReservaLoteRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public int[] reservarLivros(List<Integer> livroIds) {
+        return alterarStatusLivros(livroIds, StatusLivro.DISPONIVEL, StatusLivro.EMPRESTADO);
+    }
+
+    public int[] liberarLivros(List<Integer> livroIds) {
+        return alterarStatusLivros(livroIds, StatusLivro.EMPRESTADO, StatusLivro.DISPONIVEL);
+    }
+
+    public int[] reservarVagasMembros(List<Integer> membroIds, int limite) {
+        List<Object[]> parametros = new ArrayList<>();
+        for (Integer membroId : membroIds) {
+            parametros.add(new Object[]{membroId, limite});
+        }
+        return executar("UPDATE membro SET emprestimos_ativos = emprestimos_ativos + 1 " +
+                "WHERE id = ? AND emprestimos_ativos < ?", parametros);
+    }
+
+    public int[] liberarVagasMembros(List<Integer> membroIds) {
+        List<Object[]> parametros = new ArrayList<>();
+        for (Integer membroId : membroIds) {
+            parametros.add(new Object[]{membroId});
+        }
+        return executar("UPDATE membro SET emprestimos_ativos = emprestimos_ativos - 1 " +
+                "WHERE id = ? AND emprestimos_ativos > 0", parametros);
+    }
+
+    public int[] registrarDevolucoes(List<Integer> emprestimoIds, List<LocalDate> datas) {
+        List<Object[]> parametros = new ArrayList<>();
+        for (int i = 0; i < emprestimoIds.size(); i++) {
+            parametros.add(new Object[]{Date.valueOf(datas.get(i)), emprestimoIds.get(i)});
+        }
+        return executar("UPDATE emprestimo SET data_devolucao = ?, versao = versao + 1 " +
+                "WHERE id = ? AND data_devolucao IS NULL", parametros);
+    }
+
+    private int[] alterarStatusLivros(List<Integer> livroIds, StatusLivro statusAtual, StatusLivro novoStatus) {
+        List<Object[]> parametros = new ArrayList<>();
+        for (Integer livroId : livroIds) {
+            parametros.add(new Object[]{novoStatus.name(), livroId, statusAtual.name()});
+        }
+        return executar("UPDATE livro SET status = ?, versao = versao + 1 WHERE id = ? AND status = ?", parametros);
+    }
+
+    private int[] executar(String sql, List<Object[]> parametros) {
+        if (parametros.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(sql, parametros);
+    }
+}
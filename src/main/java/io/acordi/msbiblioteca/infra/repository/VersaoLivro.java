@@ -0,0 +1,12 @@
+package io.acordi.msbiblioteca.infra.repository;
+
+/**
+ * Versão de um livro e dos seus autores, que aparecem pelo nome no LivroDTO. A quantidade
+ * de autores distingue a exclusão de um autor, que não altera a versão do livro.
+ */
+public record VersaoLivro(Long versao, Long autores, Long somaVersoesAutores) {
+
+    public String etag() {
+        return versao + "." + autores + "." + somaVersoesAutores;
+    }
+}
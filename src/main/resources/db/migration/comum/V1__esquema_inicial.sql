@@ -0,0 +1,56 @@
+-- Esquema mantido manualmente até a adoção das migrações. Em bancos que já existiam, esta versão
+-- é só registrada (spring.flyway.baseline-version), sem ser executada; as alterações seguintes
+-- vêm das próximas versões.
+
+CREATE TABLE autor (
+    id INT NOT NULL AUTO_INCREMENT,
+    nome VARCHAR(100) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE livro (
+    id INT NOT NULL AUTO_INCREMENT,
+    titulo VARCHAR(200) NOT NULL,
+    ano_publicacao INT,
+    status VARCHAR(20),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE livro_autor (
+    livro_id INT NOT NULL,
+    autor_id INT NOT NULL,
+    PRIMARY KEY (livro_id, autor_id),
+    CONSTRAINT fk_livro_autor_livro FOREIGN KEY (livro_id) REFERENCES livro (id),
+    CONSTRAINT fk_livro_autor_autor FOREIGN KEY (autor_id) REFERENCES autor (id)
+);
+
+CREATE TABLE membro (
+    id INT NOT NULL AUTO_INCREMENT,
+    nome VARCHAR(100) NOT NULL,
+    email VARCHAR(150) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_membro_email UNIQUE (email)
+);
+
+CREATE TABLE emprestimo (
+    id INT NOT NULL AUTO_INCREMENT,
+    membro_id INT,
+    livro_id INT,
+    data_emprestimo DATE NOT NULL,
+    data_devolucao_prevista DATE NOT NULL,
+    data_devolucao DATE,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_emprestimo_membro FOREIGN KEY (membro_id) REFERENCES membro (id),
+    CONSTRAINT fk_emprestimo_livro FOREIGN KEY (livro_id) REFERENCES livro (id)
+);
+
+CREATE TABLE multa (
+    id INT NOT NULL AUTO_INCREMENT,
+    emprestimo_id INT,
+    membro_id INT,
+    valor DECIMAL(6,2),
+    data_geracao DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_multa_emprestimo FOREIGN KEY (emprestimo_id) REFERENCES emprestimo (id),
+    CONSTRAINT fk_multa_membro FOREIGN KEY (membro_id) REFERENCES membro (id)
+);
@@ -0,0 +1,5 @@
+-- Contador de empréstimos ativos de cada membro, usado pela reserva condicional do empréstimo
+ALTER TABLE membro ADD COLUMN emprestimos_ativos INT NOT NULL DEFAULT 0;
+
+UPDATE membro m SET emprestimos_ativos =
+    (SELECT COUNT(*) FROM emprestimo e WHERE e.membro_id = m.id AND e.data_devolucao IS NULL);
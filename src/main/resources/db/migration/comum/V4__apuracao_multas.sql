@@ -0,0 +1,13 @@
+-- Apuração das multas pela aplicação (MultaService.apurarMultas), em lotes com checkpoint. As
+-- devoluções já registradas tiveram a multa gerada pelo trigger removido na V5 e não são apuradas
+-- de novo
+ALTER TABLE emprestimo ADD COLUMN multa_apurada BOOLEAN NOT NULL DEFAULT FALSE;
+
+UPDATE emprestimo SET multa_apurada = TRUE WHERE data_devolucao IS NOT NULL;
+
+CREATE TABLE job_checkpoint (
+    nome VARCHAR(50) NOT NULL,
+    ultimo_id INT NOT NULL,
+    atualizado_em DATETIME(6),
+    PRIMARY KEY (nome)
+);
@@ -0,0 +1,5 @@
+-- Saldo de multas de cada membro, mantido pela aplicação e conferido pela reconciliação diária
+ALTER TABLE membro ADD COLUMN total_multas DECIMAL(10,2) NOT NULL DEFAULT 0;
+
+UPDATE membro m SET total_multas =
+    COALESCE((SELECT SUM(mu.valor) FROM multa mu WHERE mu.membro_id = m.id), 0);
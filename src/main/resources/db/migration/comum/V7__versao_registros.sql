@@ -0,0 +1,5 @@
+-- Versão dos registros, base dos ETags e da detecção de alterações concorrentes (@Version)
+ALTER TABLE livro ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE autor ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE membro ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE emprestimo ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
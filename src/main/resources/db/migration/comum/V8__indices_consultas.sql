@@ -0,0 +1,39 @@
+-- Índices das consultas dos repositórios (infra.repository). As buscas por chave primária, por
+-- livro_autor(livro_id, ...) e por membro.email já são atendidas pelas chaves do esquema.
+-- O plano de cada consulta é conferido por PlanoConsultasTest.
+
+-- Livros por ano (findByAnoPublicacao, findByAnoPublicacaoBetween, findAutoresByAnoPublicacao)
+CREATE INDEX idx_livro_ano_publicacao ON livro (ano_publicacao);
+
+-- Livros de um autor (findByAutorId), sem ler a tabela livro_autor
+CREATE INDEX idx_livro_autor_autor ON livro_autor (autor_id, livro_id);
+
+-- Membros por empréstimos ativos (findMembrosComEmprestimosAtivos, findMembrosComEmprestimosCompletos)
+CREATE INDEX idx_membro_emprestimos_ativos ON membro (emprestimos_ativos);
+
+-- Empréstimos de um membro, todos ou só os ativos (findByMembroId, findEmprestimosAtivosByMembro,
+-- countEmprestimosAtivosByMembro e as subconsultas de MembroRepository)
+CREATE INDEX idx_emprestimo_membro_devolucao ON emprestimo (membro_id, data_devolucao);
+
+-- Empréstimos de um livro, já na ordem do histórico (findByLivroId, findEmprestimosHistoricoByLivro)
+CREATE INDEX idx_emprestimo_livro_data ON emprestimo (livro_id, data_emprestimo);
+
+-- Empréstimos por período (streamParaExportacao); os de um membro usam idx_emprestimo_membro_devolucao
+CREATE INDEX idx_emprestimo_data ON emprestimo (data_emprestimo);
+
+-- Empréstimos ativos em ordem de ID com a data prevista, sem consultar a tabela (findVencimentosAtivos),
+-- além de findEmprestimosAtivos, findLivroIdsComEmprestimoAtivo e findByDataDevolucaoBetween
+CREATE INDEX idx_emprestimo_devolucao ON emprestimo (data_devolucao, id, data_devolucao_prevista);
+
+-- Devoluções ainda sem multa apurada, em ordem de ID (findDevolucoesPendentesDeMulta)
+CREATE INDEX idx_emprestimo_multa_apurada ON emprestimo (multa_apurada, id);
+
+-- Multas de um membro e seu total, sem consultar a tabela (findByMembroId, findTotaisPorMembroByMembroIdIn)
+CREATE INDEX idx_multa_membro_valor ON multa (membro_id, valor);
+
+-- Multas de um empréstimo (findByEmprestimoId, existsByEmprestimoId)
+CREATE INDEX idx_multa_emprestimo ON multa (emprestimo_id);
+
+-- Multas por período e por valor (findByDataGeracaoBetween, findByValorGreaterThan)
+CREATE INDEX idx_multa_data_geracao ON multa (data_geracao);
+CREATE INDEX idx_multa_valor ON multa (valor);
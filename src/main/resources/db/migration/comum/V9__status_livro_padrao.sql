@@ -0,0 +1,3 @@
+-- O status do livro nasce DISPONIVEL pelo banco: o INSERT da aplicação não envia a coluna
+UPDATE livro SET status = 'DISPONIVEL' WHERE status IS NULL;
+ALTER TABLE livro ALTER COLUMN status SET DEFAULT 'DISPONIVEL';
@@ -0,0 +1,3 @@
+-- No H2 (testes e teste de carga), emprestimo_seq é uma sequência; o incremento é o allocationSize
+-- de Emprestimo. Os bancos H2 são sempre criados pelas migrações, com a tabela vazia
+CREATE SEQUENCE emprestimo_seq START WITH 1 INCREMENT BY 50;
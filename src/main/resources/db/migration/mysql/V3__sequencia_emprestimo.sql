@@ -0,0 +1,7 @@
+-- Os IDs de empréstimo passam a vir de emprestimo_seq, para permitir inserts em lote; o
+-- AUTO_INCREMENT da coluna fica sem uso. O MySQL não tem sequências: o Hibernate emula
+-- emprestimo_seq com uma tabela de uma linha. Com o otimizador pooled (allocationSize = 50), o
+-- valor lido é o fim do bloco de IDs que a instância passa a usar, então a semente fica 50 acima
+-- do maior ID existente
+CREATE TABLE emprestimo_seq (next_val BIGINT);
+INSERT INTO emprestimo_seq SELECT COALESCE(MAX(id), 0) + 50 FROM emprestimo;
@@ -0,0 +1,331 @@
+package io.acordi.msbiblioteca.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.acordi.msbiblioteca.infra.index.BuscaIndex;
+import io.acordi.msbiblioteca.infra.index.DisponibilidadeIndex;
+import io.acordi.msbiblioteca.infra.index.RankingIndex;
+import io.acordi.msbiblioteca.infra.index.VencimentoIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Carga de ponta a ponta sobre os endpoints de livros, empréstimos e multas, com o banco H2
+ * em arquivo (perfil carga) populado pelo {@link GeradorDados}. A massa é gerada na primeira
+ * execução e reaproveitada nas seguintes; apague build/carga para gerá-la de novo.
+ * <p>
+ * Cada cliente escolhe a próxima operação por peso, imitando o uso real: muitas consultas ao
+ * catálogo, empréstimos e devoluções em menor proporção. Ao final, imprime e grava em
+ * build/reports/carga/resultado.json a vazão e os percentis de latência por endpoint.
+ * Executar com ./gradlew carga; os volumes e a duração podem ser ajustados com
+ * -Dcarga.livros, -Dcarga.membros, -Dcarga.emprestimos, -Dcarga.clientes e -Dcarga.duracao-s.
+ */
+@Tag("carga")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("carga")
+class CargaEndpointsTest {
+
+    private static final int AUTORES = Integer.getInteger("carga.autores", 50_000);
+    private static final int LIVROS = Integer.getInteger("carga.livros", 300_000);
+    private static final int MEMBROS = Integer.getInteger("carga.membros", 200_000);
+    private static final int EMPRESTIMOS = Integer.getInteger("carga.emprestimos", 2_000_000);
+    private static final int CLIENTES = Integer.getInteger("carga.clientes", 64);
+    private static final Duration AQUECIMENTO = Duration.ofSeconds(Integer.getInteger("carga.aquecimento-s", 20));
+    private static final Duration MEDICAO = Duration.ofSeconds(Integer.getInteger("carga.duracao-s", 60));
+    private static final Path RESULTADO = Path.of("build", "reports", "carga", "resultado.json");
+
+    // Empréstimos em aberto por cliente; o limite da aplicação é 3 por membro
+    private static final int EMPRESTIMOS_ABERTOS = 2;
+
+    /**
+     * Operações e pesos do mix. Os endpoints que listam tabelas inteiras sem paginação
+     * (ex.: /multas/maiores-valores) ficam de fora, pois com milhões de linhas medem apenas
+     * o tamanho da resposta.
+     */
+    private enum Operacao {
+        LISTAR_LIVROS("GET /livros", 8),
+        BUSCAR_LIVRO("GET /livros/{id}", 20),
+        PESQUISAR_LIVROS("GET /livros/search", 10),
+        SORTEAR_LIVROS("GET /livros/random", 4),
+        MAIS_EMPRESTADOS("GET /livros/mais-emprestados", 2),
+        EMPRESTIMOS_MEMBRO("GET /emprestimos/membro/{id}", 8),
+        EMPRESTIMOS_ATIVOS_MEMBRO("GET /emprestimos/ativos/membro/{id}", 8),
+        CONTAR_ATRASADOS("GET /emprestimos/count/atrasados", 2),
+        EMPRESTAR("POST /emprestimos", 6),
+        DEVOLVER("PUT /emprestimos/{id}/devolucao", 6),
+        LISTAR_MULTAS("GET /multas", 4),
+        MULTAS_MEMBRO("GET /multas/membro/{id}", 6),
+        TOTAL_MULTAS_MEMBRO("GET /multas/total/membro/{id}", 6),
+        MEMBROS_MAIS_MULTAS("GET /membros/mais-multas", 2);
+
+        private final String endpoint;
+
+        private final int peso;
+
+        Operacao(String endpoint, int peso) {
+            this.endpoint = endpoint;
+            this.peso = peso;
+        }
+    }
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BuscaIndex buscaIndex;
+
+    @Autowired
+    private DisponibilidadeIndex disponibilidadeIndex;
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Autowired
+    private VencimentoIndex vencimentoIndex;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    private final Map<String, AtomicLong> erros = new ConcurrentHashMap<>();
+
+    @Test
+    void mixRealistaDeLivrosEmprestimosEMultas() throws Exception {
+        GeradorDados gerador = new GeradorDados(jdbcTemplate);
+        if (gerador.vazio()) {
+            long inicio = System.nanoTime();
+            gerador.gerar(AUTORES, LIVROS, MEMBROS, EMPRESTIMOS);
+            System.out.printf("Massa gerada em %d s: %,d livros, %,d membros, %,d empréstimos%n",
+                    Duration.ofNanos(System.nanoTime() - inicio).toSeconds(), LIVROS, MEMBROS, EMPRESTIMOS);
+        }
+        // Os índices foram carregados na subida, antes da massa existir
+        buscaIndex.reconstruir();
+        disponibilidadeIndex.reconstruir();
+        rankingIndex.reconstruir();
+        vencimentoIndex.reconstruir();
+
+        long inicioMedicao = System.nanoTime() + AQUECIMENTO.toNanos();
+        long fim = inicioMedicao + MEDICAO.toNanos();
+        List<Map<String, List<Long>>> porCliente = new ArrayList<>();
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Map<String, List<Long>>>> futuros = new ArrayList<>();
+            for (int cliente = 1; cliente <= CLIENTES; cliente++) {
+                Sessao sessao = new Sessao(cliente);
+                futuros.add(clientes.submit(() -> sessao.executar(inicioMedicao, fim)));
+            }
+            for (Future<Map<String, List<Long>>> futuro : futuros) {
+                porCliente.add(futuro.get());
+            }
+        }
+
+        Map<String, Resultado> resultados = resumir(porCliente);
+        imprimir(resultados);
+        gravar(resultados);
+        assertThat(erros).isEmpty();
+    }
+
+    private Map<String, Resultado> resumir(List<Map<String, List<Long>>> porCliente) {
+        Map<String, List<Long>> latencias = new TreeMap<>();
+        for (Map<String, List<Long>> cliente : porCliente) {
+            cliente.forEach((endpoint, valores) -> latencias.computeIfAbsent(endpoint, e -> new ArrayList<>()).addAll(valores));
+        }
+        Map<String, Resultado> resultados = new LinkedHashMap<>();
+        latencias.forEach((endpoint, valores) -> {
+            long[] ordenadas = valores.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(ordenadas);
+            resultados.put(endpoint, new Resultado(
+                    ordenadas.length,
+                    ordenadas.length / (double) MEDICAO.toSeconds(),
+                    percentil(ordenadas, 0.50),
+                    percentil(ordenadas, 0.90),
+                    percentil(ordenadas, 0.99),
+                    percentil(ordenadas, 0.999),
+                    ordenadas[ordenadas.length - 1] / 1e6,
+                    erros.getOrDefault(endpoint, new AtomicLong()).get()));
+        });
+        return resultados;
+    }
+
+    private static double percentil(long[] ordenadas, double percentil) {
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(indice, 0)] / 1e6;
+    }
+
+    private static void imprimir(Map<String, Resultado> resultados) {
+        System.out.printf("%-38s %10s %9s %9s %9s %9s %9s %9s %6s%n",
+                "endpoint", "requisições", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "máx ms", "erros");
+        resultados.forEach((endpoint, r) -> System.out.printf("%-38s %10d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %6d%n",
+                endpoint, r.requisicoes(), r.porSegundo(), r.p50Ms(), r.p90Ms(), r.p99Ms(), r.p999Ms(), r.maximoMs(), r.erros()));
+    }
+
+    private void gravar(Map<String, Resultado> resultados) throws IOException {
+        Files.createDirectories(RESULTADO.getParent());
+        Map<String, Object> relatorio = new LinkedHashMap<>();
+        relatorio.put("clientes", CLIENTES);
+        relatorio.put("duracaoSegundos", MEDICAO.toSeconds());
+        relatorio.put("livros", LIVROS);
+        relatorio.put("membros", MEMBROS);
+        relatorio.put("emprestimos", EMPRESTIMOS);
+        relatorio.put("endpoints", resultados);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(RESULTADO.toFile(), relatorio);
+    }
+
+    /**
+     * Um cliente da carga. Empresta sempre com o mesmo membro e com livros de uma faixa
+     * própria dentro dos reservados pelo gerador, para não esbarrar no limite de
+     * empréstimos nem disputar livros com os outros clientes.
+     */
+    private class Sessao {
+
+        private final int membroProprio;
+
+        private final Deque<Integer> emprestimosAbertos = new ArrayDeque<>();
+
+        private int proximoLivro;
+
+        private final Map<String, List<Long>> latencias = new TreeMap<>();
+
+        private final int pesoTotal = Arrays.stream(Operacao.values()).mapToInt(operacao -> operacao.peso).sum();
+
+        Sessao(int cliente) {
+            this.membroProprio = cliente;
+            this.proximoLivro = cliente;
+        }
+
+        Map<String, List<Long>> executar(long inicioMedicao, long fim) throws Exception {
+            while (System.nanoTime() < fim) {
+                executar(sortear(), System.nanoTime() >= inicioMedicao);
+            }
+            // Devolve o que ficou em aberto, para que a próxima execução encontre os livros e o membro livres
+            while (!emprestimosAbertos.isEmpty()) {
+                devolver(false);
+            }
+            return latencias;
+        }
+
+        private Operacao sortear() {
+            int valor = ThreadLocalRandom.current().nextInt(pesoTotal);
+            for (Operacao operacao : Operacao.values()) {
+                valor -= operacao.peso;
+                if (valor < 0) {
+                    return operacao;
+                }
+            }
+            throw new IllegalStateException();
+        }
+
+        private void executar(Operacao operacao, boolean medindo) throws Exception {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            int livro = aleatorio.nextInt(LIVROS) + 1;
+            int membro = aleatorio.nextInt(MEMBROS) + 1;
+            switch (operacao) {
+                case LISTAR_LIVROS -> get(operacao, "/livros?cursor=" + aleatorio.nextInt(LIVROS), medindo);
+                case BUSCAR_LIVRO -> get(operacao, "/livros/" + livro, medindo);
+                case PESQUISAR_LIVROS -> get(operacao, "/livros/search?titulo="
+                        + URLEncoder.encode(GeradorDados.PALAVRAS[aleatorio.nextInt(GeradorDados.PALAVRAS.length)], StandardCharsets.UTF_8), medindo);
+                case SORTEAR_LIVROS -> get(operacao, "/livros/random?limit=10&disponiveis=true", medindo);
+                case MAIS_EMPRESTADOS -> get(operacao, "/livros/mais-emprestados", medindo);
+                case EMPRESTIMOS_MEMBRO -> get(operacao, "/emprestimos/membro/" + membro, medindo);
+                case EMPRESTIMOS_ATIVOS_MEMBRO -> get(operacao, "/emprestimos/ativos/membro/" + membro, medindo);
+                case CONTAR_ATRASADOS -> get(operacao, "/emprestimos/count/atrasados", medindo);
+                case EMPRESTAR -> emprestar(medindo);
+                case DEVOLVER -> devolver(medindo);
+                case LISTAR_MULTAS -> get(operacao, "/multas?cursor=" + aleatorio.nextInt(EMPRESTIMOS / 10), medindo);
+                case MULTAS_MEMBRO -> get(operacao, "/multas/membro/" + membro, medindo);
+                case TOTAL_MULTAS_MEMBRO -> get(operacao, "/multas/total/membro/" + membro, medindo);
+                case MEMBROS_MAIS_MULTAS -> get(operacao, "/membros/mais-multas", medindo);
+            }
+        }
+
+        private void emprestar(boolean medindo) throws Exception {
+            if (emprestimosAbertos.size() >= EMPRESTIMOS_ABERTOS) {
+                devolver(medindo);
+            }
+            // Livros do cliente c: c, c + CLIENTES, c + 2 * CLIENTES... dentro da faixa reservada
+            int livro = proximoLivro;
+            proximoLivro = proximoLivro + CLIENTES > GeradorDados.RESERVADOS ? membroProprio : proximoLivro + CLIENTES;
+            String corpo = "{\"membroId\":%d,\"livroId\":%d,\"dataEmprestimo\":\"%s\",\"dataDevolucaoPrevista\":\"%s\"}"
+                    .formatted(membroProprio, livro, LocalDate.now(), LocalDate.now().plusDays(14));
+            HttpResponse<String> resposta = chamar(Operacao.EMPRESTAR, HttpRequest.newBuilder(uri("/emprestimos"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(corpo)), 201, medindo);
+            if (resposta.statusCode() == 201) {
+                emprestimosAbertos.addLast(objectMapper.readTree(resposta.body()).get("id").asInt());
+            }
+        }
+
+        private void devolver(boolean medindo) throws Exception {
+            Integer emprestimo = emprestimosAbertos.pollFirst();
+            if (emprestimo == null) {
+                emprestar(medindo);
+                return;
+            }
+            chamar(Operacao.DEVOLVER, HttpRequest.newBuilder(uri("/emprestimos/" + emprestimo + "/devolucao"))
+                    .PUT(HttpRequest.BodyPublishers.noBody()), 200, medindo);
+        }
+
+        private void get(Operacao operacao, String caminho, boolean medindo) throws Exception {
+            chamar(operacao, HttpRequest.newBuilder(uri(caminho)).GET(), 200, medindo);
+        }
+
+        private HttpResponse<String> chamar(Operacao operacao, HttpRequest.Builder requisicao, int statusEsperado,
+                                            boolean medindo) throws Exception {
+            long inicio = System.nanoTime();
+            HttpResponse<String> resposta = http.send(requisicao.build(), HttpResponse.BodyHandlers.ofString());
+            long duracao = System.nanoTime() - inicio;
+            if (resposta.statusCode() != statusEsperado) {
+                erros.computeIfAbsent(operacao.endpoint, e -> new AtomicLong()).incrementAndGet();
+            } else if (medindo) {
+                latencias.computeIfAbsent(operacao.endpoint, e -> new ArrayList<>()).add(duracao);
+            }
+            return resposta;
+        }
+
+        private URI uri(String caminho) {
+            return URI.create("http://localhost:" + porta + caminho);
+        }
+    }
+
+    private record Resultado(long requisicoes, double porSegundo, double p50Ms, double p90Ms, double p99Ms,
+                             double p999Ms, double maximoMs, long erros) {
+    }
+}
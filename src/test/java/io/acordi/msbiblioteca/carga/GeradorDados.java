@@ -0,0 +1,185 @@
+package io.acordi.msbiblioteca.carga;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Gera uma massa sintética de autores, livros, membros, empréstimos e multas por inserts
+ * em lote JDBC, já consistente com o que a aplicação manteria: status dos livros
+ * emprestados, contadores de empréstimos ativos, multas das devoluções atrasadas
+ * (com multa_apurada marcado) e saldo de multas dos membros.
+ * <p>
+ * Os primeiros {@link #RESERVADOS} livros e membros não recebem empréstimos ativos, para
+ * que os clientes da carga possam emprestá-los sem disputar os mesmos registros.
+ */
+class GeradorDados {
+
+    static final int RESERVADOS = 10_000;
+
+    static final String[] PALAVRAS = {
+            "amor", "guerra", "casa", "noite", "mar", "cidade", "sombra", "vento", "terra", "fogo",
+            "segredo", "viagem", "memórias", "história", "caminho", "jardim", "rio", "sertão", "ilha", "tempo",
+            "sol", "lua", "estrela", "porto", "montanha", "coração", "silêncio", "janela", "cartas", "sonho",
+            "destino", "verão", "inverno", "labirinto", "espelho", "pedra", "livro", "palavra", "retrato", "floresta"
+    };
+
+    private static final int TAMANHO_LOTE = 10_000;
+    private static final int DIAS_HISTORICO = 3 * 365;
+    private static final int PRAZO_DIAS = 14;
+    private static final BigDecimal VALOR_POR_DIA = new BigDecimal("1.00");
+    private static final BigDecimal VALOR_MAXIMO = new BigDecimal("100.00");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Random aleatorio = new Random(42);
+
+    GeradorDados(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    boolean vazio() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM livro", Long.class) == 0;
+    }
+
+    void gerar(int autores, int livros, int membros, int emprestimos) {
+        if (livros <= RESERVADOS || membros <= RESERVADOS) {
+            throw new IllegalArgumentException("São necessários mais de " + RESERVADOS + " livros e membros");
+        }
+        gerarAutores(autores);
+        gerarLivros(livros, autores);
+        gerarMembros(membros);
+        gerarEmprestimos(emprestimos, livros, membros);
+
+        // Estado derivado, mantido pela aplicação durante a operação normal
+        jdbcTemplate.update("UPDATE livro SET status = 'EMPRESTADO' WHERE id IN " +
+                "(SELECT livro_id FROM emprestimo WHERE data_devolucao IS NULL)");
+        jdbcTemplate.update("UPDATE membro m SET emprestimos_ativos = " +
+                "(SELECT COUNT(*) FROM emprestimo e WHERE e.membro_id = m.id AND e.data_devolucao IS NULL)");
+        jdbcTemplate.update("UPDATE membro m SET total_multas = " +
+                "COALESCE((SELECT SUM(valor) FROM multa WHERE membro_id = m.id), 0)");
+    }
+
+    private void gerarAutores(int quantidade) {
+        inserirEmLotes("INSERT INTO autor (id, nome) VALUES (?, ?)", quantidade,
+                id -> new Object[]{id, "Autor " + palavra() + " " + id});
+    }
+
+    private void gerarLivros(int quantidade, int autores) {
+        inserirEmLotes("INSERT INTO livro (id, titulo, ano_publicacao, status) VALUES (?, ?, ?, 'DISPONIVEL')", quantidade,
+                id -> new Object[]{id, titulo(id), 1850 + aleatorio.nextInt(175)});
+        List<Object[]> linhas = new ArrayList<>(TAMANHO_LOTE);
+        for (int livroId = 1; livroId <= quantidade; livroId++) {
+            int primeiro = aleatorio.nextInt(autores) + 1;
+            int quantidadeAutores = 1 + aleatorio.nextInt(3);
+            for (int i = 0; i < quantidadeAutores; i++) {
+                linhas.add(new Object[]{livroId, (primeiro + i - 1) % autores + 1});
+            }
+            if (linhas.size() >= TAMANHO_LOTE) {
+                jdbcTemplate.batchUpdate("INSERT INTO livro_autor (livro_id, autor_id) VALUES (?, ?)", linhas);
+                linhas.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO livro_autor (livro_id, autor_id) VALUES (?, ?)", linhas);
+    }
+
+    private void gerarMembros(int quantidade) {
+        inserirEmLotes("INSERT INTO membro (id, nome, email) VALUES (?, ?, ?)", quantidade,
+                id -> new Object[]{id, "Membro " + id, "membro" + id + "@carga.biblioteca"});
+    }
+
+    /**
+     * Cerca de 2% dos empréstimos ficam ativos, cada um em um livro diferente fora da faixa
+     * reservada e com no máximo 3 por membro; os demais foram devolvidos nos últimos três anos,
+     * alguns com atraso e a multa correspondente.
+     */
+    private void gerarEmprestimos(int quantidade, int livros, int membros) {
+        LocalDate hoje = LocalDate.now();
+        int livrosLivres = livros - RESERVADOS;
+        int membrosLivres = membros - RESERVADOS;
+        int ativos = Math.min(Math.min(quantidade / 50, livrosLivres), 3 * membrosLivres);
+
+        List<Object[]> emprestimos = new ArrayList<>(TAMANHO_LOTE);
+        List<Object[]> multas = new ArrayList<>();
+        for (int id = 1; id <= quantidade; id++) {
+            int livroId;
+            int membroId;
+            LocalDate emprestimo;
+            LocalDate devolucao = null;
+            if (id <= ativos) {
+                livroId = RESERVADOS + id;
+                membroId = RESERVADOS + 1 + (id - 1) % membrosLivres;
+                emprestimo = hoje.minusDays(aleatorio.nextInt(30));
+            } else {
+                livroId = aleatorio.nextInt(livros) + 1;
+                membroId = aleatorio.nextInt(membros) + 1;
+                emprestimo = hoje.minusDays(PRAZO_DIAS + 1 + aleatorio.nextInt(DIAS_HISTORICO));
+                // A maioria devolve no prazo; a cauda atrasa até 60 dias
+                int atraso = aleatorio.nextInt(10) < 8 ? -aleatorio.nextInt(PRAZO_DIAS) : 1 + aleatorio.nextInt(60);
+                devolucao = emprestimo.plusDays(PRAZO_DIAS + atraso);
+                if (devolucao.isAfter(hoje)) {
+                    devolucao = hoje;
+                }
+            }
+            LocalDate prevista = emprestimo.plusDays(PRAZO_DIAS);
+            emprestimos.add(new Object[]{id, membroId, livroId, Date.valueOf(emprestimo), Date.valueOf(prevista),
+                    devolucao != null ? Date.valueOf(devolucao) : null, devolucao != null});
+
+            if (devolucao != null && devolucao.isAfter(prevista)) {
+                BigDecimal valor = VALOR_POR_DIA.multiply(BigDecimal.valueOf(ChronoUnit.DAYS.between(prevista, devolucao)))
+                        .min(VALOR_MAXIMO);
+                multas.add(new Object[]{id, membroId, valor, Timestamp.valueOf(devolucao.atStartOfDay())});
+            }
+            if (emprestimos.size() >= TAMANHO_LOTE) {
+                inserirEmprestimos(emprestimos, multas);
+            }
+        }
+        inserirEmprestimos(emprestimos, multas);
+
+        // O gerador de IDs do Hibernate continua depois dos IDs inseridos aqui
+        jdbcTemplate.execute("ALTER SEQUENCE emprestimo_seq RESTART WITH " + (quantidade + 100));
+    }
+
+    private void inserirEmprestimos(List<Object[]> emprestimos, List<Object[]> multas) {
+        jdbcTemplate.batchUpdate("INSERT INTO emprestimo (id, membro_id, livro_id, data_emprestimo, " +
+                "data_devolucao_prevista, data_devolucao, multa_apurada) VALUES (?, ?, ?, ?, ?, ?, ?)", emprestimos);
+        jdbcTemplate.batchUpdate("INSERT INTO multa (emprestimo_id, membro_id, valor, data_geracao) VALUES (?, ?, ?, ?)", multas);
+        emprestimos.clear();
+        multas.clear();
+    }
+
+    private void inserirEmLotes(String sql, int quantidade, IntFunction<Object[]> linha) {
+        List<Object[]> linhas = new ArrayList<>(TAMANHO_LOTE);
+        for (int id = 1; id <= quantidade; id++) {
+            linhas.add(linha.apply(id));
+            if (linhas.size() == TAMANHO_LOTE) {
+                jdbcTemplate.batchUpdate(sql, linhas);
+                linhas.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(sql, linhas);
+        // As tabelas com IDENTITY continuam a numeração depois dos IDs explícitos
+        String tabela = sql.substring("INSERT INTO ".length(), sql.indexOf(' ', "INSERT INTO ".length()));
+        jdbcTemplate.execute("ALTER TABLE " + tabela + " ALTER COLUMN id RESTART WITH " + (quantidade + 1));
+    }
+
+    private String titulo(int id) {
+        return capitalizar(palavra()) + " " + palavra() + " " + palavra() + " " + id;
+    }
+
+    private String palavra() {
+        return PALAVRAS[aleatorio.nextInt(PALAVRAS.length)];
+    }
+
+    private static String capitalizar(String palavra) {
+        return Character.toUpperCase(palavra.charAt(0)) + palavra.substring(1);
+    }
+}
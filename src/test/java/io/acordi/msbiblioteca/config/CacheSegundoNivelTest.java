@@ -0,0 +1,153 @@
+package io.acordi.msbiblioteca.config;
+
+import io.acordi.msbiblioteca.domain.entities.Autor;
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.infra.repository.AutorRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.ReservaLoteRepository;
+import io.acordi.msbiblioteca.sql.ContadorSql;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CacheSegundoNivelTest {
+
+    private static final int ANO = 1950;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private ReservaLoteRepository reservaLoteRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Autor autor;
+
+    private Livro livro;
+
+    @BeforeEach
+    void popular() {
+        entityManagerFactory.getCache().evictAll();
+
+        autor = new Autor();
+        autor.setNome("Autor em cache");
+        autor = autorRepository.save(autor);
+
+        livro = new Livro();
+        livro.setTitulo("Livro fora do cache");
+        livro.setAnoPublicacao(ANO);
+        livro.setStatus(StatusLivro.DISPONIVEL);
+        livro.setAutores(Set.of(autor));
+        livro = livroRepository.save(livro);
+    }
+
+    @AfterEach
+    void limpar() {
+        livroRepository.deleteAll();
+        autorRepository.deleteAll();
+    }
+
+    @Test
+    void autorVemDoCacheNaSegundaLeitura() {
+        carregarAutor(autor.getId());
+
+        assertThat(ContadorSql.medir(() -> carregarAutor(autor.getId()))).isEmpty();
+    }
+
+    @Test
+    void statusGravadoEmUmaSessaoApareceNaLeituraDeOutra() {
+        assertThat(carregarLivro(livro.getId()).getStatus()).isEqualTo(StatusLivro.DISPONIVEL);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                assertThat(reservaLoteRepository.reservarLivros(List.of(livro.getId()))).containsExactly(1));
+
+        Livro relido = carregarLivro(livro.getId());
+        assertThat(relido.getStatus()).isEqualTo(StatusLivro.EMPRESTADO);
+        assertThat(relido.getVersao()).isEqualTo(livro.getVersao() + 1);
+    }
+
+    @Test
+    void transacaoDeEscritaNaoLeOAutorDoCache() {
+        carregarAutor(autor.getId());
+        // Como uma alteração feita em outra instância, que o cache desta não vê
+        jdbcTemplate.update("UPDATE autor SET nome = 'Renomeado', versao = versao + 1 WHERE id = ?", autor.getId());
+
+        Autor naEscrita = new TransactionTemplate(transactionManager).execute(status ->
+                autorRepository.findById(autor.getId()).orElseThrow());
+        assertThat(naEscrita.getNome()).isEqualTo("Renomeado");
+        assertThat(naEscrita.getVersao()).isEqualTo(autor.getVersao() + 1);
+        // E a leitura do banco atualiza o cache
+        assertThat(carregarAutor(autor.getId()).getNome()).isEqualTo("Renomeado");
+    }
+
+    @Test
+    void consultaDoCatalogoVemDoCacheAteOCatalogoMudar() {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        assertThat(autorRepository.findAutoresByAnoPublicacao(ANO)).hasSize(1);
+
+        long acertos = estatisticas.getQueryCacheHitCount();
+        assertThat(autorRepository.findAutoresByAnoPublicacao(ANO)).hasSize(1);
+        assertThat(estatisticas.getQueryCacheHitCount()).isEqualTo(acertos + 1);
+
+        // Um livro novo gravado pelo EntityManager invalida os resultados que envolvem a tabela livro
+        Autor outroAutor = new Autor();
+        outroAutor.setNome("Outro autor");
+        outroAutor = autorRepository.save(outroAutor);
+        Livro outro = new Livro();
+        outro.setTitulo("Outro livro");
+        outro.setAnoPublicacao(ANO);
+        outro.setStatus(StatusLivro.DISPONIVEL);
+        outro.setAutores(Set.of(outroAutor));
+        livroRepository.save(outro);
+
+        assertThat(autorRepository.findAutoresByAnoPublicacao(ANO)).hasSize(2);
+    }
+
+    // Cada leitura em um EntityManager novo: só o cache de segundo nível evita a consulta
+    private Autor carregarAutor(Integer id) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.find(Autor.class, id);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private Livro carregarLivro(Integer id) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.find(Livro.class, id);
+        } finally {
+            entityManager.close();
+        }
+    }
+}
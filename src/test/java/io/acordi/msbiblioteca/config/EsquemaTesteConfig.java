@@ -0,0 +1,23 @@
+package io.acordi.msbiblioteca.config;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Os contextos de teste com propriedades diferentes compartilham o mesmo banco H2 em memória.
+ * Cada um começa com o esquema recriado pelas migrações e sem dados, como fazia o create-drop.
+ */
+@Configuration
+@Profile("test")
+public class EsquemaTesteConfig {
+
+    @Bean
+    public FlywayMigrationStrategy recriarEsquema() {
+        return flyway -> {
+            flyway.clean();
+            flyway.migrate();
+        };
+    }
+}
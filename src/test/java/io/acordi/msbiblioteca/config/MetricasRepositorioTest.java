@@ -0,0 +1,97 @@
+package io.acordi.msbiblioteca.config;
+
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.MultaLoteRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MetricasRepositorioTest {
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private MultaLoteRepository multaLoteRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void limpar() {
+        livroRepository.deleteAll();
+    }
+
+    @Test
+    void registraTempoELinhasPorRepositorioEMetodo() {
+        for (int i = 0; i < 3; i++) {
+            Livro livro = new Livro();
+            livro.setTitulo("Livro " + i);
+            livro.setStatus(StatusLivro.DISPONIVEL);
+            livroRepository.save(livro);
+        }
+
+        // Os índices em memória também chamam este método ao subir a aplicação
+        long chamadas = execucoes().count();
+        double linhas = linhas().totalAmount();
+
+        assertThat(livroRepository.findIdsByIdGreaterThan(0, PageRequest.of(0, 10))).hasSize(3);
+
+        assertThat(execucoes().count()).isEqualTo(chamadas + 1);
+        assertThat(linhas().totalAmount()).isEqualTo(linhas + 3);
+    }
+
+    @Test
+    void cobreOsRepositoriosJdbc() {
+        multaLoteRepository.acumularTotaisMembros(Map.of());
+        multaLoteRepository.inserir(List.of());
+
+        assertThat(meterRegistry.get("biblioteca.repositorio.execucao")
+                .tag("repositorio", "MultaLoteRepository")
+                .timers())
+                .extracting(timer -> timer.getId().getTag("metodo"))
+                .contains("acumularTotaisMembros", "inserir");
+    }
+
+    @Test
+    void contaLinhasConformeOTipoDeRetorno() {
+        assertThat(MetricasRepositorioPostProcessor.contarLinhas(List.of(1, 2), false)).isEqualTo(2);
+        assertThat(MetricasRepositorioPostProcessor.contarLinhas(Optional.empty(), false)).isZero();
+        assertThat(MetricasRepositorioPostProcessor.contarLinhas(new int[]{1, -2, 1}, false)).isEqualTo(2);
+        assertThat(MetricasRepositorioPostProcessor.contarLinhas(5, true)).isEqualTo(5);
+        assertThat(MetricasRepositorioPostProcessor.contarLinhas(5L, false)).isEqualTo(1);
+        assertThat(MetricasRepositorioPostProcessor.contarLinhas(BigDecimal.TEN, false)).isEqualTo(1);
+    }
+
+    private Timer execucoes() {
+        return meterRegistry.get("biblioteca.repositorio.execucao")
+                .tag("repositorio", "LivroRepository")
+                .tag("metodo", "findIdsByIdGreaterThan")
+                .tag("resultado", "sucesso")
+                .timer();
+    }
+
+    private DistributionSummary linhas() {
+        return meterRegistry.get("biblioteca.repositorio.linhas")
+                .tag("repositorio", "LivroRepository")
+                .tag("metodo", "findIdsByIdGreaterThan")
+                .summary();
+    }
+}
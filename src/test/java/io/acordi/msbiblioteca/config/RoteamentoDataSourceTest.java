@@ -0,0 +1,119 @@
+package io.acordi.msbiblioteca.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Roteamento entre dois bancos H2 independentes, cada um com uma tabela que identifica o banco.
+ */
+class RoteamentoDataSourceTest {
+
+    private RoteamentoDataSource.Replica replica;
+
+    private RoteamentoDataSource roteamento;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void criarBancos() {
+        DataSource primario = banco("roteamento_primario");
+        DataSource bancoReplica = banco("roteamento_replica");
+        replica = new RoteamentoDataSource.Replica("replica-1", bancoReplica);
+        roteamento = new RoteamentoDataSource(primario, List.of(replica));
+        jdbcTemplate = new JdbcTemplate(roteamento);
+    }
+
+    @AfterEach
+    void limpar() {
+        // Nenhum teste deve deixar transação registrada na thread
+        assertThat(RoteamentoDataSource.leituraEmReplica()).isFalse();
+    }
+
+    @Test
+    void leituraSomenteLeituraVaiParaAReplicaEORestoParaOPrimario() {
+        assertThat(bancoAtual()).isEqualTo("roteamento_primario");
+
+        RoteamentoDataSource.iniciarTransacao(true);
+        try {
+            assertThat(bancoAtual()).isEqualTo("roteamento_replica");
+
+            // Uma REQUIRES_NEW de escrita dentro da leitura usa o primário e devolve a leitura à réplica
+            RoteamentoDataSource.iniciarTransacao(false);
+            try {
+                assertThat(bancoAtual()).isEqualTo("roteamento_primario");
+            } finally {
+                RoteamentoDataSource.encerrarTransacao();
+            }
+            assertThat(bancoAtual()).isEqualTo("roteamento_replica");
+        } finally {
+            RoteamentoDataSource.encerrarTransacao();
+        }
+        assertThat(bancoAtual()).isEqualTo("roteamento_primario");
+    }
+
+    @Test
+    void replicaForaDoRodizioDevolveAsLeiturasAoPrimario() {
+        // O H2 não conhece SHOW REPLICA STATUS: para o monitor, a réplica não responde
+        new MonitorReplicas().verificar(replica);
+        assertThat(replica.isDisponivel()).isFalse();
+        assertThat(replica.getAtrasoSegundos()).isEqualTo(-1);
+
+        RoteamentoDataSource.iniciarTransacao(true);
+        try {
+            assertThat(bancoAtual()).isEqualTo("roteamento_primario");
+        } finally {
+            RoteamentoDataSource.encerrarTransacao();
+        }
+    }
+
+    @Test
+    void replicaQueRecusaAConexaoSaiDoRodizio() {
+        DataSource inexistente = new DriverManagerDataSource("jdbc:h2:mem:roteamento_inexistente;IFEXISTS=TRUE", "sa", "");
+        RoteamentoDataSource.Replica fora = new RoteamentoDataSource.Replica("replica-2", inexistente);
+        JdbcTemplate comReplicaFora = new JdbcTemplate(new RoteamentoDataSource(banco("roteamento_primario"), List.of(fora)));
+
+        RoteamentoDataSource.iniciarTransacao(true);
+        try {
+            assertThat(comReplicaFora.queryForObject("SELECT nome FROM banco", String.class)).isEqualTo("roteamento_primario");
+        } finally {
+            RoteamentoDataSource.encerrarTransacao();
+        }
+        assertThat(fora.isDisponivel()).isFalse();
+    }
+
+    @Test
+    void labelDoPrimarioImpedeALeituraEmReplica() {
+        RuleBasedTransactionAttribute leitura = new RuleBasedTransactionAttribute();
+        leitura.setReadOnly(true);
+        assertThat(RoteamentoDataSource.podeLerEmReplica(leitura)).isTrue();
+        assertThat(RoteamentoDataSource.podeLerEmReplica(new DefaultTransactionDefinition())).isFalse();
+
+        RuleBasedTransactionAttribute rotulada = new RuleBasedTransactionAttribute();
+        rotulada.setReadOnly(true);
+        rotulada.setLabels(List.of(RoteamentoDataSource.LEITURA_NO_PRIMARIO));
+        assertThat(RoteamentoDataSource.podeLerEmReplica(rotulada)).isFalse();
+    }
+
+    private String bancoAtual() {
+        return jdbcTemplate.queryForObject("SELECT nome FROM banco", String.class);
+    }
+
+    private static DataSource banco(String nome) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + nome + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS banco (nome VARCHAR(50))");
+        jdbc.update("DELETE FROM banco");
+        jdbc.update("INSERT INTO banco (nome) VALUES (?)", nome);
+        return dataSource;
+    }
+}
@@ -0,0 +1,219 @@
+package io.acordi.msbiblioteca.domain.services;
+
+import io.acordi.msbiblioteca.domain.entities.Autor;
+import io.acordi.msbiblioteca.domain.entities.Emprestimo;
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.entities.Membro;
+import io.acordi.msbiblioteca.domain.entities.Multa;
+import io.acordi.msbiblioteca.infra.index.BuscaIndex;
+import io.acordi.msbiblioteca.infra.index.DisponibilidadeIndex;
+import io.acordi.msbiblioteca.infra.index.RankingIndex;
+import io.acordi.msbiblioteca.infra.index.VencimentoIndex;
+import io.acordi.msbiblioteca.infra.repository.AutorRepository;
+import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.MembroRepository;
+import io.acordi.msbiblioteca.infra.repository.MultaRepository;
+import io.acordi.msbiblioteca.sql.ContadorSql;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Limita a quantidade de comandos SQL das operações de leitura e exclusão sobre uma massa em
+ * que cada membro e livro tem vários empréstimos e multas: uma regressão para N+1 faz a
+ * contagem crescer com a massa e o teste falha listando os comandos executados.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConsultasPorOperacaoTest {
+
+    private static final int MEMBROS = 10;
+    private static final int EMPRESTIMOS_POR_MEMBRO = 4;
+    private static final LocalDate HOJE = LocalDate.now();
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private MultaService multaService;
+
+    @Autowired
+    private MembroService membroService;
+
+    @Autowired
+    private AutorService autorService;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private MembroRepository membroRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private MultaRepository multaRepository;
+
+    @Autowired
+    private BuscaIndex buscaIndex;
+
+    @Autowired
+    private DisponibilidadeIndex disponibilidadeIndex;
+
+    @Autowired
+    private RankingIndex rankingIndex;
+
+    @Autowired
+    private VencimentoIndex vencimentoIndex;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private Membro membro;
+
+    private Emprestimo ativo;
+
+    private Emprestimo devolvidoComMulta;
+
+    private Emprestimo devolvidoSemMulta;
+
+    @BeforeEach
+    void popular() {
+        Autor autor = new Autor();
+        autor.setNome("Autor");
+        autor = autorRepository.save(autor);
+
+        List<Membro> membros = new ArrayList<>();
+        for (int i = 0; i < MEMBROS; i++) {
+            Membro novo = new Membro();
+            novo.setNome("Membro " + i);
+            novo.setEmail("membro" + i + "@biblioteca.com");
+            membros.add(membroRepository.save(novo));
+        }
+
+        for (Membro dono : membros) {
+            for (int i = 0; i < EMPRESTIMOS_POR_MEMBRO; i++) {
+                Livro livro = new Livro();
+                livro.setTitulo("Livro " + dono.getNome() + " " + i);
+                livro.setAnoPublicacao(2000);
+                livro.setAutores(Set.of(autor));
+                livro = livroRepository.save(livro);
+
+                // O primeiro fica ativo e atrasado; os demais foram devolvidos, metade com atraso
+                Emprestimo emprestimo = new Emprestimo();
+                emprestimo.setMembro(dono);
+                emprestimo.setLivro(livro);
+                emprestimo.setDataEmprestimo(HOJE.minusDays(30));
+                emprestimo.setDataDevolucaoPrevista(HOJE.minusDays(16));
+                if (i > 0) {
+                    emprestimo.setDataDevolucao(i % 2 == 0 ? HOJE.minusDays(20) : HOJE.minusDays(10));
+                }
+                emprestimo = emprestimoRepository.save(emprestimo);
+
+                if (emprestimo.getDataDevolucao() != null && emprestimo.getDataDevolucao().isAfter(emprestimo.getDataDevolucaoPrevista())) {
+                    Multa multa = new Multa();
+                    multa.setEmprestimo(emprestimo);
+                    multa.setMembro(dono);
+                    multa.setValor(new BigDecimal("6.00"));
+                    multa.setDataGeracao(LocalDateTime.now());
+                    multaRepository.save(multa);
+                }
+            }
+        }
+
+        membro = membros.get(0);
+        List<Emprestimo> doMembro = emprestimoRepository.findAll().stream()
+                .filter(emprestimo -> emprestimo.getMembro().getId().equals(membro.getId()))
+                .toList();
+        ativo = doMembro.stream().filter(e -> e.getDataDevolucao() == null).findFirst().orElseThrow();
+        devolvidoComMulta = doMembro.stream().filter(e -> e.getDataDevolucao() != null && e.getDataDevolucao().isAfter(e.getDataDevolucaoPrevista())).findFirst().orElseThrow();
+        devolvidoSemMulta = doMembro.stream().filter(e -> e.getDataDevolucao() != null && !e.getDataDevolucao().isAfter(e.getDataDevolucaoPrevista())).findFirst().orElseThrow();
+
+        buscaIndex.reconstruir();
+        disponibilidadeIndex.reconstruir();
+        rankingIndex.reconstruir();
+        vencimentoIndex.reconstruir();
+    }
+
+    @AfterEach
+    void limpar() {
+        multaRepository.deleteAll();
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        autorRepository.deleteAll();
+        membroRepository.deleteAll();
+    }
+
+    @Test
+    void leiturasDeEmprestimosUsamUmaConsulta() {
+        ContadorSql.assertMaximo(1, () -> emprestimoService.findAll(null, MEMBROS * EMPRESTIMOS_POR_MEMBRO));
+        ContadorSql.assertMaximo(1, () -> emprestimoService.findById(ativo.getId()));
+        ContadorSql.assertMaximo(1, () -> emprestimoService.findByMembro(membro.getId()));
+        ContadorSql.assertMaximo(1, () -> emprestimoService.findEmprestimosAtivos());
+        ContadorSql.assertMaximo(1, () -> emprestimoService.findEmprestimosAtivosByMembro(membro.getId()));
+        ContadorSql.assertMaximo(1, () -> emprestimoService.findEmprestimosHistoricoByLivro(ativo.getLivro().getId()));
+        ContadorSql.assertMaximo(1, () -> assertThat(emprestimoService.findEmprestimosAtrasados()).hasSize(MEMBROS));
+    }
+
+    @Test
+    void leiturasDeMultasEMembrosUsamUmaConsulta() {
+        ContadorSql.assertMaximo(1, () -> multaService.findAll(null, MEMBROS * EMPRESTIMOS_POR_MEMBRO));
+        ContadorSql.assertMaximo(1, () -> multaService.findByMembro(membro.getId()));
+        ContadorSql.assertMaximo(1, () -> multaService.getTotalMultasByMembro(membro.getId()));
+        ContadorSql.assertMaximo(1, () -> membroService.findAll(null, MEMBROS));
+        ContadorSql.assertMaximo(1, () -> membroService.findMembrosComMaisEmprestimos(MEMBROS));
+        ContadorSql.assertMaximo(1, () -> membroService.findMembrosComMaisMultas(MEMBROS));
+        ContadorSql.assertMaximo(1, () -> autorService.findAutoresComMaisLivros(MEMBROS));
+    }
+
+    @Test
+    void exclusaoNaoCarregaAsMultasDoEmprestimo() {
+        List<String> comandos = ContadorSql.medir(() -> {
+            emprestimoService.delete(devolvidoSemMulta.getId());
+            return null;
+        });
+        assertThat(comandos).hasSizeLessThanOrEqualTo(3);
+        assertThat(comandos).noneMatch(sql -> sql.contains("data_geracao"));
+
+        // Com multa, a exclusão é recusada pela verificação de existência
+        comandos = ContadorSql.medir(() -> assertThatThrownBy(() -> emprestimoService.delete(devolvidoComMulta.getId()))
+                .isInstanceOf(IllegalStateException.class));
+        assertThat(comandos).hasSizeLessThanOrEqualTo(2);
+        assertThat(comandos).noneMatch(sql -> sql.contains("data_geracao"));
+    }
+
+    @Test
+    void endpointsDeListagemNaoCrescemComAMassa() {
+        ContadorSql.assertMaximo(1, () -> mockMvc.perform(get("/emprestimos").param("tamanho", "40"))
+                .andExpect(status().isOk()));
+        ContadorSql.assertMaximo(2, () -> mockMvc.perform(get("/livros").param("tamanho", "40"))
+                .andExpect(status().isOk()));
+        ContadorSql.assertMaximo(1, () -> mockMvc.perform(get("/multas/membro/{id}", membro.getId()))
+                .andExpect(status().isOk()));
+        ContadorSql.assertMaximo(1, () -> mockMvc.perform(get("/emprestimos/atrasados"))
+                .andExpect(status().isOk()));
+    }
+}
@@ -0,0 +1,132 @@
+package io.acordi.msbiblioteca.domain.services;
+
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.entities.Membro;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.entrypoint.dto.DevolucaoDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.EmprestimoDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.ItemResultadoLoteDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.ResultadoLoteDTO;
+import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.MembroRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compara os endpoints de item único com os de lote para N empréstimos e devoluções.
+ * Executar com ./gradlew benchmark.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class EmprestimoLoteBenchmarkTest {
+
+    private static final int QUANTIDADE = 500;
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private MembroRepository membroRepository;
+
+    private List<EmprestimoDTO> emprestimos;
+
+    @BeforeEach
+    void popular() {
+        List<Livro> livros = new ArrayList<>();
+        List<Membro> membros = new ArrayList<>();
+        for (int i = 0; i < QUANTIDADE; i++) {
+            Livro livro = new Livro();
+            livro.setTitulo("Livro " + i);
+            livro.setStatus(StatusLivro.DISPONIVEL);
+            livros.add(livro);
+
+            Membro membro = new Membro();
+            membro.setNome("Membro " + i);
+            membro.setEmail("membro" + i + "@biblioteca.com");
+            membros.add(membro);
+        }
+        livros = livroRepository.saveAll(livros);
+        membros = membroRepository.saveAll(membros);
+
+        emprestimos = new ArrayList<>();
+        for (int i = 0; i < QUANTIDADE; i++) {
+            EmprestimoDTO emprestimoDTO = new EmprestimoDTO();
+            emprestimoDTO.setMembroId(membros.get(i).getId());
+            emprestimoDTO.setLivroId(livros.get(i).getId());
+            emprestimoDTO.setDataEmprestimo(LocalDate.now());
+            emprestimoDTO.setDataDevolucaoPrevista(LocalDate.now().plusDays(14));
+            emprestimos.add(emprestimoDTO);
+        }
+    }
+
+    @AfterEach
+    void limpar() {
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        membroRepository.deleteAll();
+    }
+
+    @Test
+    void itemUnico() {
+        List<Integer> ids = new ArrayList<>();
+        long inicio = System.nanoTime();
+        for (EmprestimoDTO emprestimoDTO : emprestimos) {
+            ids.add(emprestimoService.save(emprestimoDTO).getId());
+        }
+        long emprestimosNs = System.nanoTime() - inicio;
+
+        inicio = System.nanoTime();
+        for (Integer id : ids) {
+            emprestimoService.registrarDevolucao(id, null);
+        }
+        long devolucoesNs = System.nanoTime() - inicio;
+
+        relatar("Item único", emprestimosNs, devolucoesNs);
+    }
+
+    @Test
+    void lote() {
+        long inicio = System.nanoTime();
+        ResultadoLoteDTO resultado = emprestimoService.saveLote(emprestimos);
+        long emprestimosNs = System.nanoTime() - inicio;
+        assertThat(resultado.getSucessos()).isEqualTo(QUANTIDADE);
+
+        List<DevolucaoDTO> devolucoes = new ArrayList<>();
+        for (ItemResultadoLoteDTO item : resultado.getItens()) {
+            DevolucaoDTO devolucaoDTO = new DevolucaoDTO();
+            devolucaoDTO.setEmprestimoId(item.getId());
+            devolucoes.add(devolucaoDTO);
+        }
+        inicio = System.nanoTime();
+        ResultadoLoteDTO devolvidos = emprestimoService.registrarDevolucoesLote(devolucoes);
+        long devolucoesNs = System.nanoTime() - inicio;
+        assertThat(devolvidos.getSucessos()).isEqualTo(QUANTIDADE);
+
+        relatar("Lote", emprestimosNs, devolucoesNs);
+    }
+
+    private void relatar(String modo, long emprestimosNs, long devolucoesNs) {
+        System.out.printf("%-10s empréstimos: %6d ms (%8.0f/s) | devoluções: %6d ms (%8.0f/s)%n", modo,
+                emprestimosNs / 1_000_000, QUANTIDADE / (emprestimosNs / 1e9),
+                devolucoesNs / 1_000_000, QUANTIDADE / (devolucoesNs / 1e9));
+    }
+}
@@ -0,0 +1,179 @@
+package io.acordi.msbiblioteca.domain.services;
+
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.entities.Membro;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.entrypoint.dto.EmprestimoDTO;
+import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.MembroRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EmprestimoServiceConcorrenciaTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private MembroRepository membroRepository;
+
+    @AfterEach
+    void limpar() {
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        membroRepository.deleteAll();
+    }
+
+    @Test
+    void mesmoLivroEmprestadoApenasUmaVez() throws Exception {
+        Livro livro = criarLivros(1).get(0);
+        List<Membro> membros = criarMembros(50);
+
+        List<Callable<Boolean>> tarefas = new ArrayList<>();
+        for (Membro membro : membros) {
+            tarefas.add(() -> emprestar(membro.getId(), livro.getId()));
+        }
+
+        assertThat(executarConcorrentemente(tarefas)).isEqualTo(1);
+        assertThat(emprestimoRepository.count()).isEqualTo(1);
+        assertThat(livroRepository.findById(livro.getId()).orElseThrow().getStatus()).isEqualTo(StatusLivro.EMPRESTADO);
+        assertThat(membroRepository.findAll()).extracting(Membro::getEmprestimosAtivos).containsOnly(0, 1);
+    }
+
+    @Test
+    void membroNaoUltrapassaLimiteDeEmprestimos() throws Exception {
+        List<Livro> livros = criarLivros(50);
+        Membro membro = criarMembros(1).get(0);
+
+        List<Callable<Boolean>> tarefas = new ArrayList<>();
+        for (Livro livro : livros) {
+            tarefas.add(() -> emprestar(membro.getId(), livro.getId()));
+        }
+
+        assertThat(executarConcorrentemente(tarefas)).isEqualTo(3);
+        assertThat(emprestimoRepository.countEmprestimosAtivosByMembro(membro.getId())).isEqualTo(3);
+        assertThat(membroRepository.findById(membro.getId()).orElseThrow().getEmprestimosAtivos()).isEqualTo(3);
+        assertThat(livroRepository.findAll()).filteredOn(livro -> livro.getStatus() == StatusLivro.EMPRESTADO).hasSize(3);
+    }
+
+    // Compara com os mesmos empréstimos feitos um a um. Executar com ./gradlew benchmark
+    @Test
+    @Tag("benchmark")
+    void emprestimosSemConflitoNaoSeBloqueiam() throws Exception {
+        int quantidade = 600;
+        List<Livro> livros = criarLivros(2 * quantidade);
+        List<Membro> membros = criarMembros(2 * quantidade);
+
+        long inicio = System.nanoTime();
+        for (int i = 0; i < quantidade; i++) {
+            assertThat(emprestar(membros.get(i).getId(), livros.get(i).getId())).isTrue();
+        }
+        long sequencialNs = System.nanoTime() - inicio;
+
+        List<Callable<Boolean>> tarefas = new ArrayList<>();
+        for (int i = quantidade; i < 2 * quantidade; i++) {
+            Integer membroId = membros.get(i).getId();
+            Integer livroId = livros.get(i).getId();
+            tarefas.add(() -> emprestar(membroId, livroId));
+        }
+        inicio = System.nanoTime();
+        int sucessos = executarConcorrentemente(tarefas);
+        long concorrenteNs = System.nanoTime() - inicio;
+
+        assertThat(sucessos).isEqualTo(quantidade);
+        // Se os empréstimos de livros e membros diferentes se bloqueassem, a execução concorrente
+        // levaria pelo menos o tempo da sequencial
+        assertThat(concorrenteNs)
+                .as("%d empréstimos com %d threads: %d ms; um a um: %d ms", quantidade, THREADS,
+                        concorrenteNs / 1_000_000, sequencialNs / 1_000_000)
+                .isLessThan(sequencialNs);
+    }
+
+    private boolean emprestar(Integer membroId, Integer livroId) {
+        EmprestimoDTO emprestimoDTO = new EmprestimoDTO();
+        emprestimoDTO.setMembroId(membroId);
+        emprestimoDTO.setLivroId(livroId);
+        emprestimoDTO.setDataEmprestimo(LocalDate.now());
+        emprestimoDTO.setDataDevolucaoPrevista(LocalDate.now().plusDays(14));
+        try {
+            emprestimoService.save(emprestimoDTO);
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private int executarConcorrentemente(List<Callable<Boolean>> tarefas) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> resultados = new ArrayList<>();
+            for (Callable<Boolean> tarefa : tarefas) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    return tarefa.call();
+                }));
+            }
+            largada.countDown();
+
+            int sucessos = 0;
+            for (Future<Boolean> resultado : resultados) {
+                if (resultado.get(30, TimeUnit.SECONDS)) {
+                    sucessos++;
+                }
+            }
+            return sucessos;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Livro> criarLivros(int quantidade) {
+        List<Livro> livros = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            Livro livro = new Livro();
+            livro.setTitulo("Livro " + i);
+            livro.setStatus(StatusLivro.DISPONIVEL);
+            livros.add(livro);
+        }
+        return livroRepository.saveAll(livros);
+    }
+
+    private List<Membro> criarMembros(int quantidade) {
+        List<Membro> membros = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            Membro membro = new Membro();
+            membro.setNome("Membro " + i);
+            membro.setEmail("membro" + i + "@biblioteca.com");
+            membros.add(membro);
+        }
+        return membroRepository.saveAll(membros);
+    }
+}
@@ -0,0 +1,93 @@
+package io.acordi.msbiblioteca.domain.services;
+
+import io.acordi.msbiblioteca.infra.index.DisponibilidadeIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mede o sorteio de livros aleatórios conforme a tabela cresce até 1 milhão de linhas,
+ * comparado ao ORDER BY RAND() que ele substituiu. Executar com ./gradlew benchmark.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class LivroAleatorioBenchmarkTest {
+
+    private static final int[] TAMANHOS = {10_000, 100_000, 1_000_000};
+    private static final int QUANTIDADE_SORTEADA = 20;
+    private static final int REPETICOES = 200;
+    private static final int REPETICOES_ORDER_BY = 5;
+    private static final int TAMANHO_LOTE_INSERCAO = 5_000;
+
+    @Autowired
+    private LivroService livroService;
+
+    @Autowired
+    private DisponibilidadeIndex disponibilidadeIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("DELETE FROM livro");
+        disponibilidadeIndex.reconstruir();
+    }
+
+    @Test
+    void latenciaNaoCresceComATabela() {
+        int inseridos = 0;
+        for (int tamanho : TAMANHOS) {
+            inserir(inseridos, tamanho);
+            inseridos = tamanho;
+            disponibilidadeIndex.reconstruir();
+
+            // Aquecimento do JIT antes de medir
+            for (int i = 0; i < REPETICOES; i++) {
+                livroService.findRandomLivros(QUANTIDADE_SORTEADA, i % 2 == 0);
+            }
+
+            long inicio = System.nanoTime();
+            for (int i = 0; i < REPETICOES; i++) {
+                assertThat(disponibilidadeIndex.amostrar(QUANTIDADE_SORTEADA, false)).hasSize(QUANTIDADE_SORTEADA);
+            }
+            long amostraNs = (System.nanoTime() - inicio) / REPETICOES;
+
+            inicio = System.nanoTime();
+            for (int i = 0; i < REPETICOES; i++) {
+                assertThat(livroService.findRandomLivros(QUANTIDADE_SORTEADA, i % 2 == 0)).hasSize(QUANTIDADE_SORTEADA);
+            }
+            long servicoNs = (System.nanoTime() - inicio) / REPETICOES;
+
+            inicio = System.nanoTime();
+            for (int i = 0; i < REPETICOES_ORDER_BY; i++) {
+                jdbcTemplate.queryForList("SELECT id FROM livro ORDER BY RAND() LIMIT ?", Integer.class, QUANTIDADE_SORTEADA);
+            }
+            long orderByNs = (System.nanoTime() - inicio) / REPETICOES_ORDER_BY;
+
+            System.out.printf("%,10d livros | sorteio: %8.3f ms | sorteio + carga: %8.3f ms | ORDER BY RAND(): %9.3f ms%n",
+                    tamanho, amostraNs / 1e6, servicoNs / 1e6, orderByNs / 1e6);
+        }
+    }
+
+    // Inserção direta em lotes JDBC, sem passar pelo serviço
+    private void inserir(int inicio, int fim) {
+        for (int lote = inicio; lote < fim; lote += TAMANHO_LOTE_INSERCAO) {
+            List<Object[]> linhas = new ArrayList<>(TAMANHO_LOTE_INSERCAO);
+            for (int i = lote; i < Math.min(lote + TAMANHO_LOTE_INSERCAO, fim); i++) {
+                linhas.add(new Object[]{"Livro " + i, 1900 + i % 120, "DISPONIVEL"});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO livro (titulo, ano_publicacao, status) VALUES (?, ?, ?)", linhas);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package io.acordi.msbiblioteca.domain.services;
+
+import io.acordi.msbiblioteca.domain.entities.Autor;
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.types.FormatoArquivo;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.entrypoint.dto.AutorDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.ItemResultadoLoteDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.LivroDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.ResultadoImportacaoDTO;
+import io.acordi.msbiblioteca.infra.index.BuscaIndex;
+import io.acordi.msbiblioteca.infra.index.DisponibilidadeIndex;
+import io.acordi.msbiblioteca.infra.repository.AutorRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.sql.ContadorSql;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "biblioteca.importacao.tamanho-lote=2")
+@ActiveProfiles("test")
+class LivroServiceTest {
+
+    private static final int QUANTIDADE_LIVROS = 40;
+    private static final int AUTORES_POR_LIVRO = 3;
+
+    @Autowired
+    private LivroService livroService;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private DisponibilidadeIndex disponibilidadeIndex;
+
+    @Autowired
+    private BuscaIndex buscaIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Integer autorId;
+
+    @BeforeEach
+    void popular() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<Autor> autores = new ArrayList<>();
+            for (int i = 0; i < QUANTIDADE_LIVROS; i++) {
+                Autor autor = new Autor();
+                autor.setNome("Autor " + i);
+                autores.add(autorRepository.save(autor));
+            }
+            autorId = autores.get(0).getId();
+
+            for (int i = 0; i < QUANTIDADE_LIVROS; i++) {
+                Set<Autor> autoresDoLivro = new HashSet<>();
+                for (int j = 0; j < AUTORES_POR_LIVRO; j++) {
+                    autoresDoLivro.add(autores.get((i + j) % autores.size()));
+                }
+                Livro livro = new Livro();
+                livro.setTitulo("Livro " + i);
+                livro.setAnoPublicacao(2000);
+                livro.setStatus(StatusLivro.DISPONIVEL);
+                livro.setAutores(autoresDoLivro);
+                livroRepository.save(livro);
+            }
+        });
+        disponibilidadeIndex.reconstruir();
+        buscaIndex.reconstruir();
+    }
+
+    @AfterEach
+    void limpar() {
+        livroRepository.deleteAll();
+        autorRepository.deleteAll();
+    }
+
+    @Test
+    void listagensCarregamAutoresComNumeroFixoDeConsultas() {
+        assertConsultas(2, () -> livroService.findAll(null, QUANTIDADE_LIVROS).getItens());
+        assertConsultas(1, () -> livroService.findByTitulo("livro", QUANTIDADE_LIVROS));
+        assertConsultas(1, () -> livroService.findByStatus(StatusLivro.DISPONIVEL, null, QUANTIDADE_LIVROS).getItens());
+        assertConsultas(1, () -> livroService.findByAnoPublicacao(2000));
+        assertConsultas(1, () -> livroService.findByAutorId(autorId));
+        assertConsultas(1, () -> livroService.findByAnoPublicacaoBetween(1990, 2010));
+        assertConsultas(1, () -> livroService.findLivrosDisponiveis(null, QUANTIDADE_LIVROS).getItens());
+        assertConsultas(1, () -> livroService.findRandomLivros(QUANTIDADE_LIVROS, false));
+        assertConsultas(1, () -> livroService.findRandomLivros(QUANTIDADE_LIVROS, true));
+    }
+
+    @Test
+    void livroEmCacheTrazOStatusDoIndiceSemConsultarOBanco() {
+        Integer id = livroRepository.findIdsByIdGreaterThan(0, PageRequest.of(0, 1)).get(0);
+        assertThat(livroService.findById(id).getStatus()).isEqualTo(StatusLivro.DISPONIVEL);
+
+        // Fora de transação, o empréstimo é aplicado ao índice na hora, como após o commit
+        disponibilidadeIndex.registrarEmprestimo(id);
+
+        assertThat(ContadorSql.medir(() -> livroService.findById(id))).isEmpty();
+        LivroDTO livro = livroService.findById(id);
+        assertThat(livro.getStatus()).isEqualTo(StatusLivro.EMPRESTADO);
+        assertThat(livro.getAutores()).hasSize(AUTORES_POR_LIVRO);
+    }
+
+    @Test
+    void livroAusenteDoIndiceTemOStatusLidoDoBanco() {
+        Integer id = livroRepository.findIdsByIdGreaterThan(0, PageRequest.of(0, 1)).get(0);
+        livroService.findById(id);
+
+        // Como um livro cadastrado e emprestado em outra instância, antes da ressincronização
+        disponibilidadeIndex.removerLivro(id);
+        jdbcTemplate.update("UPDATE livro SET status = ? WHERE id = ?", StatusLivro.EMPRESTADO.name(), id);
+
+        assertThat(livroService.findById(id).getStatus()).isEqualTo(StatusLivro.EMPRESTADO);
+    }
+
+    @Test
+    void importacaoCriaAutoresUmaVezERelataLinhasInvalidas() throws Exception {
+        String csv = """
+                titulo,anoPublicacao,autores
+                "Memórias póstumas, de Brás Cubas",1881,Autor 0;Machado de Assis
+                Dom Casmurro,1899,machado  de assis
+                ,2000,Alguém
+                Quincas Borba,abc,Alguém
+                Helena,1876,  AUTOR 0 ;Machado de Assis
+                """;
+        ResultadoImportacaoDTO resultado = livroService.importar(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), FormatoArquivo.CSV);
+
+        assertThat(resultado.getTotal()).isEqualTo(5);
+        assertThat(resultado.getImportados()).isEqualTo(3);
+        assertThat(resultado.getAutoresCriados()).isEqualTo(1);
+        assertThat(resultado.getErros()).extracting(ItemResultadoLoteDTO::getIndice).containsExactly(4, 5);
+        assertThat(autorRepository.count()).isEqualTo(QUANTIDADE_LIVROS + 1);
+
+        // Os livros importados entram nos índices em memória após o commit de cada lote
+        List<LivroDTO> helena = livroService.findByTitulo("helena", 1);
+        assertThat(helena).hasSize(1);
+        assertThat(helena.get(0).getAutores()).extracting(AutorDTO::getNome)
+                .containsExactlyInAnyOrder("Autor 0", "Machado de Assis");
+        assertThat(livroService.findByTitulo("casmurro", 1).get(0).getAutores()).extracting(AutorDTO::getNome)
+                .containsExactly("Machado de Assis");
+
+        String ndjson = """
+                {"titulo":"Iaiá Garcia","anoPublicacao":1878,"autores":["Machado de Assis"]}
+                {"titulo":
+                """;
+        resultado = livroService.importar(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), FormatoArquivo.NDJSON);
+        assertThat(resultado.getImportados()).isEqualTo(1);
+        assertThat(resultado.getAutoresCriados()).isZero();
+        assertThat(resultado.getErros()).extracting(ItemResultadoLoteDTO::getIndice).containsExactly(2);
+    }
+
+    private void assertConsultas(int maximo, Supplier<List<LivroDTO>> listagem) {
+        // Executa em transação para que um eventual carregamento lazy seja contado em vez de falhar
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        ContadorSql.assertMaximo(maximo, () -> transacao.execute(status -> {
+            List<LivroDTO> livros = listagem.get();
+            assertThat(livros).isNotEmpty();
+            assertThat(livros).allSatisfy(livro -> assertThat(livro.getAutores()).isNotEmpty());
+            return livros;
+        }));
+    }
+}
@@ -0,0 +1,226 @@
+package io.acordi.msbiblioteca.domain.services;
+
+import io.acordi.msbiblioteca.domain.entities.Emprestimo;
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.entities.Membro;
+import io.acordi.msbiblioteca.domain.entities.Multa;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.entrypoint.dto.EmprestimoDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.MultaDTO;
+import io.acordi.msbiblioteca.infra.repository.CheckpointRepository;
+import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.MembroRepository;
+import io.acordi.msbiblioteca.infra.repository.MultaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "biblioteca.multas.valor-por-dia=1.50",
+        "biblioteca.multas.carencia-dias=1",
+        "biblioteca.multas.valor-maximo=30.00",
+        "biblioteca.multas.tamanho-lote=2",
+        "biblioteca.multas.intervalo-ms=3600000"
+})
+@ActiveProfiles("test")
+class MultaServiceTest {
+
+    private static final LocalDate HOJE = LocalDate.now();
+
+    private static final String CHECKPOINT = "apuracao-multas";
+
+    private static final String FALHA_SIMULADA = "ck_multa_falha_simulada";
+
+    @Autowired
+    private MultaService multaService;
+
+    @Autowired
+    private EmprestimoService emprestimoService;
+
+    @Autowired
+    private MultaRepository multaRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private MembroRepository membroRepository;
+
+    @Autowired
+    private CheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Membro membro;
+
+    private Livro livro;
+
+    @BeforeEach
+    void popular() {
+        membro = new Membro();
+        membro.setNome("Membro");
+        membro.setEmail("membro@biblioteca.com");
+        membro = membroRepository.save(membro);
+
+        livro = new Livro();
+        livro.setTitulo("Livro");
+        livro.setStatus(StatusLivro.DISPONIVEL);
+        livro = livroRepository.save(livro);
+    }
+
+    @AfterEach
+    void limpar() {
+        multaRepository.deleteAll();
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        membroRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        jdbcTemplate.update("ALTER TABLE multa DROP CONSTRAINT IF EXISTS " + FALHA_SIMULADA);
+    }
+
+    @Test
+    void geraMultasDasDevolucoesAtrasadasEmLotes() {
+        Emprestimo atrasado = emprestimo(HOJE.minusDays(10), HOJE.minusDays(4));
+        Emprestimo muitoAtrasado = emprestimo(HOJE.minusDays(100), HOJE);
+        emprestimo(HOJE.minusDays(3), HOJE.minusDays(2));
+        emprestimo(HOJE.minusDays(3), HOJE.minusDays(3));
+        emprestimo(HOJE.minusDays(10), null);
+
+        assertThat(multaService.apurarMultas()).isEqualTo(4);
+
+        Map<Integer, BigDecimal> valores = multaRepository.findAll().stream()
+                .collect(Collectors.toMap(multa -> multa.getEmprestimo().getId(), Multa::getValor));
+        assertThat(valores).hasSize(2);
+        assertThat(valores.get(atrasado.getId())).isEqualByComparingTo("9.00");
+        assertThat(valores.get(muitoAtrasado.getId())).isEqualByComparingTo("30.00");
+        assertThat(multaService.getTotalMultasByMembro(membro.getId())).isEqualByComparingTo("39.00");
+
+        // Devoluções já apuradas não são processadas novamente
+        assertThat(multaService.apurarMultas()).isZero();
+        assertThat(multaRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void retomaDoCheckpointEDepoisRecomecaDoInicio() {
+        Emprestimo primeiro = emprestimo(HOJE.minusDays(10), HOJE);
+        Emprestimo segundo = emprestimo(HOJE.minusDays(10), HOJE);
+        Emprestimo terceiro = emprestimo(HOJE.minusDays(10), HOJE);
+        emprestimo(HOJE.minusDays(10), HOJE);
+        emprestimo(HOJE.minusDays(10), HOJE);
+
+        // O segundo lote (terceiro e quarto empréstimos) falha ao gravar as multas
+        jdbcTemplate.update("ALTER TABLE multa ADD CONSTRAINT " + FALHA_SIMULADA + " CHECK (emprestimo_id <> "
+                + terceiro.getId() + ")");
+        assertThatThrownBy(multaService::apurarMultas).isInstanceOf(DataIntegrityViolationException.class);
+        jdbcTemplate.update("ALTER TABLE multa DROP CONSTRAINT " + FALHA_SIMULADA);
+
+        assertThat(checkpointRepository.findById(CHECKPOINT).orElseThrow().getUltimoId()).isEqualTo(segundo.getId());
+        assertThat(multaRepository.findAll()).extracting(multa -> multa.getEmprestimo().getId())
+                .containsExactlyInAnyOrder(primeiro.getId(), segundo.getId());
+
+        // Pendência anterior ao checkpoint: uma execução que recomeçasse do início a apuraria agora
+        jdbcTemplate.update("UPDATE emprestimo SET multa_apurada = FALSE WHERE id = ?", primeiro.getId());
+        assertThat(multaService.apurarMultas()).isEqualTo(3);
+        assertThat(multaRepository.count()).isEqualTo(5);
+        assertThat(checkpointRepository.findById(CHECKPOINT).orElseThrow().getUltimoId()).isZero();
+
+        // Terminada a passada, a seguinte recomeça do início
+        assertThat(multaService.apurarMultas()).isEqualTo(1);
+        assertThat(multaRepository.count()).isEqualTo(6);
+    }
+
+    @Test
+    void saldoAcompanhaMultasManuaisEReconciliacaoCorrigeDivergencias() {
+        Emprestimo emprestimo = emprestimo(HOJE.minusDays(10), HOJE);
+
+        MultaDTO multaDTO = new MultaDTO();
+        multaDTO.setEmprestimoId(emprestimo.getId());
+        multaDTO.setMembroId(membro.getId());
+        multaDTO.setValor(new BigDecimal("12.50"));
+        Integer multaId = multaService.save(multaDTO).getId();
+        assertThat(multaService.getTotalMultasByMembro(membro.getId())).isEqualByComparingTo("12.50");
+
+        multaDTO.setValor(new BigDecimal("4.00"));
+        multaService.update(multaId, multaDTO);
+        assertThat(multaService.getTotalMultasByMembro(membro.getId())).isEqualByComparingTo("4.00");
+
+        jdbcTemplate.update("UPDATE membro SET total_multas = 99 WHERE id = ?", membro.getId());
+        assertThat(multaService.reconciliarSaldos()).isEqualTo(1);
+        assertThat(multaService.getTotalMultasByMembro(membro.getId())).isEqualByComparingTo("4.00");
+        assertThat(multaService.reconciliarSaldos()).isZero();
+
+        multaService.delete(multaId);
+        assertThat(multaService.getTotalMultasByMembro(membro.getId())).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void cadastroComIdDeMultaExistenteCriaOutraMulta() {
+        Emprestimo emprestimo = emprestimo(HOJE.minusDays(10), HOJE);
+
+        MultaDTO multaDTO = new MultaDTO();
+        multaDTO.setEmprestimoId(emprestimo.getId());
+        multaDTO.setMembroId(membro.getId());
+        multaDTO.setValor(new BigDecimal("12.50"));
+        Integer multaId = multaService.save(multaDTO).getId();
+
+        multaDTO.setId(multaId);
+        multaDTO.setValor(new BigDecimal("3.00"));
+        Integer novaId = multaService.save(multaDTO).getId();
+
+        assertThat(novaId).isNotEqualTo(multaId);
+        assertThat(multaRepository.findById(multaId).orElseThrow().getValor()).isEqualByComparingTo("12.50");
+        assertThat(multaService.getTotalMultasByMembro(membro.getId())).isEqualByComparingTo("15.50");
+        assertThat(multaService.reconciliarSaldos()).isZero();
+    }
+
+    @Test
+    void emprestimoReabertoEDevolvidoDeNovoTemUmaSoMulta() {
+        Emprestimo emprestimo = emprestimo(HOJE.minusDays(10), HOJE);
+        assertThat(multaService.apurarMultas()).isEqualTo(1);
+        assertThat(multaService.getTotalMultasByMembro(membro.getId())).isEqualByComparingTo("15.00");
+
+        // A devolução foi registrada por engano: o empréstimo é reaberto e devolvido com outra data
+        EmprestimoDTO reaberto = new EmprestimoDTO();
+        reaberto.setDataEmprestimo(emprestimo.getDataEmprestimo());
+        reaberto.setDataDevolucaoPrevista(emprestimo.getDataDevolucaoPrevista());
+        emprestimoService.update(emprestimo.getId(), reaberto);
+        assertThat(multaRepository.count()).isZero();
+        assertThat(multaService.getTotalMultasByMembro(membro.getId())).isEqualByComparingTo("0.00");
+
+        emprestimoService.registrarDevolucao(emprestimo.getId(), HOJE.minusDays(8));
+        assertThat(multaService.apurarMultas()).isEqualTo(1);
+
+        assertThat(multaRepository.findAll()).singleElement()
+                .satisfies(multa -> assertThat(multa.getValor()).isEqualByComparingTo("3.00"));
+        assertThat(multaService.getTotalMultasByMembro(membro.getId())).isEqualByComparingTo("3.00");
+        assertThat(multaService.reconciliarSaldos()).isZero();
+    }
+
+    private Emprestimo emprestimo(LocalDate dataDevolucaoPrevista, LocalDate dataDevolucao) {
+        Emprestimo emprestimo = new Emprestimo();
+        emprestimo.setMembro(membro);
+        emprestimo.setLivro(livro);
+        emprestimo.setDataEmprestimo(dataDevolucaoPrevista.minusDays(14));
+        emprestimo.setDataDevolucaoPrevista(dataDevolucaoPrevista);
+        emprestimo.setDataDevolucao(dataDevolucao);
+        return emprestimoRepository.save(emprestimo);
+    }
+}
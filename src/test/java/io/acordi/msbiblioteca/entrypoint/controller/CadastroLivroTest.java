@@ -0,0 +1,80 @@
+package io.acordi.msbiblioteca.entrypoint.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import io.acordi.msbiblioteca.domain.entities.Membro;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.MembroRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CadastroLivroTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MembroRepository membroRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void limpar() {
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        membroRepository.deleteAll();
+    }
+
+    @Test
+    void statusEnviadoNoCadastroEhIgnorado() throws Exception {
+        String resposta = mockMvc.perform(post("/livros")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"titulo\": \"Dom Casmurro\", \"anoPublicacao\": 1899, \"status\": \"EMPRESTADO\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.status", is(StatusLivro.DISPONIVEL.name())))
+                .andReturn().getResponse().getContentAsString();
+        Integer livroId = JsonPath.read(resposta, "$.id");
+
+        String gravado = jdbcTemplate.queryForObject("SELECT status FROM livro WHERE id = ?", String.class, livroId);
+        assertThat(gravado).isEqualTo(StatusLivro.DISPONIVEL.name());
+
+        // Sem empréstimo registrado, o livro pode ser emprestado
+        Membro membro = new Membro();
+        membro.setNome("Ana");
+        membro.setEmail("ana@biblioteca.com");
+        membro = membroRepository.save(membro);
+
+        LocalDate hoje = LocalDate.now();
+        mockMvc.perform(post("/emprestimos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"membroId\": " + membro.getId() + ", \"livroId\": " + livroId
+                                + ", \"dataEmprestimo\": \"" + hoje + "\", \"dataDevolucaoPrevista\": \"" + hoje.plusDays(14) + "\"}"))
+                .andExpect(status().isCreated());
+    }
+}
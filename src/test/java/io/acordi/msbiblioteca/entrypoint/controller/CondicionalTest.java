@@ -0,0 +1,144 @@
+package io.acordi.msbiblioteca.entrypoint.controller;
+
+import io.acordi.msbiblioteca.domain.entities.Autor;
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.infra.repository.AutorRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CondicionalTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    private Autor autor;
+
+    private Livro livro;
+
+    @BeforeEach
+    void popular() {
+        autor = new Autor();
+        autor.setNome("Machado de Assis");
+        autor = autorRepository.save(autor);
+
+        livro = new Livro();
+        livro.setTitulo("Dom Casmurro");
+        livro.setAnoPublicacao(1899);
+        livro.setStatus(StatusLivro.DISPONIVEL);
+        livro.setAutores(Set.of(autor));
+        livro = livroRepository.save(livro);
+    }
+
+    @AfterEach
+    void limpar() {
+        livroRepository.deleteAll();
+        autorRepository.deleteAll();
+    }
+
+    @Test
+    void consultaPorIdRespondeNaoModificadoAteOAutorMudar() throws Exception {
+        String etag = etagDe("/livros/{id}", livro.getId());
+
+        mockMvc.perform(get("/livros/{id}", livro.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // Renomear o autor muda o livro exposto, e portanto o ETag
+        mockMvc.perform(put("/autores/{id}", autor.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\": \"Joaquim Maria Machado de Assis\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/livros/{id}", livro.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    void escritaQueNaoAlteraAListagemMantemOEtag() throws Exception {
+        String etag = etagDe("/livros", null);
+
+        // O ETag vem do corpo, não de uma versão avançada por qualquer transação de escrita
+        Autor outro = new Autor();
+        outro.setNome("José de Alencar");
+        autorRepository.save(outro);
+
+        mockMvc.perform(get("/livros").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void listagemMudaDeEtagAposUmaEscrita() throws Exception {
+        String etag = etagDe("/livros", null);
+
+        mockMvc.perform(get("/livros").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        Livro outro = new Livro();
+        outro.setTitulo("Memórias Póstumas de Brás Cubas");
+        outro.setStatus(StatusLivro.DISPONIVEL);
+        livroRepository.save(outro);
+
+        String novo = etagDe("/livros", null);
+        assertThat(novo).isNotEqualTo(etag);
+    }
+
+    @Test
+    void atualizacaoComEtagDesatualizadoEhRecusada() throws Exception {
+        String etag = etagDe("/autores/{id}", autor.getId());
+
+        String atual = mockMvc.perform(put("/autores/{id}", autor.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\": \"M. de Assis\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(atual).isNotEqualTo(etag);
+
+        // Uma segunda alteração feita com o ETag anterior perderia a primeira
+        mockMvc.perform(put("/autores/{id}", autor.getId())
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nome\": \"Machado\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(autorRepository.findById(autor.getId()).orElseThrow().getNome()).isEqualTo("M. de Assis");
+    }
+
+    private String etagDe(String caminho, Integer id) throws Exception {
+        String etag = mockMvc.perform(id == null ? get(caminho) : get(caminho, id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+        return etag;
+    }
+}
@@ -0,0 +1,123 @@
+package io.acordi.msbiblioteca.entrypoint.controller;
+
+import io.acordi.msbiblioteca.domain.entities.Emprestimo;
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.entities.Membro;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.infra.index.VencimentoIndex;
+import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.MembroRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EmprestimosAtrasadosTest {
+
+    private static final LocalDate HOJE = LocalDate.now();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MembroRepository membroRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private VencimentoIndex vencimentoIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Membro membro;
+
+    private Emprestimo atrasado;
+
+    private Emprestimo maisAtrasado;
+
+    @BeforeEach
+    void popular() {
+        membro = new Membro();
+        membro.setNome("Ana");
+        membro.setEmail("ana@biblioteca.com");
+        membro = membroRepository.save(membro);
+
+        atrasado = salvarEmprestimo(HOJE.minusDays(2), null);
+        maisAtrasado = salvarEmprestimo(HOJE.minusDays(5), null);
+        salvarEmprestimo(HOJE.plusDays(3), null);
+        salvarEmprestimo(HOJE.minusDays(4), HOJE.minusDays(6));
+        // Gravados pelos repositórios, sem passar pelo serviço que atualiza o índice
+        vencimentoIndex.reconstruir();
+    }
+
+    @AfterEach
+    void limpar() {
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        membroRepository.deleteAll();
+        vencimentoIndex.reconstruir();
+    }
+
+    @Test
+    void listaEContaSoOsAtivosVencidos() throws Exception {
+        mockMvc.perform(get("/emprestimos/atrasados"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(maisAtrasado.getId(), atrasado.getId())));
+        mockMvc.perform(get("/emprestimos/count/atrasados"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+    }
+
+    @Test
+    void devolucaoAindaNaoVistaPeloIndiceNaoApareceNaListagem() throws Exception {
+        // Como uma devolução feita em outra instância, antes da próxima ressincronização
+        jdbcTemplate.update("UPDATE emprestimo SET data_devolucao = ? WHERE id = ?", HOJE, maisAtrasado.getId());
+
+        mockMvc.perform(get("/emprestimos/atrasados"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is(atrasado.getId())));
+    }
+
+    private Emprestimo salvarEmprestimo(LocalDate dataDevolucaoPrevista, LocalDate dataDevolucao) {
+        Livro livro = new Livro();
+        livro.setTitulo("Livro " + livroRepository.count());
+        livro = livroRepository.save(livro);
+        if (dataDevolucao == null) {
+            // O status não é gravado pela entidade; só as transições de empréstimo e devolução o alteram
+            jdbcTemplate.update("UPDATE livro SET status = ? WHERE id = ?", StatusLivro.EMPRESTADO.name(), livro.getId());
+        }
+
+        Emprestimo emprestimo = new Emprestimo();
+        emprestimo.setMembro(membro);
+        emprestimo.setLivro(livro);
+        emprestimo.setDataEmprestimo(dataDevolucaoPrevista.minusDays(14));
+        emprestimo.setDataDevolucaoPrevista(dataDevolucaoPrevista);
+        emprestimo.setDataDevolucao(dataDevolucao);
+        return emprestimoRepository.save(emprestimo);
+    }
+}
@@ -0,0 +1,155 @@
+package io.acordi.msbiblioteca.entrypoint.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.acordi.msbiblioteca.domain.entities.Emprestimo;
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.entities.Membro;
+import io.acordi.msbiblioteca.domain.entities.Multa;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.MembroRepository;
+import io.acordi.msbiblioteca.infra.repository.MultaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ExportacaoTest {
+
+    private static final LocalDate HOJE = LocalDate.now();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MembroRepository membroRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private MultaRepository multaRepository;
+
+    private Membro membro;
+
+    private Membro outroMembro;
+
+    @BeforeEach
+    void popular() {
+        membro = salvarMembro("Silva, \"Ana\"", "ana@biblioteca.com");
+        outroMembro = salvarMembro("Bruno", "bruno@biblioteca.com");
+
+        // Três empréstimos do membro, um por semana, e um do outro membro
+        for (int i = 0; i < 3; i++) {
+            Emprestimo emprestimo = salvarEmprestimo(membro, HOJE.minusDays(30 - 7L * i));
+            if (i == 0) {
+                Multa multa = new Multa();
+                multa.setEmprestimo(emprestimo);
+                multa.setMembro(membro);
+                multa.setValor(new BigDecimal("4.50"));
+                multa.setDataGeracao(HOJE.minusDays(2).atTime(10, 0));
+                multaRepository.save(multa);
+            }
+        }
+        salvarEmprestimo(outroMembro, HOJE.minusDays(20));
+    }
+
+    @AfterEach
+    void limpar() {
+        multaRepository.deleteAll();
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        membroRepository.deleteAll();
+    }
+
+    @Test
+    void exportaEmprestimosEmNdjsonComFiltros() throws Exception {
+        String corpo = mockMvc.perform(get("/emprestimos/exportacao")
+                        .param("membroId", membro.getId().toString())
+                        .param("dataInicio", HOJE.minusDays(23).toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=emprestimos.ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        List<JsonNode> linhas = new ArrayList<>();
+        for (String linha : corpo.split("\n")) {
+            linhas.add(objectMapper.readTree(linha));
+        }
+        assertThat(linhas).hasSize(2);
+        assertThat(linhas).allSatisfy(linha -> assertThat(linha.get("membroId").asInt()).isEqualTo(membro.getId()));
+        assertThat(linhas.get(0).get("id").asInt()).isLessThan(linhas.get(1).get("id").asInt());
+        assertThat(linhas.get(0).get("dataEmprestimo").asText()).isEqualTo(HOJE.minusDays(23).toString());
+    }
+
+    @Test
+    void exportaMultasEmCsvComCamposEscapados() throws Exception {
+        String corpo = mockMvc.perform(get("/multas/exportacao")
+                        .param("formato", "CSV")
+                        .param("dataFim", HOJE.minusDays(2).toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=multas.csv"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        // A data final é inclusiva: a multa gerada às 10h desse dia entra na exportação
+        String[] linhas = corpo.split("\r\n");
+        assertThat(linhas).hasSize(2);
+        assertThat(linhas[0]).isEqualTo("id,emprestimoId,membroId,nomeMembro,tituloLivro,valor,dataGeracao");
+        assertThat(linhas[1]).contains(",\"Silva, \"\"Ana\"\"\",").contains(",4.50,");
+
+        String vazio = mockMvc.perform(get("/multas/exportacao")
+                        .param("formato", "CSV")
+                        .param("membroId", outroMembro.getId().toString()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(vazio.split("\r\n")).hasSize(1);
+    }
+
+    private Membro salvarMembro(String nome, String email) {
+        Membro novo = new Membro();
+        novo.setNome(nome);
+        novo.setEmail(email);
+        return membroRepository.save(novo);
+    }
+
+    private Emprestimo salvarEmprestimo(Membro dono, LocalDate data) {
+        Livro livro = new Livro();
+        livro.setTitulo("Livro " + data);
+        livro.setStatus(StatusLivro.DISPONIVEL);
+        livro = livroRepository.save(livro);
+
+        Emprestimo emprestimo = new Emprestimo();
+        emprestimo.setMembro(dono);
+        emprestimo.setLivro(livro);
+        emprestimo.setDataEmprestimo(data);
+        emprestimo.setDataDevolucaoPrevista(data.plusDays(14));
+        emprestimo.setDataDevolucao(data.plusDays(10));
+        return emprestimoRepository.save(emprestimo);
+    }
+}
@@ -0,0 +1,213 @@
+package io.acordi.msbiblioteca.entrypoint.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.acordi.msbiblioteca.MsBibliotecaApplication;
+import io.acordi.msbiblioteca.domain.services.LivroService;
+import io.acordi.msbiblioteca.domain.services.MembroService;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.entrypoint.dto.LivroDTO;
+import io.acordi.msbiblioteca.entrypoint.dto.MembroDTO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compara a vazão e a latência (p50/p99) dos endpoints de catálogo e de empréstimos com a
+ * aplicação rodando em platform threads (Tomcat, 200 threads) e em virtual threads
+ * (perfil virtual-threads). Mais clientes simultâneos do que threads do Tomcat, para que a
+ * diferença entre os modos apareça. Executar com ./gradlew benchmark.
+ */
+@Tag("benchmark")
+class ModoExecucaoBenchmarkTest {
+
+    private static final int CLIENTES = 400;
+    private static final int LIVROS = 2_000;
+    private static final Duration AQUECIMENTO = Duration.ofSeconds(5);
+    private static final Duration MEDICAO = Duration.ofSeconds(15);
+    // Variação aceita entre duas medições do mesmo modo
+    private static final double MARGEM = 0.9;
+
+    @Test
+    void comparaPlatformThreadsComVirtualThreads() throws Exception {
+        Map<String, Resultado> plataforma = medir(false);
+        Map<String, Resultado> virtuais = medir(true);
+
+        assertThat(plataforma.values()).allSatisfy(resultado -> assertThat(resultado.erros()).isZero());
+        assertThat(virtuais.values()).allSatisfy(resultado -> assertThat(resultado.erros()).isZero());
+        assertThat(virtuais.keySet()).isEqualTo(plataforma.keySet());
+        // Com mais clientes do que threads do Tomcat, as virtual threads não podem atender menos
+        for (String endpoint : plataforma.keySet()) {
+            assertThat(virtuais.get(endpoint).porSegundo())
+                    .as("%s: platform threads %s, virtual threads %s", endpoint, plataforma.get(endpoint), virtuais.get(endpoint))
+                    .isGreaterThanOrEqualTo(plataforma.get(endpoint).porSegundo() * MARGEM);
+        }
+    }
+
+    private Map<String, Resultado> medir(boolean virtualThreads) throws Exception {
+        String banco = "modo-" + (virtualThreads ? "virtual" : "plataforma");
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(MsBibliotecaApplication.class)
+                .profiles(virtualThreads ? new String[]{"test", "virtual-threads"} : new String[]{"test"})
+                .properties("server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:" + banco + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+                .run()) {
+            popular(contexto);
+            String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+            ObjectMapper objectMapper = contexto.getBean(ObjectMapper.class);
+
+            Carga carga = new Carga(base, objectMapper);
+            long inicioMedicao = System.nanoTime() + AQUECIMENTO.toNanos();
+            long fim = inicioMedicao + MEDICAO.toNanos();
+
+            List<Map<String, List<Long>>> porCliente = new ArrayList<>();
+            try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<Map<String, List<Long>>>> futuros = new ArrayList<>();
+                for (int cliente = 0; cliente < CLIENTES; cliente++) {
+                    int id = cliente + 1;
+                    futuros.add(clientes.submit(() -> carga.executar(id, inicioMedicao, fim)));
+                }
+                for (Future<Map<String, List<Long>>> futuro : futuros) {
+                    porCliente.add(futuro.get());
+                }
+            }
+            return resumir(porCliente, carga.erros);
+        }
+    }
+
+    private void popular(ConfigurableApplicationContext contexto) {
+        LivroService livroService = contexto.getBean(LivroService.class);
+        MembroService membroService = contexto.getBean(MembroService.class);
+        for (int i = 0; i < LIVROS; i++) {
+            LivroDTO livro = new LivroDTO();
+            livro.setTitulo("Livro " + i);
+            livro.setAnoPublicacao(1900 + i % 120);
+            livro.setStatus(StatusLivro.DISPONIVEL);
+            livroService.save(livro);
+        }
+        for (int i = 0; i < CLIENTES; i++) {
+            MembroDTO membro = new MembroDTO();
+            membro.setNome("Membro " + i);
+            membro.setEmail("membro" + i + "@biblioteca.com");
+            membroService.save(membro);
+        }
+    }
+
+    private static Map<String, Resultado> resumir(List<Map<String, List<Long>>> porCliente, Map<String, AtomicLong> erros) {
+        Map<String, List<Long>> latencias = new TreeMap<>();
+        for (Map<String, List<Long>> cliente : porCliente) {
+            cliente.forEach((endpoint, valores) -> latencias.computeIfAbsent(endpoint, e -> new ArrayList<>()).addAll(valores));
+        }
+        Map<String, Resultado> resultados = new TreeMap<>();
+        latencias.forEach((endpoint, valores) -> {
+            long[] ordenadas = valores.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(ordenadas);
+            resultados.put(endpoint, new Resultado(
+                    ordenadas.length / (double) MEDICAO.toSeconds(),
+                    percentil(ordenadas, 0.50),
+                    percentil(ordenadas, 0.99),
+                    erros.getOrDefault(endpoint, new AtomicLong()).get()));
+        });
+        return resultados;
+    }
+
+    private static double percentil(long[] ordenadas, double percentil) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(indice, 0)] / 1e6;
+    }
+
+    /**
+     * Cada cliente usa um livro e um membro próprios, para que os empréstimos não disputem
+     * o mesmo livro, e alterna entre leituras do catálogo e o ciclo empréstimo/devolução.
+     */
+    private static class Carga {
+
+        private final String base;
+
+        private final ObjectMapper objectMapper;
+
+        private final HttpClient http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        private final Map<String, AtomicLong> erros = new ConcurrentHashMap<>();
+
+        Carga(String base, ObjectMapper objectMapper) {
+            this.base = base;
+            this.objectMapper = objectMapper;
+        }
+
+        Map<String, List<Long>> executar(int cliente, long inicioMedicao, long fim) throws Exception {
+            Map<String, List<Long>> latencias = new TreeMap<>();
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            String emprestimo = "{\"membroId\":%d,\"livroId\":%d,\"dataEmprestimo\":\"%s\",\"dataDevolucaoPrevista\":\"%s\"}"
+                    .formatted(cliente, cliente, LocalDate.now(), LocalDate.now().plusDays(14));
+
+            while (System.nanoTime() < fim) {
+                boolean medindo = System.nanoTime() >= inicioMedicao;
+                int livroId = aleatorio.nextInt(1, LIVROS + 1);
+
+                chamar("GET /livros/{id}", HttpRequest.newBuilder(URI.create(base + "/livros/" + livroId)).GET(),
+                        200, medindo, latencias);
+                chamar("GET /livros/search", HttpRequest.newBuilder(URI.create(base + "/livros/search?titulo=Livro%20" + livroId / 10)).GET(),
+                        200, medindo, latencias);
+
+                HttpResponse<String> criado = chamar("POST /emprestimos", HttpRequest.newBuilder(URI.create(base + "/emprestimos"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(emprestimo)), 201, medindo, latencias);
+                chamar("GET /emprestimos/ativos/membro/{id}", HttpRequest.newBuilder(URI.create(base + "/emprestimos/ativos/membro/" + cliente)).GET(),
+                        200, medindo, latencias);
+                if (criado.statusCode() == 201) {
+                    Integer emprestimoId = objectMapper.readTree(criado.body()).get("id").asInt();
+                    chamar("PUT /emprestimos/{id}/devolucao", HttpRequest.newBuilder(URI.create(base + "/emprestimos/" + emprestimoId + "/devolucao"))
+                            .PUT(HttpRequest.BodyPublishers.noBody()), 200, medindo, latencias);
+                }
+            }
+            return latencias;
+        }
+
+        private HttpResponse<String> chamar(String endpoint, HttpRequest.Builder requisicao, int statusEsperado,
+                                            boolean medindo, Map<String, List<Long>> latencias) throws Exception {
+            long inicio = System.nanoTime();
+            HttpResponse<String> resposta = http.send(requisicao.build(), HttpResponse.BodyHandlers.ofString());
+            long duracao = System.nanoTime() - inicio;
+            if (resposta.statusCode() != statusEsperado) {
+                erros.computeIfAbsent(endpoint, e -> new AtomicLong()).incrementAndGet();
+            } else if (medindo) {
+                latencias.computeIfAbsent(endpoint, e -> new ArrayList<>()).add(duracao);
+            }
+            return resposta;
+        }
+    }
+
+    private record Resultado(double porSegundo, double p50Ms, double p99Ms, long erros) {
+
+        @Override
+        public String toString() {
+            return "%8.0f req/s p50 %6.2f p99 %7.2f ms".formatted(porSegundo, p50Ms, p99Ms);
+        }
+    }
+}
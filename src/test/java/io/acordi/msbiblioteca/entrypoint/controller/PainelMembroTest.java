@@ -0,0 +1,122 @@
+package io.acordi.msbiblioteca.entrypoint.controller;
+
+import io.acordi.msbiblioteca.domain.entities.Emprestimo;
+import io.acordi.msbiblioteca.domain.entities.Livro;
+import io.acordi.msbiblioteca.domain.entities.Membro;
+import io.acordi.msbiblioteca.domain.entities.Multa;
+import io.acordi.msbiblioteca.domain.types.StatusLivro;
+import io.acordi.msbiblioteca.infra.repository.EmprestimoRepository;
+import io.acordi.msbiblioteca.infra.repository.LivroRepository;
+import io.acordi.msbiblioteca.infra.repository.MembroRepository;
+import io.acordi.msbiblioteca.infra.repository.MultaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PainelMembroTest {
+
+    private static final LocalDate HOJE = LocalDate.now();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MembroRepository membroRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private MultaRepository multaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Membro membro;
+
+    @BeforeEach
+    void popular() {
+        membro = new Membro();
+        membro.setNome("Ana");
+        membro.setEmail("ana@biblioteca.com");
+        membro = membroRepository.save(membro);
+
+        salvarEmprestimo(null);
+        salvarEmprestimo(null);
+        Emprestimo devolvido = salvarEmprestimo(HOJE.minusDays(1));
+
+        Multa multa = new Multa();
+        multa.setEmprestimo(devolvido);
+        multa.setMembro(membro);
+        multa.setValor(new BigDecimal("3.00"));
+        multa.setDataGeracao(LocalDateTime.now());
+        multaRepository.save(multa);
+        // O saldo é mantido pela apuração de multas, que não roda aqui
+        jdbcTemplate.update("UPDATE membro SET total_multas = 3.00 WHERE id = ?", membro.getId());
+    }
+
+    @AfterEach
+    void limpar() {
+        multaRepository.deleteAll();
+        emprestimoRepository.deleteAll();
+        livroRepository.deleteAll();
+        membroRepository.deleteAll();
+    }
+
+    @Test
+    void painelReuneMembroEmprestimosAtivosEMultas() throws Exception {
+        mockMvc.perform(get("/membros/{id}/painel", membro.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.membro.nome", is("Ana")))
+                .andExpect(jsonPath("$.emprestimosAtivos", hasSize(2)))
+                .andExpect(jsonPath("$.quantidadeEmprestimosAtivos", is(2)))
+                .andExpect(jsonPath("$.multas", hasSize(1)))
+                .andExpect(jsonPath("$.totalMultas", is(3.0)));
+    }
+
+    @Test
+    void painelDeMembroInexistenteRespondeNaoEncontrado() throws Exception {
+        mockMvc.perform(get("/membros/{id}/painel", membro.getId() + 1000))
+                .andExpect(status().isNotFound());
+    }
+
+    private Emprestimo salvarEmprestimo(LocalDate dataDevolucao) {
+        Livro livro = new Livro();
+        livro.setTitulo("Livro " + livroRepository.count());
+        livro = livroRepository.save(livro);
+        if (dataDevolucao == null) {
+            // O status não é gravado pela entidade; só as transições de empréstimo e devolução o alteram
+            jdbcTemplate.update("UPDATE livro SET status = ? WHERE id = ?", StatusLivro.EMPRESTADO.name(), livro.getId());
+        }
+
+        Emprestimo emprestimo = new Emprestimo();
+        emprestimo.setMembro(membro);
+        emprestimo.setLivro(livro);
+        emprestimo.setDataEmprestimo(HOJE.minusDays(10));
+        emprestimo.setDataDevolucaoPrevista(HOJE.plusDays(4));
+        emprestimo.setDataDevolucao(dataDevolucao);
+        return emprestimoRepository.save(emprestimo);
+    }
+}
@@ -0,0 +1,33 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RankingTest {
+
+    @Test
+    void ordenaPorPontuacaoEDesempataPeloMenorId() {
+        Ranking ranking = new Ranking();
+        ranking.adicionar(3, 5);
+        ranking.adicionar(1, 2);
+        ranking.adicionar(2, 5);
+        ranking.adicionar(1, 4);
+
+        assertThat(ranking.primeiros(10)).containsExactly(1, 2, 3);
+        assertThat(ranking.primeiros(2)).containsExactly(1, 2);
+        assertThat(ranking.pontuacao(1)).isEqualTo(6);
+    }
+
+    @Test
+    void removePontuacoesZeradas() {
+        Ranking ranking = new Ranking();
+        ranking.adicionar(1, 1);
+        ranking.adicionar(2, 3);
+        ranking.adicionar(1, -1);
+        ranking.adicionar(2, -5);
+
+        assertThat(ranking.primeiros(10)).isEmpty();
+        assertThat(ranking.tamanho()).isZero();
+    }
+}
@@ -0,0 +1,64 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramaIndexTest {
+
+    @Test
+    void buscaIgnoraAcentosEMaiusculas() {
+        TrigramaIndex indice = new TrigramaIndex();
+        indice.indexar(1, "Memórias Póstumas de Brás Cubas");
+        indice.indexar(2, "Dom Casmurro");
+
+        assertThat(indice.buscar("POSTUMAS", 10)).containsExactly(1);
+        assertThat(indice.buscar("brás cub", 10)).containsExactly(1);
+        assertThat(indice.buscar("casmurro", 10)).containsExactly(2);
+        assertThat(indice.buscar("tumas de", 10)).containsExactly(1);
+    }
+
+    @Test
+    void exigeOcorrenciaContiguaDoTermo() {
+        TrigramaIndex indice = new TrigramaIndex();
+        // Contém os trigramas "abc" e "bcd", mas não o termo "abcd"
+        indice.indexar(1, "abc bcd");
+
+        assertThat(indice.buscar("abcd", 10)).isEmpty();
+    }
+
+    @Test
+    void ordenaPorRelevancia() {
+        TrigramaIndex indice = new TrigramaIndex();
+        indice.indexar(1, "O Senhor dos Anéis");
+        indice.indexar(2, "Anéis de Saturno");
+        indice.indexar(3, "Canéis");
+        indice.indexar(4, "Anéis");
+
+        assertThat(indice.buscar("aneis", 10)).containsExactly(4, 2, 1, 3);
+        assertThat(indice.buscar("aneis", 2)).containsExactly(4, 2);
+    }
+
+    @Test
+    void consultasCurtasPercorremOsTextos() {
+        TrigramaIndex indice = new TrigramaIndex();
+        indice.indexar(1, "Ana");
+        indice.indexar(2, "Mariana");
+
+        assertThat(indice.buscar("an", 10)).containsExactly(1, 2);
+    }
+
+    @Test
+    void reindexarERemoverAtualizamAsListas() {
+        TrigramaIndex indice = new TrigramaIndex();
+        indice.indexar(1, "Iracema");
+        indice.indexar(1, "Ubirajara");
+
+        assertThat(indice.buscar("iracema", 10)).isEmpty();
+        assertThat(indice.buscar("ubira", 10)).containsExactly(1);
+
+        indice.remover(1);
+        assertThat(indice.buscar("ubira", 10)).isEmpty();
+        assertThat(indice.tamanho()).isZero();
+    }
+}
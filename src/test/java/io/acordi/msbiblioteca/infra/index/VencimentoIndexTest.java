@@ -0,0 +1,57 @@
+package io.acordi.msbiblioteca.infra.index;
+
+import io.acordi.msbiblioteca.domain.events.EmprestimoAtrasadoEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VencimentoIndexTest {
+
+    private static final LocalDate HOJE = LocalDate.now();
+
+    @Test
+    void atrasadosSaoOsQueVenceramAntesDeHojeDoMaisAntigoAoMaisRecente() {
+        VencimentoIndex indice = new VencimentoIndex();
+        indice.registrar(1, HOJE.minusDays(3));
+        indice.registrar(2, HOJE.minusDays(1));
+        indice.registrar(3, HOJE);
+        indice.registrar(4, HOJE.plusDays(2));
+        indice.registrar(5, HOJE.minusDays(3));
+
+        assertThat(indice.findAtrasados(HOJE)).containsExactly(1, 5, 2);
+        assertThat(indice.countAtrasados(HOJE)).isEqualTo(3);
+        assertThat(indice.countAtrasados(HOJE.plusDays(3))).isEqualTo(5);
+    }
+
+    @Test
+    void novoRegistroSubstituiOVencimentoERemocaoTiraOEmprestimo() {
+        VencimentoIndex indice = new VencimentoIndex();
+        indice.registrar(1, HOJE.minusDays(2));
+        indice.registrar(2, HOJE.minusDays(1));
+        indice.registrar(3, null);
+
+        // Prazo renovado: deixa de estar atrasado
+        indice.registrar(1, HOJE.plusDays(5));
+        assertThat(indice.findAtrasados(HOJE)).containsExactly(2);
+
+        indice.remover(2);
+        indice.remover(3);
+        assertThat(indice.findAtrasados(HOJE)).isEmpty();
+        assertThat(indice.countAtrasados(HOJE.plusDays(6))).isEqualTo(1);
+    }
+
+    @Test
+    void viradaDoDiaAnunciaApenasOsQueVenceramDesdeAUltima() {
+        VencimentoIndex indice = new VencimentoIndex();
+        indice.registrar(1, HOJE);
+        indice.registrar(2, HOJE.plusDays(1));
+        // Já estava atrasado antes da última virada
+        indice.registrar(3, HOJE.minusDays(1));
+
+        assertThat(indice.virarDia(HOJE.plusDays(1))).containsExactly(new EmprestimoAtrasadoEvent(1, HOJE));
+        assertThat(indice.virarDia(HOJE.plusDays(2))).containsExactly(new EmprestimoAtrasadoEvent(2, HOJE.plusDays(1)));
+        assertThat(indice.virarDia(HOJE.plusDays(2))).isEmpty();
+    }
+}
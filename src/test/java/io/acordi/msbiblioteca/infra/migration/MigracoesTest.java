@@ -0,0 +1,58 @@
+package io.acordi.msbiblioteca.infra.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Atualiza um banco anterior às migrações (o esquema da V1, criado sem o Flyway e com dados),
+ * como acontece na primeira subida em produção: registrado na versão 1, ele recebe as demais.
+ */
+class MigracoesTest {
+
+    @Test
+    void bancoExistenteRegistradoNaV1RecebeAsColunasNovasPreenchidas() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:legado;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/comum/V1__esquema_inicial.sql"))
+                .execute(dataSource);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO membro (id, nome, email) VALUES (1, 'Ana', 'ana@biblioteca.com')");
+        jdbcTemplate.update("INSERT INTO membro (id, nome, email) VALUES (2, 'Bia', 'bia@biblioteca.com')");
+        jdbcTemplate.update("INSERT INTO livro (id, titulo, status) VALUES (1, 'Livro 1', 'DISPONIVEL')");
+        jdbcTemplate.update("INSERT INTO livro (id, titulo, status) VALUES (2, 'Livro 2', 'EMPRESTADO')");
+        // Devolução atrasada, já multada pelo trigger, e um empréstimo em aberto
+        jdbcTemplate.update("INSERT INTO emprestimo (id, membro_id, livro_id, data_emprestimo, data_devolucao_prevista, " +
+                "data_devolucao) VALUES (1, 1, 1, DATE '2024-01-01', DATE '2024-01-15', DATE '2024-01-25')");
+        jdbcTemplate.update("INSERT INTO multa (emprestimo_id, membro_id, valor, data_geracao) " +
+                "VALUES (1, 1, 12.50, TIMESTAMP '2024-01-25 10:00:00')");
+        jdbcTemplate.update("INSERT INTO emprestimo (id, membro_id, livro_id, data_emprestimo, data_devolucao_prevista) " +
+                "VALUES (2, 1, 2, DATE '2024-02-01', DATE '2024-02-15')");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/comum", "classpath:db/migration/h2")
+                .javaMigrations(new V5__RemoverTriggerMultas())
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        assertThat(jdbcTemplate.queryForList("SELECT multa_apurada FROM emprestimo ORDER BY id", Boolean.class))
+                .containsExactly(true, false);
+        assertThat(jdbcTemplate.queryForList("SELECT emprestimos_ativos FROM membro ORDER BY id", Integer.class))
+                .containsExactly(1, 0);
+        assertThat(jdbcTemplate.queryForList("SELECT total_multas FROM membro ORDER BY id", BigDecimal.class))
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("12.50"), BigDecimal.ZERO);
+        assertThat(jdbcTemplate.queryForObject("SELECT versao FROM livro WHERE id = 1", Long.class)).isZero();
+    }
+}
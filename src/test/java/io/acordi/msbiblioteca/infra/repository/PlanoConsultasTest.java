@@ -0,0 +1,225 @@
+package io.acordi.msbiblioteca.infra.repository;
+
+import io.acordi.msbiblioteca.sql.ContadorSql;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Executa cada consulta declarada nos repositórios JPA sobre o esquema das migrações, pede ao
+ * banco o plano (EXPLAIN) do SQL gerado pelo Hibernate e falha se alguma tabela for lida por
+ * inteiro. Uma consulta nova precisa entrar em {@link #consultas()}, senão o teste também falha.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PlanoConsultasTest {
+
+    private static final List<Class<?>> REPOSITORIOS = List.of(AutorRepository.class, CheckpointRepository.class,
+            EmprestimoRepository.class, LivroRepository.class, MembroRepository.class, MultaRepository.class);
+
+    // Agregações de todas as linhas: o custo está no volume, não na falta de índice
+    private static final Set<String> LEITURA_COMPLETA = Set.of(
+            "EmprestimoRepository.findTotaisPorLivro",
+            "EmprestimoRepository.findTotaisPorMembro",
+            "MultaRepository.findAllOrderByValorDesc");
+
+    private static final PageRequest PAGINA = PageRequest.of(0, 20);
+    private static final List<Integer> IDS = List.of(1, 2, 3);
+    private static final LocalDate HOJE = LocalDate.now();
+
+    @Autowired
+    private AutorRepository autorRepository;
+
+    @Autowired
+    private CheckpointRepository checkpointRepository;
+
+    @Autowired
+    private EmprestimoRepository emprestimoRepository;
+
+    @Autowired
+    private LivroRepository livroRepository;
+
+    @Autowired
+    private MembroRepository membroRepository;
+
+    @Autowired
+    private MultaRepository multaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Map<String, Callable<?>> consultas() {
+        Map<String, Callable<?>> consultas = new LinkedHashMap<>();
+
+        consultas.put("AutorRepository.findByIdGreaterThanOrderByIdAsc", () -> autorRepository.findByIdGreaterThanOrderByIdAsc(0, PAGINA));
+        consultas.put("AutorRepository.findNomesByIdGreaterThan", () -> autorRepository.findNomesByIdGreaterThan(0, PAGINA));
+        consultas.put("AutorRepository.findVersaoById", () -> autorRepository.findVersaoById(1));
+        consultas.put("AutorRepository.findAutoresByAnoPublicacao", () -> autorRepository.findAutoresByAnoPublicacao(2000));
+
+        consultas.put("CheckpointRepository.findParaAtualizacao", () -> checkpointRepository.findParaAtualizacao("multas"));
+        consultas.put("CheckpointRepository.criarSeAusente", () -> checkpointRepository.criarSeAusente("multas"));
+
+        consultas.put("EmprestimoRepository.findDtoById", () -> emprestimoRepository.findDtoById(1));
+        consultas.put("EmprestimoRepository.findDtosByIdIn", () -> emprestimoRepository.findDtosByIdIn(IDS));
+        consultas.put("EmprestimoRepository.findAtivosByIdIn", () -> emprestimoRepository.findAtivosByIdIn(IDS));
+        consultas.put("EmprestimoRepository.findByIdGreaterThan", () -> emprestimoRepository.findByIdGreaterThan(0, PAGINA));
+        consultas.put("EmprestimoRepository.findByMembroId", () -> emprestimoRepository.findByMembroId(1));
+        consultas.put("EmprestimoRepository.findByLivroId", () -> emprestimoRepository.findByLivroId(1));
+        consultas.put("EmprestimoRepository.findEmprestimosAtivos", () -> emprestimoRepository.findEmprestimosAtivos());
+        consultas.put("EmprestimoRepository.findDevolucoesPendentesDeMulta", () -> emprestimoRepository.findDevolucoesPendentesDeMulta(0, PAGINA));
+        consultas.put("EmprestimoRepository.marcarMultaApurada", () -> emprestimoRepository.marcarMultaApurada(IDS, true));
+        consultas.put("EmprestimoRepository.findVencimentosAtivos", () -> emprestimoRepository.findVencimentosAtivos(0, PAGINA));
+        consultas.put("EmprestimoRepository.findByDataDevolucaoBetween", () -> emprestimoRepository.findByDataDevolucaoBetween(HOJE.minusDays(30), HOJE));
+        consultas.put("EmprestimoRepository.findEmprestimosAtivosByMembro", () -> emprestimoRepository.findEmprestimosAtivosByMembro(1));
+        consultas.put("EmprestimoRepository.findLivroIdsComEmprestimoAtivo", () -> emprestimoRepository.findLivroIdsComEmprestimoAtivo());
+        consultas.put("EmprestimoRepository.countEmprestimosAtivosByMembro", () -> emprestimoRepository.countEmprestimosAtivosByMembro(1));
+        consultas.put("EmprestimoRepository.findEmprestimosHistoricoByLivro", () -> emprestimoRepository.findEmprestimosHistoricoByLivro(1));
+        consultas.put("EmprestimoRepository.registrarDevolucao", () -> emprestimoRepository.registrarDevolucao(1, HOJE));
+        consultas.put("EmprestimoRepository.streamParaExportacao", () -> consumir(
+                emprestimoRepository.streamParaExportacao(HOJE.minusDays(30), HOJE)));
+        consultas.put("EmprestimoRepository.streamParaExportacaoByMembroId", () -> consumir(
+                emprestimoRepository.streamParaExportacaoByMembroId(1, HOJE.minusDays(30), HOJE)));
+
+        consultas.put("LivroRepository.findIdsByIdGreaterThan", () -> livroRepository.findIdsByIdGreaterThan(0, PAGINA));
+        consultas.put("LivroRepository.findComAutoresByIdIn", () -> livroRepository.findComAutoresByIdIn(IDS));
+        consultas.put("LivroRepository.findById", () -> livroRepository.findById(1));
+        consultas.put("LivroRepository.findTitulosByIdGreaterThan", () -> livroRepository.findTitulosByIdGreaterThan(0, PAGINA));
+        consultas.put("LivroRepository.findByAnoPublicacao", () -> livroRepository.findByAnoPublicacao(2000));
+        consultas.put("LivroRepository.findByAutorId", () -> livroRepository.findByAutorId(1));
+        consultas.put("LivroRepository.findAutoresByLivroIdIn", () -> livroRepository.findAutoresByLivroIdIn(IDS));
+        consultas.put("LivroRepository.findByAnoPublicacaoBetween", () -> livroRepository.findByAnoPublicacaoBetween(1990, 2000));
+        consultas.put("LivroRepository.findVersaoById", () -> livroRepository.findVersaoById(1));
+        consultas.put("LivroRepository.findStatusById", () -> livroRepository.findStatusById(1));
+        consultas.put("LivroRepository.findIdsByIdIn", () -> livroRepository.findIdsByIdIn(IDS));
+
+        consultas.put("MembroRepository.findByIdGreaterThanOrderByIdAsc", () -> membroRepository.findByIdGreaterThanOrderByIdAsc(0, PAGINA));
+        consultas.put("MembroRepository.findNomesByIdGreaterThan", () -> membroRepository.findNomesByIdGreaterThan(0, PAGINA));
+        consultas.put("MembroRepository.findByEmail", () -> membroRepository.findByEmail("membro@biblioteca.com"));
+        consultas.put("MembroRepository.findMembrosComEmprestimosCompletos", () -> membroRepository.findMembrosComEmprestimosCompletos());
+        consultas.put("MembroRepository.findMembrosComEmprestimosAtivos", () -> membroRepository.findMembrosComEmprestimosAtivos(2));
+        consultas.put("MembroRepository.reservarEmprestimo", () -> membroRepository.reservarEmprestimo(1, 5));
+        consultas.put("MembroRepository.liberarEmprestimo", () -> membroRepository.liberarEmprestimo(1));
+        consultas.put("MembroRepository.findVersaoById", () -> membroRepository.findVersaoById(1));
+        consultas.put("MembroRepository.findTotalMultasById", () -> membroRepository.findTotalMultasById(1));
+        consultas.put("MembroRepository.findTotaisMultasByIdGreaterThan", () -> membroRepository.findTotaisMultasByIdGreaterThan(0, PAGINA));
+        consultas.put("MembroRepository.acumularMultas", () -> membroRepository.acumularMultas(1, BigDecimal.ONE));
+        consultas.put("MembroRepository.corrigirTotalMultas", () -> membroRepository.corrigirTotalMultas(1, BigDecimal.ZERO, BigDecimal.ONE));
+        consultas.put("MembroRepository.findIdsByIdIn", () -> membroRepository.findIdsByIdIn(IDS));
+
+        consultas.put("MultaRepository.findByIdGreaterThan", () -> multaRepository.findByIdGreaterThan(0, PAGINA));
+        consultas.put("MultaRepository.findByMembroId", () -> multaRepository.findByMembroId(1));
+        consultas.put("MultaRepository.findByEmprestimoId", () -> multaRepository.findByEmprestimoId(1));
+        consultas.put("MultaRepository.existsByEmprestimoId", () -> multaRepository.existsByEmprestimoId(1));
+        consultas.put("MultaRepository.findAllByEmprestimoId", () -> multaRepository.findAllByEmprestimoId(1));
+        consultas.put("MultaRepository.findTotaisPorMembroByMembroIdIn", () -> multaRepository.findTotaisPorMembroByMembroIdIn(IDS));
+        consultas.put("MultaRepository.findByDataGeracaoBetween", () -> multaRepository.findByDataGeracaoBetween(
+                HOJE.minusDays(30).atStartOfDay(), LocalDateTime.now()));
+        consultas.put("MultaRepository.findByValorGreaterThan", () -> multaRepository.findByValorGreaterThan(BigDecimal.TEN));
+        consultas.put("MultaRepository.streamParaExportacao", () -> consumir(multaRepository.streamParaExportacao(
+                HOJE.minusDays(30).atStartOfDay(), LocalDateTime.now())));
+        consultas.put("MultaRepository.streamParaExportacaoByMembroId", () -> consumir(
+                multaRepository.streamParaExportacaoByMembroId(1, HOJE.minusDays(30).atStartOfDay(), LocalDateTime.now())));
+
+        return consultas;
+    }
+
+    @Test
+    void todasAsConsultasDosRepositoriosSaoVerificadas() {
+        Set<String> declaradas = new TreeSet<>();
+        for (Class<?> repositorio : REPOSITORIOS) {
+            for (Method metodo : repositorio.getDeclaredMethods()) {
+                if (!metodo.isDefault() && !metodo.isSynthetic() && !Modifier.isStatic(metodo.getModifiers())) {
+                    declaradas.add(repositorio.getSimpleName() + "." + metodo.getName());
+                }
+            }
+        }
+
+        Set<String> verificadas = new TreeSet<>(consultas().keySet());
+        verificadas.addAll(LEITURA_COMPLETA);
+        assertThat(verificadas).isEqualTo(declaradas);
+    }
+
+    @Test
+    void nenhumaConsultaLeUmaTabelaInteira() {
+        List<String> varreduras = new ArrayList<>();
+        consultas().forEach((nome, consulta) -> {
+            for (String sql : executar(nome, consulta)) {
+                String plano = explain(sql);
+                if (plano.contains(".tableScan")) {
+                    varreduras.add(nome + ":\n" + plano);
+                }
+            }
+        });
+
+        assertThat(varreduras).as("Consultas com leitura completa de tabela").isEmpty();
+    }
+
+    // Em uma transação desfeita ao fim (há consultas com trava e alterações), com os caches do
+    // Hibernate vazios para que o SQL chegue ao banco
+    private List<String> executar(String nome, Callable<?> consulta) {
+        entityManagerFactory.getCache().evictAll();
+        List<String> comandos = new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return ContadorSql.medir(consulta);
+        });
+        assertThat(comandos).as("SQL de %s", nome).isNotEmpty();
+        return comandos;
+    }
+
+    // Lê o cursor até o fim dentro da transação de executar
+    private static long consumir(Stream<?> linhas) {
+        try (linhas) {
+            return linhas.count();
+        }
+    }
+
+    // O H2 escolhe o plano ao preparar o comando; os valores dos parâmetros não o alteram
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) conexao -> {
+            try (PreparedStatement comando = conexao.prepareStatement("EXPLAIN " + sql)) {
+                int parametros = comando.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parametros; i++) {
+                    comando.setObject(i, null);
+                }
+                StringBuilder plano = new StringBuilder();
+                try (ResultSet linhas = comando.executeQuery()) {
+                    while (linhas.next()) {
+                        plano.append(linhas.getString(1)).append('\n');
+                    }
+                }
+                return plano.toString();
+            }
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package io.acordi.msbiblioteca.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Registra os comandos SQL preparados pelo Hibernate na thread atual, para que os testes
+ * limitem quantas consultas uma operação pode fazer e detectem N+1. Registrado no perfil
+ * de teste em hibernate.session_factory.statement_inspector.
+ * <p>
+ * Os repositórios de JdbcTemplate não passam pelo Hibernate e não são contados.
+ */
+public class ContadorSql implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> GRAVACAO = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> comandos = GRAVACAO.get();
+        if (comandos != null) {
+            comandos.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Executa a operação e retorna os comandos SQL emitidos por ela, na ordem.
+     */
+    public static List<String> medir(Callable<?> operacao) {
+        List<String> anterior = GRAVACAO.get();
+        List<String> comandos = new ArrayList<>();
+        GRAVACAO.set(comandos);
+        try {
+            operacao.call();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            GRAVACAO.set(anterior);
+            if (anterior != null) {
+                anterior.addAll(comandos);
+            }
+        }
+        return comandos;
+    }
+
+    /**
+     * Falha, listando os comandos emitidos, se a operação fizer mais de {@code maximo} consultas.
+     */
+    public static void assertMaximo(int maximo, Callable<?> operacao) {
+        List<String> comandos = medir(operacao);
+        if (comandos.size() > maximo) {
+            StringBuilder mensagem = new StringBuilder()
+                    .append("Esperado no máximo ").append(maximo).append(" comando(s) SQL, mas foram executados ")
+                    .append(comandos.size()).append(':');
+            for (int i = 0; i < comandos.size(); i++) {
+                mensagem.append('\n').append(i + 1).append(". ").append(comandos.get(i));
+            }
+            throw new AssertionError(mensagem.toString());
+        }
+    }
+}